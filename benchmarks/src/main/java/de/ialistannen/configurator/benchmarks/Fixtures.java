@@ -0,0 +1,159 @@
+package de.ialistannen.configurator.benchmarks;
+
+import de.ialistannen.configurator.context.PhaseContext;
+import de.ialistannen.configurator.context.RenderContext;
+import de.ialistannen.configurator.template.StringRenderTarget;
+import de.ialistannen.configurator.util.ParseException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Loads the dotfile fixtures bundled with the benchmarks.
+ */
+final class Fixtures {
+
+  /**
+   * All fixture files in the order of their phases.
+   */
+  static final List<String> ALL = Arrays.asList(
+      "default_vars", "selected_theme", "oceanic_next", "i3", "alacritty", "actions"
+  );
+
+  /**
+   * The fixtures that produce the context the "render" and "actions" phase fixtures rely on.
+   */
+  private static final List<String> CONTEXT_FIXTURES = Arrays.asList(
+      "default_vars", "selected_theme", "oceanic_next"
+  );
+
+  private static final String PREFIX_LINE = "Command prefix: #\n";
+
+  private Fixtures() {
+    throw new UnsupportedOperationException("No instantiation");
+  }
+
+  /**
+   * Returns the raw contents of a fixture file, including the phase and target path header.
+   *
+   * @param name the name of the fixture, without the ".conf" extension
+   * @return the raw file contents
+   */
+  static String raw(String name) {
+    return readResource("/fixtures/" + name + ".conf");
+  }
+
+  /**
+   * Returns the DSL source of a fixture in the form {@code RenderTargetCollector} hands it to the
+   * parser, i.e. without the phase and target path lines.
+   *
+   * @param name the name of the fixture
+   * @return the DSL source, starting with the command prefix line
+   */
+  static String source(String name) {
+    return source(name, 1);
+  }
+
+  /**
+   * Returns the DSL source of a fixture with its body repeated {@code copies} times. This
+   * simulates big, generated files.
+   *
+   * @param name the name of the fixture
+   * @param copies how often the body should be repeated
+   * @return the DSL source, starting with the command prefix line
+   */
+  static String source(String name, int copies) {
+    String raw = raw(name);
+    int bodyStart = nthLineStart(raw, 2);
+    String source = raw.substring(bodyStart);
+    if (!source.startsWith(PREFIX_LINE)) {
+      throw new IllegalStateException("Fixture " + name + " has no command prefix line");
+    }
+    String body = source.substring(PREFIX_LINE.length());
+
+    StringBuilder result = new StringBuilder(PREFIX_LINE);
+    for (int i = 0; i < copies; i++) {
+      result.append(body);
+    }
+    return result.toString();
+  }
+
+  /**
+   * Renders the theme and default variable fixtures and returns the resulting context. This is
+   * the context the other fixtures expect.
+   *
+   * @return the rendered context
+   * @throws ParseException if a fixture can not be parsed
+   */
+  static RenderContext baseContext() throws ParseException {
+    RenderContext context = new PhaseContext();
+    for (String name : CONTEXT_FIXTURES) {
+      context = new StringRenderTarget(source(name), false).render(context).getSecond();
+    }
+    return context;
+  }
+
+  /**
+   * Writes the fixture tree to the given directory. The "render" phase files are duplicated
+   * {@code copies} times into their own sub directories.
+   *
+   * @param directory the directory to write to
+   * @param copies how often the render phase files should be duplicated
+   * @throws IOException if an error occurs writing the files
+   */
+  static void writeTree(Path directory, int copies) throws IOException {
+    Files.write(
+        directory.resolve(".configurator"),
+        readResource("/fixtures/.configurator").getBytes(StandardCharsets.UTF_8)
+    );
+    for (String name : ALL) {
+      if (!name.equals("i3") && !name.equals("alacritty")) {
+        write(directory.resolve(name + ".conf"), raw(name));
+        continue;
+      }
+      for (int i = 0; i < copies; i++) {
+        Path copyDir = directory.resolve("copy-" + i);
+        Files.createDirectories(copyDir);
+        write(copyDir.resolve(name + ".conf"), raw(name));
+      }
+    }
+  }
+
+  private static void write(Path path, String content) throws IOException {
+    Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static int nthLineStart(String text, int line) {
+    int position = 0;
+    for (int i = 0; i < line; i++) {
+      position = text.indexOf('\n', position) + 1;
+      if (position == 0) {
+        throw new IllegalArgumentException("Text has less than " + line + " lines");
+      }
+    }
+    return position;
+  }
+
+  private static String readResource(String path) {
+    try (InputStream inputStream = Fixtures.class.getResourceAsStream(path)) {
+      if (inputStream == null) {
+        throw new IllegalArgumentException("Fixture not found: " + path);
+      }
+      ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8192];
+      int read;
+      while ((read = inputStream.read(buffer)) != -1) {
+        outputStream.write(buffer, 0, read);
+      }
+      return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
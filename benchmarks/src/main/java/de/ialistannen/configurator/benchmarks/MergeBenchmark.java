@@ -0,0 +1,70 @@
+package de.ialistannen.configurator.benchmarks;
+
+import de.ialistannen.configurator.context.PhaseContext;
+import de.ialistannen.configurator.context.RenderContext;
+import de.ialistannen.configurator.context.RenderedAction;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link PhaseContext#merge(RenderContext)} for two contexts that share half of their
+ * entries, which is what merging the per-target contexts of a phase looks like.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MergeBenchmark {
+
+  /**
+   * The amount of values, actions, reload actions and post scripts in each context.
+   */
+  @Param({"10", "100", "1000"})
+  public int size;
+
+  private RenderContext left;
+  private RenderContext right;
+
+  @Setup
+  public void setup() {
+    left = createContext(0, size);
+    right = createContext(size / 2, size);
+  }
+
+  @Benchmark
+  public RenderContext merge() {
+    return left.merge(right);
+  }
+
+  private static RenderContext createContext(int offset, int size) {
+    RenderContext context = new PhaseContext();
+    for (int i = offset; i < offset + size; i++) {
+      context = context.storeValue("value_" + i, "#" + Integer.toHexString(i * 4099));
+      context = context.storeAction(createAction("Action " + i));
+      context = context.storeReloadAction(createAction("Reload " + i));
+      context = context.storePostScript("#!/bin/sh\necho 'Post script " + i + "'\n");
+    }
+    return context;
+  }
+
+  private static RenderedAction createAction(String name) {
+    return new RenderedAction(
+        name,
+        name.replace(' ', '_'),
+        "#!/usr/bin/env bash\nnotify-send '" + name + "'\nlight -S 50\n",
+        false
+    );
+  }
+}
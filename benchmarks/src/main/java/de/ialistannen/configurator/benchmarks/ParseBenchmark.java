@@ -0,0 +1,51 @@
+package de.ialistannen.configurator.benchmarks;
+
+import de.ialistannen.configurator.dsl.AstNode;
+import de.ialistannen.configurator.dsl.DslParser;
+import de.ialistannen.configurator.util.ParseException;
+import de.ialistannen.configurator.util.StringReader;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link DslParser#parse()} on the fixture files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+
+  @Param({"i3", "alacritty", "oceanic_next", "actions"})
+  public String fixture;
+
+  /**
+   * How often the body of the fixture is repeated. Simulates large, generated files.
+   */
+  @Param({"1", "50"})
+  public int copies;
+
+  private String source;
+
+  @Setup
+  public void setup() {
+    source = Fixtures.source(fixture, copies);
+  }
+
+  @Benchmark
+  public AstNode parse() throws ParseException {
+    return new DslParser(new StringReader(source), false).parse();
+  }
+}
@@ -0,0 +1,90 @@
+package de.ialistannen.configurator.benchmarks;
+
+import de.ialistannen.configurator.config.Config;
+import de.ialistannen.configurator.context.PhaseContext;
+import de.ialistannen.configurator.context.RenderContext;
+import de.ialistannen.configurator.execution.Reactor;
+import de.ialistannen.configurator.phases.MultiTargetRenderer;
+import de.ialistannen.configurator.phases.RenderTargetCollector;
+import de.ialistannen.configurator.rendering.FileRenderedObject;
+import de.ialistannen.configurator.util.Pair;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a whole {@link Reactor#renderAll(RenderContext)} run over the fixture tree. Nothing is
+ * distributed, so this covers rendering all phases and merging their contexts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReactorBenchmark {
+
+  /**
+   * How often the render phase files are duplicated in the tree.
+   */
+  @Param({"1", "100"})
+  public int copies;
+
+  private Path directory;
+  private Reactor reactor;
+
+  @Setup
+  public void setup() throws IOException {
+    directory = Files.createTempDirectory("configurator-bench");
+    Fixtures.writeTree(directory, copies);
+
+    Config config = Config.loadConfig(new String(
+        Files.readAllBytes(directory.resolve(".configurator")), StandardCharsets.UTF_8
+    ));
+    Map<String, MultiTargetRenderer> targets = new RenderTargetCollector(false)
+        .collectTargets(directory);
+    reactor = new Reactor(config.getPhasesAsObject(), targets);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    reactor.shutdown();
+    Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+        Files.delete(file);
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+        Files.delete(dir);
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  @Benchmark
+  public Pair<List<FileRenderedObject>, RenderContext> renderAll() {
+    return reactor.renderAll(new PhaseContext());
+  }
+}
@@ -0,0 +1,55 @@
+package de.ialistannen.configurator.benchmarks;
+
+import de.ialistannen.configurator.context.RenderContext;
+import de.ialistannen.configurator.rendering.EncodedRenderedObject;
+import de.ialistannen.configurator.template.StringRenderTarget;
+import de.ialistannen.configurator.util.Pair;
+import de.ialistannen.configurator.util.ParseException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link StringRenderTarget#render(RenderContext)} on already parsed fixtures. The
+ * fixtures do not run shell commands, so this only measures the renderer itself.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderBenchmark {
+
+  @Param({"i3", "alacritty", "oceanic_next", "actions"})
+  public String fixture;
+
+  /**
+   * How often the body of the fixture is repeated. Simulates large, generated files.
+   */
+  @Param({"1", "50"})
+  public int copies;
+
+  private StringRenderTarget target;
+  private RenderContext context;
+
+  @Setup
+  public void setup() throws ParseException {
+    target = new StringRenderTarget(Fixtures.source(fixture, copies), false);
+    context = Fixtures.baseContext();
+  }
+
+  @Benchmark
+  public Pair<EncodedRenderedObject, RenderContext> render() {
+    return target.render(context);
+  }
+}
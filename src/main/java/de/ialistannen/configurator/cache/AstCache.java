@@ -0,0 +1,153 @@
+package de.ialistannen.configurator.cache;
+
+import de.ialistannen.configurator.dsl.AstNode;
+import de.ialistannen.configurator.dsl.DslParser;
+import de.ialistannen.configurator.phases.ParsedConfigFile;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Optional;
+
+/**
+ * A persistent cache for parsed config files.
+ *
+ * <p>Entries are keyed by a hash of the file contents and the parser version, so they never need
+ * to be invalidated explicitly. Every problem reading or writing the cache is treated like a miss,
+ * the cache only ever saves work.</p>
+ */
+public class AstCache {
+
+  /**
+   * A cache that never stores anything.
+   */
+  public static final AstCache DISABLED = new AstCache(null);
+
+  private static final int MAGIC = 0x43464741;
+  private static final int FORMAT_VERSION = 2;
+
+  private final Path directory;
+
+  /**
+   * Creates a new ast cache. The directory is created when the first entry is stored.
+   *
+   * @param directory the directory to store the entries in
+   */
+  public AstCache(Path directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Computes the cache key for the given file contents.
+   *
+   * @param content the raw file contents
+   * @return the cache key
+   */
+  public static String key(byte[] content) {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is required to be supported", e);
+    }
+    digest.update(
+        ByteBuffer.allocate(2 * Integer.BYTES)
+            .putInt(DslParser.PARSER_VERSION)
+            .putInt(FORMAT_VERSION)
+            .array()
+    );
+    byte[] hash = digest.digest(content);
+
+    StringBuilder result = new StringBuilder(hash.length * 2);
+    for (byte b : hash) {
+      result.append(Character.forDigit((b >> 4) & 0xF, 16));
+      result.append(Character.forDigit(b & 0xF, 16));
+    }
+    return result.toString();
+  }
+
+  /**
+   * Loads the parsed file for a key.
+   *
+   * @param key the key, as returned by {@link #key(byte[])}
+   * @return the parsed file or an empty optional if it is not cached
+   */
+  public Optional<ParsedConfigFile> load(String key) {
+    if (directory == null) {
+      return Optional.empty();
+    }
+    Path file = directory.resolve(key);
+    if (!Files.isRegularFile(file)) {
+      return Optional.empty();
+    }
+
+    try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(file))) {
+      DataInputStream input = new DataInputStream(inputStream);
+      if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION) {
+        return Optional.empty();
+      }
+      AstDeserializer deserializer = new AstDeserializer(input);
+
+      String phaseName = deserializer.readString();
+      AstNode targetPath = deserializer.read();
+      String commandPrefix = deserializer.readString();
+      AstNode body = deserializer.read();
+      return Optional.of(new ParsedConfigFile(phaseName, targetPath, commandPrefix, body));
+    } catch (IOException | RuntimeException e) {
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Stores a parsed file. Does nothing if the file can not be stored.
+   *
+   * @param key the key, as returned by {@link #key(byte[])}
+   * @param parsedFile the parsed file
+   */
+  public void store(String key, ParsedConfigFile parsedFile) {
+    if (directory == null) {
+      return;
+    }
+    Path tempFile = null;
+    try {
+      Files.createDirectories(directory);
+      tempFile = Files.createTempFile(directory, key, ".tmp");
+
+      try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(tempFile))) {
+        DataOutputStream output = new DataOutputStream(outputStream);
+        output.writeInt(MAGIC);
+        output.writeInt(FORMAT_VERSION);
+
+        AstSerializer serializer = new AstSerializer(output);
+        serializer.writeString(parsedFile.getPhaseName());
+        serializer.write(parsedFile.getTargetPath());
+        serializer.writeString(parsedFile.getCommandPrefix());
+        serializer.write(parsedFile.getBody());
+      }
+
+      Files.move(
+          tempFile, directory.resolve(key),
+          StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING
+      );
+      tempFile = null;
+    } catch (IOException | IllegalArgumentException e) {
+      // The cache is only an optimization, so failing to write it is fine
+    } finally {
+      if (tempFile != null) {
+        try {
+          Files.deleteIfExists(tempFile);
+        } catch (IOException ignored) {
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,196 @@
+package de.ialistannen.configurator.cache;
+
+import static de.ialistannen.configurator.cache.AstSerializer.ACTION;
+import static de.ialistannen.configurator.cache.AstSerializer.ACTION_CALL;
+import static de.ialistannen.configurator.cache.AstSerializer.ASSIGNMENT;
+import static de.ialistannen.configurator.cache.AstSerializer.BLOCK;
+import static de.ialistannen.configurator.cache.AstSerializer.COMPARISON;
+import static de.ialistannen.configurator.cache.AstSerializer.EXECUTE_FILE;
+import static de.ialistannen.configurator.cache.AstSerializer.IF;
+import static de.ialistannen.configurator.cache.AstSerializer.JAVASCRIPT_LANGUAGE;
+import static de.ialistannen.configurator.cache.AstSerializer.LITERAL;
+import static de.ialistannen.configurator.cache.AstSerializer.NO_NODE;
+import static de.ialistannen.configurator.cache.AstSerializer.RELOAD_ACTION;
+import static de.ialistannen.configurator.cache.AstSerializer.SCRIPT;
+import static de.ialistannen.configurator.cache.AstSerializer.SHELL_COMMAND;
+import static de.ialistannen.configurator.cache.AstSerializer.VARIABLE;
+
+import de.ialistannen.configurator.context.Action;
+import de.ialistannen.configurator.dsl.ActionAstNode;
+import de.ialistannen.configurator.dsl.ActionCallAstNode;
+import de.ialistannen.configurator.dsl.AssignmentAstNode;
+import de.ialistannen.configurator.dsl.AstNode;
+import de.ialistannen.configurator.dsl.BlockAstNode;
+import de.ialistannen.configurator.dsl.ExecuteFileAstNode;
+import de.ialistannen.configurator.dsl.IfAstNode;
+import de.ialistannen.configurator.dsl.LiteralAstNode;
+import de.ialistannen.configurator.dsl.ReloadActionAstNode;
+import de.ialistannen.configurator.dsl.ScriptAstNode;
+import de.ialistannen.configurator.dsl.ShellCommandAstNode;
+import de.ialistannen.configurator.dsl.VariableAstNode;
+import de.ialistannen.configurator.dsl.comparison.ComparisonAstNode;
+import de.ialistannen.configurator.dsl.comparison.ComparisonOperator;
+import de.ialistannen.configurator.dsl.script.JavaScriptScript;
+import java.io.DataInput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads {@link AstNode}s written by an {@link AstSerializer}.
+ */
+public class AstDeserializer {
+
+  private final DataInput input;
+  private final List<String> stringTable;
+
+  /**
+   * Creates a new deserializer.
+   *
+   * @param input the input to read from
+   */
+  public AstDeserializer(DataInput input) {
+    this.input = input;
+    this.stringTable = new ArrayList<>();
+  }
+
+  /**
+   * Reads a single node and all of its children.
+   *
+   * @return the read node
+   * @throws IOException if an error occurs reading or the data is malformed
+   */
+  public AstNode read() throws IOException {
+    AstNode node = readNullable();
+    if (node == null) {
+      throw new IOException("Expected a node but got none");
+    }
+    return node;
+  }
+
+  /**
+   * Reads a string written by {@link AstSerializer#writeString(String)}.
+   *
+   * @return the read string
+   * @throws IOException if an error occurs reading or the data is malformed
+   */
+  public String readString() throws IOException {
+    int index = readVarInt();
+    if (index > 0) {
+      if (index > stringTable.size()) {
+        throw new IOException("Unknown string reference " + index);
+      }
+      return stringTable.get(index - 1);
+    }
+
+    byte[] bytes = new byte[readVarInt()];
+    input.readFully(bytes);
+    String string = new String(bytes, StandardCharsets.UTF_8);
+    stringTable.add(string);
+    return string;
+  }
+
+  private AstNode readNullable() throws IOException {
+    byte tag = input.readByte();
+    switch (tag) {
+      case NO_NODE:
+        return null;
+      case LITERAL:
+        return new LiteralAstNode(readString());
+      case VARIABLE:
+        return new VariableAstNode(readString(), readStrings());
+      case SHELL_COMMAND:
+        return new ShellCommandAstNode(readString(), input.readBoolean());
+      case BLOCK:
+        return readBlock();
+      case ASSIGNMENT:
+        return new AssignmentAstNode(readString(), read());
+      case ACTION:
+        return new ActionAstNode(readAction());
+      case SCRIPT:
+        return readScript();
+      case COMPARISON:
+        return readComparison();
+      case IF:
+        return readIf();
+      case ACTION_CALL:
+        return new ActionCallAstNode(readString(), readString());
+      case EXECUTE_FILE:
+        return new ExecuteFileAstNode(read());
+      case RELOAD_ACTION:
+        return new ReloadActionAstNode(readAction());
+      default:
+        throw new IOException("Unknown node tag " + tag);
+    }
+  }
+
+  private AstNode readBlock() throws IOException {
+    int size = readVarInt();
+    List<AstNode> children = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      children.add(read());
+    }
+    return new BlockAstNode(children);
+  }
+
+  private AstNode readScript() throws IOException {
+    String language = readString();
+    if (!language.equals(JAVASCRIPT_LANGUAGE)) {
+      throw new IOException("Unknown script language " + language);
+    }
+    return new ScriptAstNode(new JavaScriptScript(readString()));
+  }
+
+  private ComparisonAstNode readComparison() throws IOException {
+    AstNode left = read();
+    String symbol = readString();
+    ComparisonOperator operator = ComparisonOperator.fromSymbol(symbol)
+        .orElseThrow(() -> new IOException("Unknown comparison operator " + symbol));
+    AstNode right = read();
+    return new ComparisonAstNode(left, right, operator);
+  }
+
+  private AstNode readIf() throws IOException {
+    AstNode condition = read();
+    if (!(condition instanceof ComparisonAstNode)) {
+      throw new IOException("Expected a comparison as if condition, got " + condition);
+    }
+    AstNode ifContent = read();
+    AstNode elseContent = readNullable();
+    return new IfAstNode((ComparisonAstNode) condition, ifContent, elseContent);
+  }
+
+  private Action readAction() throws IOException {
+    String name = readString();
+    boolean hideFromRunAll = input.readBoolean();
+    return new Action(name, read(), hideFromRunAll);
+  }
+
+  private List<String> readStrings() throws IOException {
+    int size = readVarInt();
+    List<String> strings = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      strings.add(readString());
+    }
+    return strings;
+  }
+
+  /**
+   * Reads a non-negative integer written by {@link AstSerializer#writeVarInt(int)}.
+   *
+   * @return the read integer
+   * @throws IOException if an error occurs reading or the data is malformed
+   */
+  int readVarInt() throws IOException {
+    int value = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      byte read = input.readByte();
+      value |= (read & 0x7F) << shift;
+      if ((read & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("Malformed variable length integer");
+  }
+}
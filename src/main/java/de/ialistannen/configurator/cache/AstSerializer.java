@@ -0,0 +1,256 @@
+package de.ialistannen.configurator.cache;
+
+import de.ialistannen.configurator.context.Action;
+import de.ialistannen.configurator.dsl.ActionAstNode;
+import de.ialistannen.configurator.dsl.ActionCallAstNode;
+import de.ialistannen.configurator.dsl.AssignmentAstNode;
+import de.ialistannen.configurator.dsl.AstNode;
+import de.ialistannen.configurator.dsl.AstVisitor;
+import de.ialistannen.configurator.dsl.BlockAstNode;
+import de.ialistannen.configurator.dsl.ExecuteFileAstNode;
+import de.ialistannen.configurator.dsl.IfAstNode;
+import de.ialistannen.configurator.dsl.LiteralAstNode;
+import de.ialistannen.configurator.dsl.ReloadActionAstNode;
+import de.ialistannen.configurator.dsl.ScriptAstNode;
+import de.ialistannen.configurator.dsl.ShellCommandAstNode;
+import de.ialistannen.configurator.dsl.VariableAstNode;
+import de.ialistannen.configurator.dsl.comparison.ComparisonAstNode;
+import de.ialistannen.configurator.dsl.script.JavaScriptScript;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes {@link AstNode}s in a compact binary format that {@link AstDeserializer} can read.
+ *
+ * <p>Every node is written as a one byte tag followed by its fields. Strings are stored once and
+ * referenced by index afterwards, as variable names and literals repeat a lot.</p>
+ */
+public class AstSerializer implements AstVisitor<Void> {
+
+  static final byte LITERAL = 1;
+  static final byte VARIABLE = 2;
+  static final byte SHELL_COMMAND = 3;
+  static final byte BLOCK = 4;
+  static final byte ASSIGNMENT = 5;
+  static final byte ACTION = 6;
+  static final byte SCRIPT = 7;
+  static final byte COMPARISON = 8;
+  static final byte IF = 9;
+  static final byte ACTION_CALL = 10;
+  static final byte EXECUTE_FILE = 11;
+  static final byte RELOAD_ACTION = 12;
+
+  static final byte NO_NODE = 0;
+
+  static final String JAVASCRIPT_LANGUAGE = "js";
+
+  private final DataOutput output;
+  private final Map<String, Integer> stringTable;
+
+  /**
+   * Creates a new serializer.
+   *
+   * @param output the output to write to
+   */
+  public AstSerializer(DataOutput output) {
+    this.output = output;
+    this.stringTable = new HashMap<>();
+  }
+
+  /**
+   * Writes a node and all of its children.
+   *
+   * @param node the node to write
+   * @throws IOException if an error occurs writing the node
+   * @throws IllegalArgumentException if the node can not be serialized
+   */
+  public void write(AstNode node) throws IOException {
+    try {
+      node.accept(this);
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Writes a string, reusing an earlier occurrence if possible.
+   *
+   * @param string the string to write
+   * @throws IOException if an error occurs writing the string
+   */
+  public void writeString(String string) throws IOException {
+    Integer index = stringTable.get(string);
+    if (index != null) {
+      writeVarInt(index + 1);
+      return;
+    }
+    stringTable.put(string, stringTable.size());
+
+    byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+    writeVarInt(0);
+    writeVarInt(bytes.length);
+    output.write(bytes);
+  }
+
+  /**
+   * Writes a non-negative integer using as few bytes as possible.
+   *
+   * @param value the value to write
+   * @throws IOException if an error occurs writing the value
+   */
+  void writeVarInt(int value) throws IOException {
+    int remaining = value;
+    while ((remaining & ~0x7F) != 0) {
+      output.writeByte((remaining & 0x7F) | 0x80);
+      remaining >>>= 7;
+    }
+    output.writeByte(remaining);
+  }
+
+  @Override
+  public Void visitLiteral(LiteralAstNode node) {
+    return run(() -> {
+      output.writeByte(LITERAL);
+      writeString(node.getText());
+    });
+  }
+
+  @Override
+  public Void visitVariable(VariableAstNode node) {
+    return run(() -> {
+      output.writeByte(VARIABLE);
+      writeString(node.getName());
+      writeStrings(node.getExtraArguments());
+    });
+  }
+
+  @Override
+  public Void visitShellCommand(ShellCommandAstNode node) {
+    return run(() -> {
+      output.writeByte(SHELL_COMMAND);
+      writeString(node.getCommand());
+      output.writeBoolean(node.isAlwaysRun());
+    });
+  }
+
+  @Override
+  public Void visitBlock(BlockAstNode node) {
+    return run(() -> {
+      output.writeByte(BLOCK);
+      writeVarInt(node.getChildren().size());
+      for (AstNode child : node.getChildren()) {
+        child.accept(this);
+      }
+    });
+  }
+
+  @Override
+  public Void visitAssignment(AssignmentAstNode node) {
+    return run(() -> {
+      output.writeByte(ASSIGNMENT);
+      writeString(node.getName());
+      node.getValue().accept(this);
+    });
+  }
+
+  @Override
+  public Void visitAction(ActionAstNode node) {
+    return run(() -> {
+      output.writeByte(ACTION);
+      writeAction(node.getAction());
+    });
+  }
+
+  @Override
+  public Void visitScript(ScriptAstNode node) {
+    if (!(node.getScript() instanceof JavaScriptScript)) {
+      throw new IllegalArgumentException("Unknown script type " + node.getScript().getClass());
+    }
+    return run(() -> {
+      output.writeByte(SCRIPT);
+      writeString(JAVASCRIPT_LANGUAGE);
+      writeString(((JavaScriptScript) node.getScript()).getScript());
+    });
+  }
+
+  @Override
+  public Void visitComparisonAstNode(ComparisonAstNode node) {
+    return run(() -> {
+      output.writeByte(COMPARISON);
+      node.getLeft().accept(this);
+      writeString(node.getOperator().getSymbol());
+      node.getRight().accept(this);
+    });
+  }
+
+  @Override
+  public Void visitIfAstNode(IfAstNode node) {
+    return run(() -> {
+      output.writeByte(IF);
+      node.getCondition().accept(this);
+      node.getIfContent().accept(this);
+      if (node.getElseContent() == null) {
+        output.writeByte(NO_NODE);
+      } else {
+        node.getElseContent().accept(this);
+      }
+    });
+  }
+
+  @Override
+  public Void visitActionCall(ActionCallAstNode node) {
+    return run(() -> {
+      output.writeByte(ACTION_CALL);
+      writeString(node.getName());
+      writeString(node.getArgumentString());
+    });
+  }
+
+  @Override
+  public Void visitExecuteFile(ExecuteFileAstNode node) {
+    return run(() -> {
+      output.writeByte(EXECUTE_FILE);
+      node.getContent().accept(this);
+    });
+  }
+
+  @Override
+  public Void visitReloadAction(ReloadActionAstNode node) {
+    return run(() -> {
+      output.writeByte(RELOAD_ACTION);
+      writeAction(node.getAction());
+    });
+  }
+
+  private void writeAction(Action action) throws IOException {
+    writeString(action.getName());
+    output.writeBoolean(action.isHideFromRunAll());
+    action.getContent().accept(this);
+  }
+
+  private void writeStrings(List<String> strings) throws IOException {
+    writeVarInt(strings.size());
+    for (String string : strings) {
+      writeString(string);
+    }
+  }
+
+  private Void run(IoAction action) {
+    try {
+      action.run();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return null;
+  }
+
+  private interface IoAction {
+
+    void run() throws IOException;
+  }
+}
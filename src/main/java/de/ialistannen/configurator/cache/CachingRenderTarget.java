@@ -0,0 +1,80 @@
+package de.ialistannen.configurator.cache;
+
+import de.ialistannen.configurator.cache.RecordingRenderContext.Reads;
+import de.ialistannen.configurator.cache.RenderCache.CachedRender;
+import de.ialistannen.configurator.context.ContextDelta;
+import de.ialistannen.configurator.context.RenderContext;
+import de.ialistannen.configurator.rendering.ContextUsage;
+import de.ialistannen.configurator.rendering.EncodedRenderedObject;
+import de.ialistannen.configurator.rendering.FileRenderedObject;
+import de.ialistannen.configurator.rendering.RenderSession;
+import de.ialistannen.configurator.rendering.RenderTarget;
+import de.ialistannen.configurator.util.Pair;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.Optional;
+
+/**
+ * A {@link RenderTarget} that is served from a {@link RenderCache} if the values it reads did not
+ * change.
+ */
+class CachingRenderTarget implements RenderTarget<FileRenderedObject> {
+
+  private final RenderCache cache;
+  private final String fingerprint;
+  private final RenderTarget<FileRenderedObject> underlying;
+
+  /**
+   * Creates a new caching render target.
+   *
+   * @param cache the cache to use
+   * @param fingerprint the fingerprint of the underlying target
+   * @param underlying the target to render on a cache miss
+   */
+  CachingRenderTarget(RenderCache cache, String fingerprint,
+      RenderTarget<FileRenderedObject> underlying) {
+    this.cache = cache;
+    this.fingerprint = fingerprint;
+    this.underlying = underlying;
+  }
+
+  @Override
+  public Pair<FileRenderedObject, RenderContext> render(RenderContext context,
+      RenderSession session) {
+    Optional<CachedRender> cached = cache.lookup(fingerprint, context);
+    if (cached.isPresent()) {
+      CachedRender entry = cached.get();
+      return new Pair<>(
+          new FileRenderedObject(
+              Paths.get(entry.getTargetPath()),
+              new EncodedRenderedObject(entry.getContent().getBytes(StandardCharsets.UTF_8))
+          ),
+          entry.getDelta().applyTo(context)
+      );
+    }
+
+    RecordingRenderContext recordingContext = new RecordingRenderContext(context);
+    Pair<FileRenderedObject, RenderContext> rendered = underlying.render(
+        recordingContext, session
+    );
+    RenderContext result = RecordingRenderContext.unwrap(rendered.getSecond());
+
+    Reads reads = recordingContext.getReads();
+    Optional<ContextDelta> stores = RecordingRenderContext.getStores(rendered.getSecond());
+    if (reads.isComplete() && stores.isPresent()) {
+      cache.store(fingerprint, new CachedRender(
+          reads.getValues(),
+          rendered.getFirst().getTargetPath().toString(),
+          rendered.getFirst().asString(),
+          stores.get()
+      ));
+    }
+
+    return new Pair<>(rendered.getFirst(), result);
+  }
+
+  @Override
+  public ContextUsage getContextUsage() {
+    return underlying.getContextUsage();
+  }
+}
@@ -0,0 +1,244 @@
+package de.ialistannen.configurator.cache;
+
+import de.ialistannen.configurator.context.ContextDelta;
+import de.ialistannen.configurator.context.RenderContext;
+import de.ialistannen.configurator.context.RenderedAction;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.pcollections.HashTreePMap;
+import org.pcollections.PMap;
+import org.pcollections.PVector;
+import org.pcollections.TreePVector;
+
+/**
+ * A {@link RenderContext} that records which values of the initial context were read and
+ * everything that was stored.
+ *
+ * <p>Values are always recorded with their value in the initial context, even if the render target
+ * overwrote them before reading. This can only add dependencies, never hide one.</p>
+ *
+ * <p>Stores are recorded even if they do not change the context, as the value they overwrite
+ * might be different when the recorded changes are applied to another context.</p>
+ */
+class RecordingRenderContext implements RenderContext {
+
+  private final RenderContext initial;
+  private final RenderContext underlying;
+  private final Reads reads;
+  private final Stores stores;
+
+  /**
+   * Creates a new recording context.
+   *
+   * @param initial the initial context
+   */
+  RecordingRenderContext(RenderContext initial) {
+    this(initial, initial, new Reads(), Stores.EMPTY);
+  }
+
+  private RecordingRenderContext(RenderContext initial, RenderContext underlying, Reads reads,
+      Stores stores) {
+    this.initial = initial;
+    this.underlying = underlying;
+    this.reads = reads;
+    this.stores = stores;
+  }
+
+  /**
+   * Returns the recorded reads. Shared between all contexts derived from this one.
+   *
+   * @return the recorded reads
+   */
+  Reads getReads() {
+    return reads;
+  }
+
+  /**
+   * Returns everything stored to arrive at the given context, if it was derived from a recording
+   * context.
+   *
+   * @param context the context returned by the render target
+   * @return all recorded stores or an empty optional if the context was not recorded
+   */
+  static Optional<ContextDelta> getStores(RenderContext context) {
+    if (context instanceof RecordingRenderContext) {
+      return Optional.of(((RecordingRenderContext) context).stores.toDelta());
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Returns the context without any recording wrappers.
+   *
+   * @param context the context to unwrap
+   * @return the unwrapped context
+   */
+  static RenderContext unwrap(RenderContext context) {
+    if (context instanceof RecordingRenderContext) {
+      return ((RecordingRenderContext) context).underlying;
+    }
+    return context;
+  }
+
+  private RenderContext derive(RenderContext newUnderlying, Stores newStores) {
+    return new RecordingRenderContext(initial, newUnderlying, reads, newStores);
+  }
+
+  @Override
+  public <T> T getValue(String key) {
+    reads.record(key, initial.getValue(key));
+    return underlying.getValue(key);
+  }
+
+  @Override
+  public <T> Optional<T> getValueOpt(String key) {
+    reads.record(key, initial.getValue(key));
+    return underlying.getValueOpt(key);
+  }
+
+  @Override
+  public <T> RenderContext storeValue(String key, T val) {
+    return derive(underlying.storeValue(key, val), stores.withValue(key, val));
+  }
+
+  @Override
+  public Map<String, Object> getAllValues() {
+    reads.markIncomplete();
+    return underlying.getAllValues();
+  }
+
+  @Override
+  public RenderContext storeAction(RenderedAction action) {
+    return derive(underlying.storeAction(action), stores.withAction(action));
+  }
+
+  @Override
+  public RenderedAction getAction(String name) {
+    reads.markIncomplete();
+    return underlying.getAction(name);
+  }
+
+  @Override
+  public Optional<RenderedAction> getActionOpt(String name) {
+    reads.markIncomplete();
+    return underlying.getActionOpt(name);
+  }
+
+  @Override
+  public List<RenderedAction> getAllActions() {
+    reads.markIncomplete();
+    return underlying.getAllActions();
+  }
+
+  @Override
+  public RenderContext merge(RenderContext other) {
+    reads.markIncomplete();
+    return underlying.merge(unwrap(other));
+  }
+
+  @Override
+  public RenderContext storePostScript(String content) {
+    return derive(underlying.storePostScript(content), stores.withPostScript(content));
+  }
+
+  @Override
+  public List<String> getAllPostScripts() {
+    reads.markIncomplete();
+    return underlying.getAllPostScripts();
+  }
+
+  @Override
+  public RenderContext storeReloadAction(RenderedAction action) {
+    return derive(underlying.storeReloadAction(action), stores.withReloadAction(action));
+  }
+
+  @Override
+  public List<RenderedAction> getAllReloadActions() {
+    reads.markIncomplete();
+    return underlying.getAllReloadActions();
+  }
+
+  /**
+   * The values read from the initial context.
+   */
+  static class Reads {
+
+    private final Map<String, Object> values = new LinkedHashMap<>();
+    private boolean complete = true;
+
+    private void record(String key, Object value) {
+      if (!values.containsKey(key)) {
+        values.put(key, value);
+      }
+    }
+
+    private void markIncomplete() {
+      complete = false;
+    }
+
+    /**
+     * Returns all read values by their key. A value is null if it did not exist.
+     *
+     * @return all read values
+     */
+    Map<String, Object> getValues() {
+      return values;
+    }
+
+    /**
+     * Returns whether the recorded values are all the target depends on. This is not the case if
+     * it inspected the context in a way that can not be tracked, e.g. by listing all values.
+     *
+     * @return true if the reads describe all dependencies
+     */
+    boolean isComplete() {
+      return complete;
+    }
+  }
+
+  /**
+   * Everything stored in a context, in the order it was stored in. Immutable, so contexts derived
+   * from the same one do not see each other's stores.
+   */
+  private static class Stores {
+
+    private static final Stores EMPTY = new Stores(
+        HashTreePMap.empty(), TreePVector.empty(), TreePVector.empty(), TreePVector.empty()
+    );
+
+    private final PMap<String, Object> values;
+    private final PVector<RenderedAction> actions;
+    private final PVector<RenderedAction> reloadActions;
+    private final PVector<String> postScripts;
+
+    private Stores(PMap<String, Object> values, PVector<RenderedAction> actions,
+        PVector<RenderedAction> reloadActions, PVector<String> postScripts) {
+      this.values = values;
+      this.actions = actions;
+      this.reloadActions = reloadActions;
+      this.postScripts = postScripts;
+    }
+
+    private Stores withValue(String key, Object value) {
+      return new Stores(values.plus(key, value), actions, reloadActions, postScripts);
+    }
+
+    private Stores withAction(RenderedAction action) {
+      return new Stores(values, actions.plus(action), reloadActions, postScripts);
+    }
+
+    private Stores withReloadAction(RenderedAction action) {
+      return new Stores(values, actions, reloadActions.plus(action), postScripts);
+    }
+
+    private Stores withPostScript(String content) {
+      return new Stores(values, actions, reloadActions, postScripts.plus(content));
+    }
+
+    private ContextDelta toDelta() {
+      return new ContextDelta(values, actions, reloadActions, postScripts);
+    }
+  }
+}
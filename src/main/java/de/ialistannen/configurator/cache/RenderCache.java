@@ -0,0 +1,291 @@
+package de.ialistannen.configurator.cache;
+
+import de.ialistannen.configurator.context.ContextDelta;
+import de.ialistannen.configurator.context.RenderContext;
+import de.ialistannen.configurator.context.RenderedAction;
+import de.ialistannen.configurator.dsl.AstNode;
+import de.ialistannen.configurator.rendering.FileRenderedObject;
+import de.ialistannen.configurator.rendering.RenderTarget;
+import de.ialistannen.configurator.template.StringRenderTarget;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Optional;
+import lombok.Data;
+
+/**
+ * A persistent cache for the output of render targets.
+ *
+ * <p>An entry stores the rendered file and the changes the target made to the context, together
+ * with all context values the target read. It is reused as long as the target's source and all of
+ * these values are unchanged. A few entries are kept per target, so switching back and forth
+ * between e.g. two themes hits the cache both ways.</p>
+ *
+ * <p>Every problem reading or writing the cache is treated like a miss.</p>
+ */
+public class RenderCache {
+
+  /**
+   * A cache that never stores anything.
+   */
+  public static final RenderCache DISABLED = new RenderCache(null, RenderCachePolicy.CONTEXT_ONLY);
+
+  private static final int MAGIC = 0x43464752;
+  private static final int FORMAT_VERSION = 2;
+  private static final int MAX_ENTRIES_PER_TARGET = 8;
+
+  private final Path directory;
+  private final RenderCachePolicy policy;
+
+  /**
+   * Creates a new render cache. The directory is created when the first entry is stored.
+   *
+   * @param directory the directory to store the entries in
+   * @param policy the policy deciding which targets may be cached
+   */
+  public RenderCache(Path directory, RenderCachePolicy policy) {
+    this.directory = directory;
+    this.policy = policy;
+  }
+
+  /**
+   * Wraps a target so it is served from this cache, if the policy allows it. The
+   * {@link StringRenderTarget#RENDERER_VERSION renderer version} is added to the fingerprint.
+   *
+   * @param fingerprint a value that changes whenever the target's source changes, e.g. the key
+   *     returned by {@link AstCache#key(byte[])}
+   * @param target the target to wrap
+   * @param asts all asts the target renders
+   * @return the wrapped target or the target itself, if it can not be cached
+   */
+  public RenderTarget<FileRenderedObject> wrap(String fingerprint,
+      RenderTarget<FileRenderedObject> target, AstNode... asts) {
+    if (directory == null || !policy.allows(asts)) {
+      return target;
+    }
+    return new CachingRenderTarget(
+        this, fingerprint + "-" + StringRenderTarget.RENDERER_VERSION, target
+    );
+  }
+
+  /**
+   * Finds an entry whose read values match the given context.
+   *
+   * @param fingerprint the fingerprint of the target
+   * @param context the context the target would be rendered with
+   * @return the matching entry, if any
+   */
+  Optional<CachedRender> lookup(String fingerprint, RenderContext context) {
+    for (CachedRender entry : load(fingerprint)) {
+      if (entry.matches(context)) {
+        return Optional.of(entry);
+      }
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Stores an entry, evicting the oldest one if there are too many for the target. Does nothing if
+   * the entry can not be stored.
+   *
+   * @param fingerprint the fingerprint of the target
+   * @param entry the entry to store
+   */
+  void store(String fingerprint, CachedRender entry) {
+    List<CachedRender> entries = new ArrayList<>();
+    entries.add(entry);
+    for (CachedRender existing : load(fingerprint)) {
+      if (entries.size() >= MAX_ENTRIES_PER_TARGET) {
+        break;
+      }
+      if (!existing.getReads().equals(entry.getReads())) {
+        entries.add(existing);
+      }
+    }
+
+    Path tempFile = null;
+    try {
+      Files.createDirectories(directory);
+      tempFile = Files.createTempFile(directory, fingerprint, ".tmp");
+
+      try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(tempFile))) {
+        DataOutputStream output = new DataOutputStream(outputStream);
+        output.writeInt(MAGIC);
+        output.writeInt(FORMAT_VERSION);
+
+        AstSerializer serializer = new AstSerializer(output);
+        serializer.writeVarInt(entries.size());
+        for (CachedRender cachedRender : entries) {
+          write(serializer, output, cachedRender);
+        }
+      }
+
+      Files.move(
+          tempFile, directory.resolve(fingerprint),
+          StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING
+      );
+      tempFile = null;
+    } catch (IOException | IllegalArgumentException e) {
+      // The cache is only an optimization, so failing to write it is fine
+    } finally {
+      if (tempFile != null) {
+        try {
+          Files.deleteIfExists(tempFile);
+        } catch (IOException ignored) {
+        }
+      }
+    }
+  }
+
+  private List<CachedRender> load(String fingerprint) {
+    Path file = directory.resolve(fingerprint);
+    if (!Files.isRegularFile(file)) {
+      return Collections.emptyList();
+    }
+
+    try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(file))) {
+      DataInputStream input = new DataInputStream(inputStream);
+      if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION) {
+        return Collections.emptyList();
+      }
+      AstDeserializer deserializer = new AstDeserializer(input);
+
+      int size = deserializer.readVarInt();
+      List<CachedRender> entries = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        entries.add(read(deserializer, input));
+      }
+      return entries;
+    } catch (IOException | RuntimeException e) {
+      return Collections.emptyList();
+    }
+  }
+
+  private void write(AstSerializer serializer, DataOutputStream output, CachedRender entry)
+      throws IOException {
+    serializer.writeVarInt(entry.getReads().size());
+    for (Entry<String, Object> read : entry.getReads().entrySet()) {
+      serializer.writeString(read.getKey());
+      output.writeBoolean(read.getValue() != null);
+      if (read.getValue() != null) {
+        serializer.writeString(asString(read.getValue()));
+      }
+    }
+    serializer.writeString(entry.getTargetPath());
+    serializer.writeString(entry.getContent());
+
+    ContextDelta delta = entry.getDelta();
+    serializer.writeVarInt(delta.getValues().size());
+    for (Entry<String, Object> value : delta.getValues().entrySet()) {
+      serializer.writeString(value.getKey());
+      serializer.writeString(asString(value.getValue()));
+    }
+    writeActions(serializer, output, delta.getActions());
+    writeActions(serializer, output, delta.getReloadActions());
+    serializer.writeVarInt(delta.getPostScripts().size());
+    for (String postScript : delta.getPostScripts()) {
+      serializer.writeString(postScript);
+    }
+  }
+
+  private void writeActions(AstSerializer serializer, DataOutputStream output,
+      List<RenderedAction> actions) throws IOException {
+    serializer.writeVarInt(actions.size());
+    for (RenderedAction action : actions) {
+      serializer.writeString(action.getName());
+      serializer.writeString(action.getSanitizedName());
+      serializer.writeString(action.getContent());
+      output.writeBoolean(action.isHideFromRunAll());
+    }
+  }
+
+  private String asString(Object value) {
+    if (!(value instanceof String)) {
+      throw new IllegalArgumentException("Can only cache string values, got " + value);
+    }
+    return (String) value;
+  }
+
+  private CachedRender read(AstDeserializer deserializer, DataInputStream input)
+      throws IOException {
+    int readCount = deserializer.readVarInt();
+    Map<String, Object> reads = new LinkedHashMap<>();
+    for (int i = 0; i < readCount; i++) {
+      String key = deserializer.readString();
+      reads.put(key, input.readBoolean() ? deserializer.readString() : null);
+    }
+    String targetPath = deserializer.readString();
+    String content = deserializer.readString();
+
+    int valueCount = deserializer.readVarInt();
+    Map<String, Object> values = new LinkedHashMap<>();
+    for (int i = 0; i < valueCount; i++) {
+      values.put(deserializer.readString(), deserializer.readString());
+    }
+    List<RenderedAction> actions = readActions(deserializer, input);
+    List<RenderedAction> reloadActions = readActions(deserializer, input);
+    int postScriptCount = deserializer.readVarInt();
+    List<String> postScripts = new ArrayList<>(postScriptCount);
+    for (int i = 0; i < postScriptCount; i++) {
+      postScripts.add(deserializer.readString());
+    }
+
+    return new CachedRender(
+        reads, targetPath, content, new ContextDelta(values, actions, reloadActions, postScripts)
+    );
+  }
+
+  private List<RenderedAction> readActions(AstDeserializer deserializer, DataInputStream input)
+      throws IOException {
+    int size = deserializer.readVarInt();
+    List<RenderedAction> actions = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      String name = deserializer.readString();
+      String sanitizedName = deserializer.readString();
+      String content = deserializer.readString();
+      actions.add(new RenderedAction(name, sanitizedName, content, input.readBoolean()));
+    }
+    return actions;
+  }
+
+  /**
+   * The cached result of rendering a target.
+   */
+  @Data
+  static class CachedRender {
+
+    private final Map<String, Object> reads;
+    private final String targetPath;
+    private final String content;
+    private final ContextDelta delta;
+
+    /**
+     * Checks whether all values this render read are the same in the given context.
+     *
+     * @param context the context
+     * @return true if the cached result is valid for the context
+     */
+    boolean matches(RenderContext context) {
+      for (Entry<String, Object> read : reads.entrySet()) {
+        if (!Objects.equals(context.getValue(read.getKey()), read.getValue())) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
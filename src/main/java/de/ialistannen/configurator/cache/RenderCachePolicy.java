@@ -0,0 +1,124 @@
+package de.ialistannen.configurator.cache;
+
+import de.ialistannen.configurator.dsl.ActionAstNode;
+import de.ialistannen.configurator.dsl.ActionCallAstNode;
+import de.ialistannen.configurator.dsl.AssignmentAstNode;
+import de.ialistannen.configurator.dsl.AstNode;
+import de.ialistannen.configurator.dsl.AstVisitor;
+import de.ialistannen.configurator.dsl.BlockAstNode;
+import de.ialistannen.configurator.dsl.ExecuteFileAstNode;
+import de.ialistannen.configurator.dsl.IfAstNode;
+import de.ialistannen.configurator.dsl.LiteralAstNode;
+import de.ialistannen.configurator.dsl.ReloadActionAstNode;
+import de.ialistannen.configurator.dsl.ScriptAstNode;
+import de.ialistannen.configurator.dsl.ShellCommandAstNode;
+import de.ialistannen.configurator.dsl.VariableAstNode;
+import de.ialistannen.configurator.dsl.comparison.ComparisonAstNode;
+
+/**
+ * Decides which render targets may be served from the {@link RenderCache}.
+ *
+ * <p>Targets with scripts are never cached, as scripts can read and write the context in ways
+ * that can not be tracked. The same goes for shell commands that must always run.</p>
+ */
+public enum RenderCachePolicy {
+  /**
+   * Only caches targets whose output depends on nothing but the context.
+   */
+  CONTEXT_ONLY(false),
+  /**
+   * Also caches targets that run shell commands, assuming the commands return the same output as
+   * long as the values read from the context are unchanged.
+   */
+  TRUST_SHELL_COMMANDS(true);
+
+  private final boolean cacheShellCommands;
+
+  RenderCachePolicy(boolean cacheShellCommands) {
+    this.cacheShellCommands = cacheShellCommands;
+  }
+
+  /**
+   * Checks whether a target made up of the given asts may be cached.
+   *
+   * @param asts the asts of the target
+   * @return true if the target may be cached
+   */
+  public boolean allows(AstNode... asts) {
+    UncacheableNodeFinder finder = new UncacheableNodeFinder();
+    for (AstNode ast : asts) {
+      if (ast.accept(finder)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns true for any tree that contains a node this policy does not allow.
+   */
+  private class UncacheableNodeFinder implements AstVisitor<Boolean> {
+
+    @Override
+    public Boolean visitLiteral(LiteralAstNode node) {
+      return false;
+    }
+
+    @Override
+    public Boolean visitVariable(VariableAstNode node) {
+      return false;
+    }
+
+    @Override
+    public Boolean visitShellCommand(ShellCommandAstNode node) {
+      return node.isAlwaysRun() || !cacheShellCommands;
+    }
+
+    @Override
+    public Boolean visitBlock(BlockAstNode node) {
+      return node.getChildren().stream().anyMatch(it -> it.accept(this));
+    }
+
+    @Override
+    public Boolean visitAssignment(AssignmentAstNode node) {
+      return node.getValue().accept(this);
+    }
+
+    @Override
+    public Boolean visitAction(ActionAstNode node) {
+      return node.getAction().getContent().accept(this);
+    }
+
+    @Override
+    public Boolean visitScript(ScriptAstNode node) {
+      return true;
+    }
+
+    @Override
+    public Boolean visitComparisonAstNode(ComparisonAstNode node) {
+      return node.getLeft().accept(this) || node.getRight().accept(this);
+    }
+
+    @Override
+    public Boolean visitIfAstNode(IfAstNode node) {
+      return node.getCondition().accept(this)
+          || node.getIfContent().accept(this)
+          || (node.getElseContent() != null && node.getElseContent().accept(this));
+    }
+
+    @Override
+    public Boolean visitActionCall(ActionCallAstNode node) {
+      return false;
+    }
+
+    @Override
+    public Boolean visitExecuteFile(ExecuteFileAstNode node) {
+      return node.getContent().accept(this);
+    }
+
+    @Override
+    public Boolean visitReloadAction(ReloadActionAstNode node) {
+      return node.getAction().getContent().accept(this);
+    }
+  }
+}
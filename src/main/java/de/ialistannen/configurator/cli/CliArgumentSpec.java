@@ -5,6 +5,7 @@ import static de.ialistannen.configurator.output.TerminalColor.RED;
 import static de.ialistannen.configurator.output.TerminalColor.RESET;
 import static de.ialistannen.configurator.output.TerminalColor.UNDERLINE;
 
+import de.ialistannen.configurator.rendering.RenderScheduler;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -59,6 +60,12 @@ abstract class CliArgumentSpec {
   @Parameter(shortName = 'r', longName = "report-parse-errors")
   public abstract boolean reportParseErrors();
 
+  /**
+   * If present the program keeps running and renders again whenever a config file changes.
+   */
+  @Parameter(shortName = 'w', longName = "watch")
+  public abstract boolean watch();
+
   /**
    * The path to the configuration directory. If not given the current working directory will be
    * used.
@@ -66,6 +73,115 @@ abstract class CliArgumentSpec {
   @Parameter(shortName = 't', longName = "target-dir", optional = true, mappedBy = DirectoryMapper.class)
   public abstract Optional<Path> targetDir();
 
+  /**
+   * The directory to store caches in. Defaults to {@code $XDG_CACHE_HOME/configurator}.
+   */
+  @Parameter(shortName = 'k', longName = "cache-dir", optional = true, mappedBy = PathMapper.class)
+  public abstract Optional<Path> cacheDir();
+
+  /**
+   * If present the program will neither read nor write any caches.
+   */
+  @Parameter(shortName = 'u', longName = "no-cache")
+  public abstract boolean noCache();
+
+  /**
+   * If present the output of files running shell commands is cached as well. Their commands will
+   * not run again as long as the values the file reads are unchanged.
+   */
+  @Parameter(shortName = 's', longName = "cache-shell-output")
+  public abstract boolean cacheShellOutput();
+
+  /**
+   * The number of seconds a single shell command or post script may run before it is killed.
+   * Defaults to 60.
+   */
+  @Parameter(shortName = 'o', longName = "command-timeout", optional = true, mappedBy = PositiveIntegerMapper.class)
+  public abstract Optional<Integer> commandTimeout();
+
+  /**
+   * The number of seconds all shell commands of a run may take together. Unlimited by default.
+   */
+  @Parameter(shortName = 'g', longName = "total-timeout", optional = true, mappedBy = PositiveIntegerMapper.class)
+  public abstract Optional<Integer> totalTimeout();
+
+  /**
+   * The maximum number of shell commands running at the same time. Defaults to twice the number of
+   * processors, but at least 4.
+   */
+  @Parameter(shortName = 'm', longName = "max-processes", optional = true, mappedBy = PositiveIntegerMapper.class)
+  public abstract Optional<Integer> maxProcesses();
+
+  /**
+   * The maximum number of files and actions written at the same time. Defaults to twice the number
+   * of processors, but at least 4. Use 1 to write one file after another.
+   */
+  @Parameter(shortName = 'i', longName = "io-threads", optional = true, mappedBy = PositiveIntegerMapper.class)
+  public abstract Optional<Integer> ioThreads();
+
+  /**
+   * The threads to render on: "fixed" (a pool with one thread per processor, the default),
+   * "fork-join" or "virtual" (needs Java 21).
+   */
+  @Parameter(shortName = 'e', longName = "scheduler", optional = true, mappedBy = SchedulerKindMapper.class)
+  public abstract Optional<RenderScheduler.Kind> scheduler();
+
+  /**
+   * If present the program measures where the run spends its time and prints a report of the
+   * slowest phases, targets, shell commands, scripts and writes at the end.
+   */
+  @Parameter(shortName = 'P', longName = "profile")
+  public abstract boolean profile();
+
+  /**
+   * The file to write a timeline of the run to, in the Chrome trace event format. It can be viewed
+   * in chrome://tracing or Perfetto.
+   */
+  @Parameter(shortName = 'T', longName = "trace", optional = true, mappedBy = PathMapper.class)
+  public abstract Optional<Path> trace();
+
+  static class PathMapper implements Supplier<Function<String, Path>> {
+
+    @Override
+    public Function<String, Path> get() {
+      return Paths::get;
+    }
+  }
+
+  static class PositiveIntegerMapper implements Supplier<Function<String, Integer>> {
+
+    @Override
+    public Function<String, Integer> get() {
+      return string -> {
+        int value = Integer.parseInt(string);
+        if (value <= 0) {
+          throw new IllegalArgumentException(
+              RED + "The given value " + BLUE + value + RED + " is not positive!" + RESET
+          );
+        }
+        return value;
+      };
+    }
+  }
+
+  static class SchedulerKindMapper implements Supplier<Function<String, RenderScheduler.Kind>> {
+
+    @Override
+    public Function<String, RenderScheduler.Kind> get() {
+      return name -> {
+        for (RenderScheduler.Kind kind : RenderScheduler.Kind.values()) {
+          if (kind.name().replace('_', '-').equalsIgnoreCase(name)) {
+            return kind;
+          }
+        }
+        throw new IllegalArgumentException(
+            RED + "Unknown scheduler " + BLUE + name + RED
+                + ", expected fixed, fork-join or virtual!" + RESET
+        );
+      };
+    }
+  }
+
   static class DirectoryMapper implements Supplier<Function<String, Path>> {
 
     @Override
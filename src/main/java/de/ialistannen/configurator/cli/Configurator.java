@@ -5,6 +5,7 @@ import static de.ialistannen.configurator.output.ColoredOutput.colorOut;
 import static de.ialistannen.configurator.output.TerminalColor.BLUE;
 import static de.ialistannen.configurator.output.TerminalColor.BOLD;
 import static de.ialistannen.configurator.output.TerminalColor.BRIGHT_BLUE;
+import static de.ialistannen.configurator.output.TerminalColor.BRIGHT_MAGENTA;
 import static de.ialistannen.configurator.output.TerminalColor.DIM;
 import static de.ialistannen.configurator.output.TerminalColor.GREEN;
 import static de.ialistannen.configurator.output.TerminalColor.MAGENTA;
@@ -12,6 +13,9 @@ import static de.ialistannen.configurator.output.TerminalColor.RED;
 import static de.ialistannen.configurator.output.TerminalColor.RESET;
 import static de.ialistannen.configurator.output.TerminalColor.UNDERLINE;
 
+import de.ialistannen.configurator.cache.AstCache;
+import de.ialistannen.configurator.cache.RenderCache;
+import de.ialistannen.configurator.cache.RenderCachePolicy;
 import de.ialistannen.configurator.config.Config;
 import de.ialistannen.configurator.context.PhaseContext;
 import de.ialistannen.configurator.context.RenderContext;
@@ -21,21 +25,31 @@ import de.ialistannen.configurator.execution.ActionDistributor;
 import de.ialistannen.configurator.execution.DirBasedActionDistributor;
 import de.ialistannen.configurator.execution.FileDistributor;
 import de.ialistannen.configurator.execution.FileSystemFileDistributor;
+import de.ialistannen.configurator.execution.ParallelIo;
 import de.ialistannen.configurator.execution.PostActionRunner;
 import de.ialistannen.configurator.execution.Reactor;
 import de.ialistannen.configurator.output.ColoredOutput;
 import de.ialistannen.configurator.phases.MultiTargetRenderer;
 import de.ialistannen.configurator.phases.RenderTargetCollector;
+import de.ialistannen.configurator.profiling.ChromeTrace;
+import de.ialistannen.configurator.profiling.ProfileReport;
+import de.ialistannen.configurator.profiling.Profiler;
 import de.ialistannen.configurator.rendering.FileRenderedObject;
+import de.ialistannen.configurator.rendering.RenderScheduler;
 import de.ialistannen.configurator.util.Pair;
+import de.ialistannen.configurator.util.ProcessExecutor;
+import de.ialistannen.configurator.util.ProcessUtils;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class Configurator {
@@ -44,6 +58,10 @@ public class Configurator {
     CliArgumentSpec spec = CliArgumentSpec_Parser.create().parseOrExit(args);
 
     ColoredOutput.setStripColour(spec.stripColor());
+    ProcessUtils.setExecutor(createProcessExecutor(spec));
+    if (spec.profile() || spec.trace().isPresent()) {
+      Profiler.setProfiler(new Profiler());
+    }
 
     Path basePath;
     if (spec.targetDir().isPresent()) {
@@ -62,107 +80,208 @@ public class Configurator {
     }
 
     try {
-      Config config = Config.loadConfig(
-          String.join(System.lineSeparator(), Files.readAllLines(configPath))
-      );
+      Path cacheDir = spec.cacheDir().orElseGet(Configurator::getDefaultCacheDir);
+      AstCache astCache = AstCache.DISABLED;
+      RenderCache renderCache = RenderCache.DISABLED;
+      if (!spec.noCache()) {
+        astCache = new AstCache(cacheDir.resolve("ast"));
+        renderCache = new RenderCache(
+            cacheDir.resolve("render"),
+            spec.cacheShellOutput()
+                ? RenderCachePolicy.TRUST_SHELL_COMMANDS
+                : RenderCachePolicy.CONTEXT_ONLY
+        );
+      }
 
-      RenderTargetCollector targetCollector = new RenderTargetCollector(spec.reportParseErrors());
-      Map<String, MultiTargetRenderer> targets = targetCollector.collectTargets(basePath);
-      Reactor reactor = new Reactor(config.getPhasesAsObject(), targets);
+      RenderTargetCollector targetCollector = new RenderTargetCollector(
+          spec.reportParseErrors(), astCache, renderCache,
+          RenderTargetCollector.newParseExecutor(Runtime.getRuntime().availableProcessors())
+      );
+      Executor ioExecutor = ParallelIo.newExecutor(
+          spec.ioThreads().orElse(ParallelIo.DEFAULT_THREADS)
+      );
 
-      Pair<List<FileRenderedObject>, RenderContext> rendered = reactor.renderAll(
-          new PhaseContext()
+      RenderScheduler.Kind schedulerKind = spec.scheduler().orElse(RenderScheduler.Kind.FIXED);
+      Supplier<RenderScheduler> schedulers = () -> RenderScheduler.create(
+          schedulerKind, Runtime.getRuntime().availableProcessors()
       );
 
-      boolean dry = spec.dry();
-      boolean printFileContents = spec.printFileContents();
-      boolean preserveActionsDir = spec.preserveActionsDir();
-
-      if (dry) {
-        String dryHeader = " _____                     _   _               ____  _\n"
-            + "| ____|_  _____  ___ _   _| |_(_) ___  _ __   |  _ \\| | __ _ _ __\n"
-            + "|  _| \\ \\/ / _ \\/ __| | | | __| |/ _ \\| '_ \\  | |_) | |/ _` | '_ \\\n"
-            + "| |___ >  <  __/ (__| |_| | |_| | (_) | | | | |  __/| | (_| | | | |\n"
-            + "|_____/_/\\_\\___|\\___|\\__,_|\\__|_|\\___/|_| |_| |_|   |_|\\__,_|_| |_|\n";
-        printHeader(dryHeader);
+      if (spec.watch()) {
+        new WatchMode(
+            basePath, configPath, targetCollector, schedulers,
+            it -> distribute(spec, ioExecutor, it)
+        ).run();
+        return;
       }
 
-      ActionDistributor actionDistributor = new DirBasedActionDistributor(
-          dry,
-          printFileContents,
-          preserveActionsDir
-      );
-      FileDistributor fileDistributor = new FileSystemFileDistributor(dry, printFileContents);
-
-      fileDistributor.distributeFiles(rendered.getFirst());
-      actionDistributor.distributeActions(rendered.getSecond());
-
-      if (dry) {
-        String actionsHeader = " ____           _     ____            _       _\n"
-            + "|  _ \\ ___  ___| |_  / ___|  ___ _ __(_)_ __ | |_ ___\n"
-            + "| |_) / _ \\/ __| __| \\___ \\ / __| '__| | '_ \\| __/ __|\n"
-            + "|  __/ (_) \\__ \\ |_   ___) | (__| |  | | |_) | |_\\__ \\\n"
-            + "|_|   \\___/|___/\\__| |____/ \\___|_|  |_| .__/ \\__|___/\n"
-            + "                                       |_|\n";
-        printHeader(actionsHeader);
-      }
+      Config config = Config.loadConfig(configPath);
+      Map<String, MultiTargetRenderer> targets = targetCollector.collectTargets(basePath);
+      Reactor reactor = new Reactor(config.getPhasesAsObject(), targets, schedulers.get());
 
-      new PostActionRunner(dry, printFileContents).run(rendered.getSecond());
-
-      if (spec.printContext()) {
-        String contextHeader = "  ____            _            _\n"
-            + " / ___|___  _ __ | |_ _____  _| |_\n"
-            + "| |   / _ \\| '_ \\| __/ _ \\ \\/ / __|\n"
-            + "| |__| (_) | | | | ||  __/>  <| |_\n"
-            + " \\____\\___/|_| |_|\\__\\___/_/\\_\\\\__|\n";
-        printHeader(contextHeader);
-
-        colorOut(BLUE.toString() + BOLD + UNDERLINE + "Values:");
-        String values = rendered.getSecond().getAllValues().entrySet()
-            .stream()
-            .sorted(Entry.comparingByKey())
-            .map(entry -> MAGENTA + entry.getKey() + "=" + GREEN + entry.getValue())
-            .collect(Collectors.joining(", "));
-        colorOut(values);
-        colorOut(DIM.toString() + UNDERLINE + repeat(" ", 40));
-
-        colorOut(BRIGHT_BLUE.toString() + BOLD + UNDERLINE + "Actions:");
-        String actionNames = rendered.getSecond()
-            .getAllActions()
-            .stream()
-            .map(act -> act.getName() + (act.isHideFromRunAll() ? "(\uD83D\uDC7B)" : ""))
-            .sorted()
-            .collect(Collectors.joining(", "));
-        colorOut(MAGENTA + actionNames);
-        colorOut(DIM.toString() + UNDERLINE + repeat(" ", 40));
-
-        colorOut(BRIGHT_BLUE.toString() + BOLD + UNDERLINE + "Reload actions:");
-        String reloadActionNames = rendered.getSecond()
-            .getAllReloadActions()
-            .stream()
-            .map(RenderedAction::getName)
-            .sorted()
-            .collect(Collectors.joining(", "));
-        colorOut(MAGENTA + reloadActionNames);
-        colorOut(DIM.toString() + UNDERLINE + repeat(" ", 40));
-
-        colorOut(BRIGHT_BLUE.toString() + BOLD + UNDERLINE + "Post scripts:");
-        String postScriptStarts = rendered.getSecond()
-            .getAllPostScripts()
-            .stream()
-            .map(it -> it.replaceFirst("#.+", ""))
-            .map(it -> it.substring(0, Math.min(it.length(), 10)).trim())
-            .sorted()
-            .collect(Collectors.joining(", "));
-        colorOut(MAGENTA + postScriptStarts);
+      Pair<List<FileRenderedObject>, RenderContext> rendered;
+      try {
+        rendered = reactor.renderAll(new PhaseContext());
+      } finally {
+        reactor.shutdown();
       }
+
+      distribute(spec, ioExecutor, rendered);
     } catch (DistributionException | IOException e) {
-      if (e.getCause() != null) {
-        colorErr(RED + e.getMessage() + ": ");
-        colorErr("\t" + RED + e.getCause().getMessage());
-      } else {
-        colorErr(RED + e.getMessage());
-      }
+      printError(e);
+    }
+  }
+
+  /**
+   * Distributes the rendered files and actions, runs the post scripts and prints the context, if
+   * requested.
+   *
+   * @param spec the command line arguments
+   * @param ioExecutor the executor to write files and actions on
+   * @param rendered the rendered objects and the final context
+   * @throws DistributionException if an error occurs distributing files or actions
+   */
+  private static void distribute(CliArgumentSpec spec, Executor ioExecutor,
+      Pair<List<FileRenderedObject>, RenderContext> rendered) throws DistributionException {
+    boolean dry = spec.dry();
+    boolean printFileContents = spec.printFileContents();
+    boolean preserveActionsDir = spec.preserveActionsDir();
+
+    if (dry) {
+      String dryHeader = " _____                     _   _               ____  _\n"
+          + "| ____|_  _____  ___ _   _| |_(_) ___  _ __   |  _ \\| | __ _ _ __\n"
+          + "|  _| \\ \\/ / _ \\/ __| | | | __| |/ _ \\| '_ \\  | |_) | |/ _` | '_ \\\n"
+          + "| |___ >  <  __/ (__| |_| | |_| | (_) | | | | |  __/| | (_| | | | |\n"
+          + "|_____/_/\\_\\___|\\___|\\__,_|\\__|_|\\___/|_| |_| |_|   |_|\\__,_|_| |_|\n";
+      printHeader(dryHeader);
+    }
+
+    ActionDistributor actionDistributor = new DirBasedActionDistributor(
+        dry,
+        printFileContents,
+        preserveActionsDir,
+        ioExecutor
+    );
+    FileDistributor fileDistributor = new FileSystemFileDistributor(
+        dry,
+        printFileContents,
+        ioExecutor
+    );
+
+    fileDistributor.distributeFiles(rendered.getFirst());
+    actionDistributor.distributeActions(rendered.getSecond());
+
+    if (dry) {
+      String actionsHeader = " ____           _     ____            _       _\n"
+          + "|  _ \\ ___  ___| |_  / ___|  ___ _ __(_)_ __ | |_ ___\n"
+          + "| |_) / _ \\/ __| __| \\___ \\ / __| '__| | '_ \\| __/ __|\n"
+          + "|  __/ (_) \\__ \\ |_   ___) | (__| |  | | |_) | |_\\__ \\\n"
+          + "|_|   \\___/|___/\\__| |____/ \\___|_|  |_| .__/ \\__|___/\n"
+          + "                                       |_|\n";
+      printHeader(actionsHeader);
+    }
+
+    new PostActionRunner(dry, printFileContents).run(rendered.getSecond());
+
+    if (spec.printContext()) {
+      String contextHeader = "  ____            _            _\n"
+          + " / ___|___  _ __ | |_ _____  _| |_\n"
+          + "| |   / _ \\| '_ \\| __/ _ \\ \\/ / __|\n"
+          + "| |__| (_) | | | | ||  __/>  <| |_\n"
+          + " \\____\\___/|_| |_|\\__\\___/_/\\_\\\\__|\n";
+      printHeader(contextHeader);
+
+      colorOut(BLUE.toString() + BOLD + UNDERLINE + "Values:");
+      String values = rendered.getSecond().getAllValues().entrySet()
+          .stream()
+          .sorted(Entry.comparingByKey())
+          .map(entry -> MAGENTA + entry.getKey() + "=" + GREEN + entry.getValue())
+          .collect(Collectors.joining(", "));
+      colorOut(values);
+      colorOut(DIM.toString() + UNDERLINE + repeat(" ", 40));
+
+      colorOut(BRIGHT_BLUE.toString() + BOLD + UNDERLINE + "Actions:");
+      String actionNames = rendered.getSecond()
+          .getAllActions()
+          .stream()
+          .map(act -> act.getName() + (act.isHideFromRunAll() ? "(\uD83D\uDC7B)" : ""))
+          .sorted()
+          .collect(Collectors.joining(", "));
+      colorOut(MAGENTA + actionNames);
+      colorOut(DIM.toString() + UNDERLINE + repeat(" ", 40));
+
+      colorOut(BRIGHT_BLUE.toString() + BOLD + UNDERLINE + "Reload actions:");
+      String reloadActionNames = rendered.getSecond()
+          .getAllReloadActions()
+          .stream()
+          .map(RenderedAction::getName)
+          .sorted()
+          .collect(Collectors.joining(", "));
+      colorOut(MAGENTA + reloadActionNames);
+      colorOut(DIM.toString() + UNDERLINE + repeat(" ", 40));
+
+      colorOut(BRIGHT_BLUE.toString() + BOLD + UNDERLINE + "Post scripts:");
+      String postScriptStarts = rendered.getSecond()
+          .getAllPostScripts()
+          .stream()
+          .map(it -> it.replaceFirst("#.+", ""))
+          .map(it -> it.substring(0, Math.min(it.length(), 10)).trim())
+          .sorted()
+          .collect(Collectors.joining(", "));
+      colorOut(MAGENTA + postScriptStarts);
+    }
+
+    if (spec.trace().isPresent()) {
+      writeTrace(spec.trace().get());
+    }
+    if (spec.profile()) {
+      printProfile();
+    }
+    if (Profiler.getProfiler().isEnabled()) {
+      Profiler.setProfiler(new Profiler());
+    }
+  }
+
+  /**
+   * Writes the timeline of the run to a file.
+   *
+   * @param file the file to write to
+   */
+  private static void writeTrace(Path file) {
+    try {
+      new ChromeTrace(Profiler.getProfiler()).write(file);
+      colorOut(
+          BRIGHT_MAGENTA + "Wrote trace to " + BLUE + UNDERLINE + file.toAbsolutePath()
+      );
+    } catch (IOException e) {
+      printError(new IOException("Error writing trace to '" + file + "'", e));
+    }
+  }
+
+  /**
+   * Prints where the run spent its time.
+   */
+  private static void printProfile() {
+    String profileHeader = " ____             __ _ _\n"
+        + "|  _ \\ _ __ ___  / _(_) | ___\n"
+        + "| |_) | '__/ _ \\| |_| | |/ _ \\\n"
+        + "|  __/| | | (_) |  _| | |  __/\n"
+        + "|_|   |_|  \\___/|_| |_|_|\\___|\n";
+    printHeader(profileHeader);
+
+    new ProfileReport(Profiler.getProfiler(), ProfileReport.DEFAULT_SLOWEST).print();
+  }
+
+  /**
+   * Prints an error and its cause.
+   *
+   * @param e the error to print
+   */
+  static void printError(Exception e) {
+    if (e.getCause() != null) {
+      colorErr(RED + e.getMessage() + ": ");
+      colorErr("\t" + RED + e.getCause().getMessage());
+    } else {
+      colorErr(RED + e.getMessage());
     }
   }
 
@@ -186,6 +305,30 @@ public class Configurator {
     return result.toString();
   }
 
+  private static ProcessExecutor createProcessExecutor(CliArgumentSpec spec) {
+    Duration commandTimeout = spec.commandTimeout()
+        .map(Duration::ofSeconds)
+        .orElse(ProcessExecutor.DEFAULT_COMMAND_TIMEOUT);
+    Duration totalTimeout = spec.totalTimeout()
+        .map(Duration::ofSeconds)
+        .orElse(null);
+
+    return new ProcessExecutor(
+        spec.maxProcesses().orElse(ProcessExecutor.DEFAULT_MAX_PROCESSES),
+        commandTimeout,
+        totalTimeout,
+        ProcessExecutor.DEFAULT_OUTPUT_LIMIT
+    );
+  }
+
+  private static Path getDefaultCacheDir() {
+    String cacheHome = System.getenv("XDG_CACHE_HOME");
+    if (cacheHome != null && !cacheHome.isEmpty()) {
+      return Paths.get(cacheHome, "configurator");
+    }
+    return Paths.get(System.getProperty("user.home"), ".cache", "configurator");
+  }
+
   private static Path getOwnPath() {
     try {
       return Paths.get(
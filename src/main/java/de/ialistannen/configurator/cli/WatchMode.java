@@ -0,0 +1,262 @@
+package de.ialistannen.configurator.cli;
+
+import static de.ialistannen.configurator.output.ColoredOutput.colorOut;
+import static de.ialistannen.configurator.output.TerminalColor.BRIGHT_MAGENTA;
+import static de.ialistannen.configurator.output.TerminalColor.DIM;
+import static de.ialistannen.configurator.output.TerminalColor.GREEN;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import de.ialistannen.configurator.config.Config;
+import de.ialistannen.configurator.context.PhaseContext;
+import de.ialistannen.configurator.context.RenderContext;
+import de.ialistannen.configurator.exception.DistributionException;
+import de.ialistannen.configurator.execution.Reactor;
+import de.ialistannen.configurator.phases.MultiTargetRenderer;
+import de.ialistannen.configurator.phases.RenderTargetCollector;
+import de.ialistannen.configurator.rendering.FileRenderedObject;
+import de.ialistannen.configurator.rendering.RenderScheduler;
+import de.ialistannen.configurator.rendering.RenderTarget;
+import de.ialistannen.configurator.util.Pair;
+import de.ialistannen.configurator.util.ParseException;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Keeps all targets in memory and renders again whenever a config file changes.
+ *
+ * <p>Only changed files are parsed again and rendering starts at the first phase containing one of
+ * them. A change to the {@code .configurator} file reloads everything.</p>
+ */
+class WatchMode {
+
+  /**
+   * Editors often write a file in multiple steps, so changes are collected for this long.
+   */
+  private static final long SETTLE_MILLIS = 150;
+
+  private final Path basePath;
+  private final Path configPath;
+  private final RenderTargetCollector collector;
+  private final Supplier<RenderScheduler> schedulers;
+  private final RenderListener listener;
+  private final Map<Path, Pair<String, RenderTarget<FileRenderedObject>>> loadedFiles;
+  private final Map<WatchKey, Path> watchedDirectories;
+
+  private Reactor reactor;
+
+  /**
+   * Creates a new watch mode.
+   *
+   * @param basePath the configuration directory
+   * @param configPath the path to the {@code .configurator} file
+   * @param collector the collector to load files with
+   * @param schedulers creates the scheduler for every reactor
+   * @param listener the listener to pass the render results to
+   */
+  WatchMode(Path basePath, Path configPath, RenderTargetCollector collector,
+      Supplier<RenderScheduler> schedulers, RenderListener listener) {
+    this.basePath = basePath;
+    this.configPath = configPath;
+    this.collector = collector;
+    this.schedulers = schedulers;
+    this.listener = listener;
+    this.loadedFiles = new HashMap<>();
+    this.watchedDirectories = new HashMap<>();
+  }
+
+  /**
+   * Renders everything and then watches for changes until the thread is interrupted.
+   *
+   * @throws IOException if an error occurs setting up the watch service
+   */
+  void run() throws IOException {
+    try (WatchService watchService = basePath.getFileSystem().newWatchService()) {
+      registerRecursively(watchService, basePath);
+      runCycle(this::renderEverything);
+
+      while (!Thread.currentThread().isInterrupted()) {
+        Set<Path> changedFiles = new HashSet<>();
+        boolean overflow = collectChanges(watchService, watchService.take(), changedFiles);
+
+        WatchKey next;
+        while ((next = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+          overflow |= collectChanges(watchService, next, changedFiles);
+        }
+
+        if (overflow || changedFiles.contains(configPath)) {
+          runCycle(this::renderEverything);
+        } else {
+          runCycle(() -> renderChanges(changedFiles));
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      if (reactor != null) {
+        reactor.shutdown();
+      }
+    }
+  }
+
+  private void runCycle(RenderCycle cycle) {
+    try {
+      cycle.run();
+    } catch (IOException | DistributionException | RuntimeException e) {
+      Configurator.printError(e);
+    }
+    colorOut(DIM + "Watching " + basePath.toAbsolutePath() + " for changes...");
+  }
+
+  private void renderEverything() throws IOException, DistributionException {
+    colorOut(BRIGHT_MAGENTA + "Loading " + GREEN + basePath.toAbsolutePath());
+
+    if (reactor != null) {
+      reactor.shutdown();
+      reactor = null;
+    }
+    loadedFiles.clear();
+
+    List<Path> files = collector.findFiles(basePath);
+    List<Pair<String, RenderTarget<FileRenderedObject>>> targets = collector.loadFiles(files);
+    for (int i = 0; i < files.size(); i++) {
+      loadedFiles.put(files.get(i), targets.get(i));
+    }
+
+    reactor = new Reactor(
+        Config.loadConfig(configPath).getPhasesAsObject(),
+        collector.groupByPhase(targets),
+        schedulers.get()
+    );
+    listener.onRendered(reactor.renderAll(new PhaseContext()));
+  }
+
+  private void renderChanges(Set<Path> changedFiles) throws IOException, DistributionException {
+    if (reactor == null) {
+      renderEverything();
+      return;
+    }
+    Set<String> changedPhases = new HashSet<>();
+
+    for (Path file : changedFiles) {
+      if (!collector.isConfigFile(file)) {
+        continue;
+      }
+      colorOut(BRIGHT_MAGENTA + "Changed " + GREEN + file.toAbsolutePath());
+
+      Pair<String, RenderTarget<FileRenderedObject>> oldTarget;
+      if (Files.isRegularFile(file)) {
+        Pair<String, RenderTarget<FileRenderedObject>> newTarget = load(file);
+        oldTarget = loadedFiles.put(file, newTarget);
+        changedPhases.add(newTarget.getFirst());
+      } else {
+        oldTarget = loadedFiles.remove(file);
+      }
+      if (oldTarget != null) {
+        changedPhases.add(oldTarget.getFirst());
+      }
+    }
+
+    if (changedPhases.isEmpty()) {
+      return;
+    }
+
+    List<Pair<String, RenderTarget<FileRenderedObject>>> targets = new ArrayList<>();
+    for (Path file : collector.findFiles(basePath)) {
+      Pair<String, RenderTarget<FileRenderedObject>> target = loadedFiles.get(file);
+      if (target != null && changedPhases.contains(target.getFirst())) {
+        targets.add(target);
+      }
+    }
+
+    Map<String, MultiTargetRenderer> changedTargets = collector.groupByPhase(targets);
+    for (String phase : changedPhases) {
+      changedTargets.putIfAbsent(phase, MultiTargetRenderer.NOP_RENDERER);
+    }
+
+    listener.onRendered(reactor.rerender(changedTargets));
+  }
+
+  private Pair<String, RenderTarget<FileRenderedObject>> load(Path file) throws IOException {
+    try {
+      return collector.loadFile(file);
+    } catch (ParseException e) {
+      throw new IOException("Error parsing file '" + file + "'", e);
+    }
+  }
+
+  private boolean collectChanges(WatchService watchService, WatchKey key, Set<Path> changedFiles)
+      throws IOException {
+    Path directory = watchedDirectories.get(key);
+    boolean overflow = false;
+
+    for (WatchEvent<?> event : key.pollEvents()) {
+      if (event.kind() == OVERFLOW || directory == null) {
+        overflow = true;
+        continue;
+      }
+      Path file = directory.resolve((Path) event.context());
+
+      if (event.kind() == ENTRY_CREATE && Files.isDirectory(file)) {
+        registerRecursively(watchService, file);
+        changedFiles.addAll(collector.findFiles(file));
+      } else {
+        changedFiles.add(file);
+      }
+    }
+
+    if (!key.reset()) {
+      watchedDirectories.remove(key);
+    }
+    return overflow;
+  }
+
+  private void registerRecursively(WatchService watchService, Path start) throws IOException {
+    Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
+          throws IOException {
+        WatchKey key = dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+        watchedDirectories.put(key, dir);
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  /**
+   * Receives the result of every render.
+   */
+  interface RenderListener {
+
+    /**
+     * Called after everything was rendered.
+     *
+     * @param rendered the rendered objects and the final context
+     * @throws DistributionException if an error occurs distributing the result
+     */
+    void onRendered(Pair<List<FileRenderedObject>, RenderContext> rendered)
+        throws DistributionException;
+  }
+
+  private interface RenderCycle {
+
+    void run() throws IOException, DistributionException;
+  }
+}
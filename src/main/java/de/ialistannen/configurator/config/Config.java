@@ -2,6 +2,9 @@ package de.ialistannen.configurator.config;
 
 import de.ialistannen.configurator.phases.Phase;
 import de.ialistannen.configurator.util.StringReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -41,6 +44,17 @@ public class Config {
     return phases;
   }
 
+  /**
+   * Loads the config from a file.
+   *
+   * @param file the config file
+   * @return the config
+   * @throws IOException if an error occurs reading the file
+   */
+  public static Config loadConfig(Path file) throws IOException {
+    return loadConfig(String.join(System.lineSeparator(), Files.readAllLines(file)));
+  }
+
   /**
    * Loads the config.
    *
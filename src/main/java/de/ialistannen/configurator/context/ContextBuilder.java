@@ -0,0 +1,197 @@
+package de.ialistannen.configurator.context;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+
+/**
+ * A mutable {@link RenderContext} for rendering a single target on a single thread.
+ *
+ * <p>Stored entries are kept in plain collections on top of an immutable base context. Storing
+ * returns the builder itself, so no intermediate contexts are created. {@link #build()} adds all
+ * stored entries to the base context at once.</p>
+ *
+ * <p>Builders are not thread safe.</p>
+ */
+public class ContextBuilder implements RenderContext {
+
+  private final RenderContext base;
+  private final Map<String, Object> values;
+  private final Map<String, RenderedAction> actions;
+  private final List<String> postScripts;
+  private final List<RenderedAction> reloadActions;
+
+  /**
+   * Creates a new context builder.
+   *
+   * @param base the context to start with
+   */
+  public ContextBuilder(RenderContext base) {
+    this.base = base;
+    this.values = new LinkedHashMap<>();
+    this.actions = new LinkedHashMap<>();
+    this.postScripts = new ArrayList<>();
+    this.reloadActions = new ArrayList<>();
+  }
+
+  /**
+   * Returns a builder for the given context. If the context already is a builder, it is returned
+   * unchanged.
+   *
+   * @param context the context
+   * @return a builder starting with the context
+   */
+  public static ContextBuilder of(RenderContext context) {
+    if (context instanceof ContextBuilder) {
+      return (ContextBuilder) context;
+    }
+    return new ContextBuilder(context);
+  }
+
+  /**
+   * Returns an immutable context containing the base context and everything stored in this
+   * builder.
+   *
+   * @return the resulting context
+   */
+  public RenderContext build() {
+    if (values.isEmpty() && actions.isEmpty() && postScripts.isEmpty()
+        && reloadActions.isEmpty()) {
+      return base;
+    }
+    if (base instanceof PhaseContext) {
+      return ((PhaseContext) base).plusAll(values, actions, postScripts, reloadActions);
+    }
+
+    RenderContext result = base;
+    for (Entry<String, Object> entry : values.entrySet()) {
+      result = result.storeValue(entry.getKey(), entry.getValue());
+    }
+    for (RenderedAction action : actions.values()) {
+      result = result.storeAction(action);
+    }
+    for (String postScript : postScripts) {
+      result = result.storePostScript(postScript);
+    }
+    for (RenderedAction reloadAction : reloadActions) {
+      result = result.storeReloadAction(reloadAction);
+    }
+    return result;
+  }
+
+  @Override
+  public <T> T getValue(String key) {
+    if (values.containsKey(key)) {
+      @SuppressWarnings("unchecked")
+      T t = (T) values.get(key);
+      return t;
+    }
+    return base.getValue(key);
+  }
+
+  @Override
+  public <T> Optional<T> getValueOpt(String key) {
+    return Optional.ofNullable(getValue(key));
+  }
+
+  @Override
+  public <T> ContextBuilder storeValue(String key, T val) {
+    values.put(key, val);
+    return this;
+  }
+
+  @Override
+  public Map<String, Object> getAllValues() {
+    if (values.isEmpty()) {
+      return base.getAllValues();
+    }
+    Map<String, Object> allValues = new HashMap<>(base.getAllValues());
+    allValues.putAll(values);
+    return Collections.unmodifiableMap(allValues);
+  }
+
+  @Override
+  public ContextBuilder storeAction(RenderedAction action) {
+    actions.put(action.getName(), action);
+    return this;
+  }
+
+  @Override
+  public RenderedAction getAction(String name) {
+    RenderedAction action = actions.get(name);
+    if (action != null) {
+      return action;
+    }
+    return base.getAction(name);
+  }
+
+  @Override
+  public Optional<RenderedAction> getActionOpt(String name) {
+    return Optional.ofNullable(getAction(name));
+  }
+
+  @Override
+  public List<RenderedAction> getAllActions() {
+    if (actions.isEmpty()) {
+      return base.getAllActions();
+    }
+    Map<String, RenderedAction> allActions = new HashMap<>();
+    for (RenderedAction action : base.getAllActions()) {
+      allActions.put(action.getName(), action);
+    }
+    allActions.putAll(actions);
+    return new ArrayList<>(allActions.values());
+  }
+
+  @Override
+  public RenderContext merge(RenderContext other) {
+    return build().merge(other);
+  }
+
+  @Override
+  public ContextBuilder storePostScript(String content) {
+    postScripts.add(content);
+    return this;
+  }
+
+  @Override
+  public List<String> getAllPostScripts() {
+    return newestFirst(postScripts, base.getAllPostScripts());
+  }
+
+  @Override
+  public ContextBuilder storeReloadAction(RenderedAction action) {
+    reloadActions.add(action);
+    return this;
+  }
+
+  @Override
+  public List<RenderedAction> getAllReloadActions() {
+    return newestFirst(reloadActions, base.getAllReloadActions());
+  }
+
+  /**
+   * Lists stored entries in the same order a {@link PhaseContext} does: the newest one first.
+   *
+   * @param stored the entries stored in this builder, oldest first
+   * @param baseEntries the entries of the base context
+   * @param <T> the type of the entries
+   * @return all entries, newest first
+   */
+  private static <T> List<T> newestFirst(List<T> stored, List<T> baseEntries) {
+    if (stored.isEmpty()) {
+      return baseEntries;
+    }
+    List<T> result = new ArrayList<>(stored.size() + baseEntries.size());
+    for (int i = stored.size() - 1; i >= 0; i--) {
+      result.add(stored.get(i));
+    }
+    result.addAll(baseEntries);
+    return Collections.unmodifiableList(result);
+  }
+}
@@ -0,0 +1,209 @@
+package de.ialistannen.configurator.context;
+
+import de.ialistannen.configurator.profiling.ContextMergeEvent;
+import de.ialistannen.configurator.profiling.JfrEvents;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import lombok.Data;
+
+/**
+ * The changes a render target made to a {@link RenderContext}.
+ *
+ * <p>All lists are in the order the entries were stored in.</p>
+ */
+@Data
+public class ContextDelta {
+
+  private final Map<String, Object> values;
+  private final List<RenderedAction> actions;
+  private final List<RenderedAction> reloadActions;
+  private final List<String> postScripts;
+
+  /**
+   * Computes the changes that turned one context into another.
+   *
+   * <p>The result context must have been derived from the original one by only storing values,
+   * as contexts prepend newly stored scripts and reload actions.</p>
+   *
+   * @param before the original context
+   * @param after the context derived from the original one
+   * @return the delta between the two contexts
+   */
+  public static ContextDelta between(RenderContext before, RenderContext after) {
+    Map<String, Object> values = new LinkedHashMap<>();
+    for (Entry<String, Object> entry : after.getAllValues().entrySet()) {
+      if (!Objects.equals(before.getValue(entry.getKey()), entry.getValue())) {
+        values.put(entry.getKey(), entry.getValue());
+      }
+    }
+
+    List<RenderedAction> actions = new ArrayList<>();
+    for (RenderedAction action : after.getAllActions()) {
+      if (!action.equals(before.getAction(action.getName()))) {
+        actions.add(action);
+      }
+    }
+
+    return new ContextDelta(
+        values,
+        actions,
+        addedEntries(before.getAllReloadActions(), after.getAllReloadActions()),
+        addedEntries(before.getAllPostScripts(), after.getAllPostScripts())
+    );
+  }
+
+  /**
+   * Merges the results of several targets that all started with the same context. The result is
+   * the same as folding {@code result.merge(current)} over the results in order, starting with the
+   * start context, but it is built at once in time linear in the size of the deltas.
+   *
+   * <ul>
+   *   <li>Values and actions the start context has are taken from the last target, as its result
+   *   contains all of them.</li>
+   *   <li>New values and actions are taken from the last target that stored them.</li>
+   *   <li>Post scripts and reload actions end up in the order the fold leaves them in.</li>
+   * </ul>
+   *
+   * @param start the context all targets started with
+   * @param deltas the changes of every target to the start context, in target order
+   * @return the merged context
+   */
+  public static RenderContext mergeAll(RenderContext start, List<ContextDelta> deltas) {
+    if (deltas.isEmpty()) {
+      return start;
+    }
+    ContextMergeEvent event = JfrEvents.startContextMerge();
+
+    Map<String, Object> values = new HashMap<>();
+    Map<String, RenderedAction> actions = new HashMap<>();
+    for (int i = 0; i < deltas.size(); i++) {
+      boolean lastTarget = i == deltas.size() - 1;
+      for (Entry<String, Object> entry : deltas.get(i).getValues().entrySet()) {
+        if (lastTarget || start.getValue(entry.getKey()) == null) {
+          values.put(entry.getKey(), entry.getValue());
+        }
+      }
+      for (RenderedAction action : deltas.get(i).getActions()) {
+        if (lastTarget || start.getAction(action.getName()) == null) {
+          actions.put(action.getName(), action);
+        }
+      }
+    }
+    List<String> postScripts = foldedPushes(
+        start.getAllPostScripts(), deltas, ContextDelta::getPostScripts
+    );
+    List<RenderedAction> reloadActions = foldedPushes(
+        start.getAllReloadActions(), deltas, ContextDelta::getReloadActions
+    );
+
+    RenderContext result;
+    if (start instanceof PhaseContext) {
+      result = ((PhaseContext) start).plusAll(values, actions, postScripts, reloadActions);
+    } else {
+      List<RenderedAction> actionList = new ArrayList<>(actions.values());
+      result = new ContextDelta(values, actionList, reloadActions, postScripts).applyTo(start);
+    }
+
+    if (event != null) {
+      event.finished(
+          values.size(), actions.size(),
+          result.getAllValues().size(), result.getAllActions().size()
+      );
+    }
+    return result;
+  }
+
+  /**
+   * Computes the entries to push onto the start stack to get the stack the merge fold produces.
+   *
+   * <p>Every merge step pushes the entries of the accumulated stack that the target's result does
+   * not contain, in list order. So an entry of a target is dropped if the start stack or a later
+   * target contains it, unless it is from the last target. And every step reverses the entries
+   * accumulated above the start stack before the target's own entries are placed below them. The
+   * reversal is tracked with a flag, so it does not cost anything.</p>
+   *
+   * @param start the stack of the start context, most recent entry first
+   * @param deltas the changes of every target, in target order
+   * @param added extracts the pushed entries from a delta, in the order they were pushed
+   * @param <T> the type of the entries
+   * @return the entries to push, in push order
+   */
+  private static <T> List<T> foldedPushes(List<T> start, List<ContextDelta> deltas,
+      Function<ContextDelta, List<T>> added) {
+    List<List<T>> kept = new ArrayList<>(Collections.nCopies(deltas.size(), null));
+    Set<T> later = new HashSet<>(start);
+    for (int i = deltas.size() - 1; i >= 0; i--) {
+      boolean lastTarget = i == deltas.size() - 1;
+      List<T> entries = added.apply(deltas.get(i));
+
+      List<T> targetKept = new ArrayList<>();
+      for (T entry : entries) {
+        if (lastTarget || !later.contains(entry)) {
+          targetKept.add(entry);
+        }
+      }
+      kept.set(i, targetKept);
+      later.addAll(entries);
+    }
+
+    // Most recent entry first, unless reversed
+    Deque<T> stack = new ArrayDeque<>();
+    boolean reversed = false;
+    for (List<T> targetKept : kept) {
+      reversed = !reversed;
+      for (int i = targetKept.size() - 1; i >= 0; i--) {
+        if (reversed) {
+          stack.addFirst(targetKept.get(i));
+        } else {
+          stack.addLast(targetKept.get(i));
+        }
+      }
+    }
+
+    List<T> pushes = new ArrayList<>(stack.size());
+    Iterator<T> oldestFirst = reversed ? stack.iterator() : stack.descendingIterator();
+    oldestFirst.forEachRemaining(pushes::add);
+    return pushes;
+  }
+
+  private static <T> List<T> addedEntries(List<T> before, List<T> after) {
+    List<T> added = new ArrayList<>(after.subList(0, after.size() - before.size()));
+    Collections.reverse(added);
+    return added;
+  }
+
+  /**
+   * Applies this delta to a context.
+   *
+   * @param context the context to apply it to
+   * @return the resulting context
+   */
+  public RenderContext applyTo(RenderContext context) {
+    RenderContext result = context;
+    for (Entry<String, Object> entry : values.entrySet()) {
+      result = result.storeValue(entry.getKey(), entry.getValue());
+    }
+    for (RenderedAction action : actions) {
+      result = result.storeAction(action);
+    }
+    for (RenderedAction reloadAction : reloadActions) {
+      result = result.storeReloadAction(reloadAction);
+    }
+    for (String postScript : postScripts) {
+      result = result.storePostScript(postScript);
+    }
+    return result;
+  }
+}
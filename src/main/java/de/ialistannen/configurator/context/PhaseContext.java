@@ -1,11 +1,16 @@
 package de.ialistannen.configurator.context;
 
+import de.ialistannen.configurator.profiling.ContextMergeEvent;
+import de.ialistannen.configurator.profiling.JfrEvents;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.Set;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.EqualsAndHashCode;
@@ -78,34 +83,92 @@ public class PhaseContext implements RenderContext {
     return new ArrayList<>(actions.values());
   }
 
+  /**
+   * Merges the two contexts. Keeps the keys of this context if there are conflicts.
+   *
+   * <p>Runs in time linear in the size of both contexts: Missing entries are found using hash
+   * lookups and then added all at once.</p>
+   *
+   * @param other the other context
+   * @return the merged context
+   */
   @Override
   public RenderContext merge(RenderContext other) {
-    RenderContext result = this;
+    if (other == this) {
+      return this;
+    }
+    ContextMergeEvent event = JfrEvents.startContextMerge();
+
+    Map<String, RenderedAction> missingActions = new HashMap<>();
     for (RenderedAction action : other.getAllActions()) {
       if (!actions.containsKey(action.getName())) {
-        result = result.storeAction(action);
+        missingActions.put(action.getName(), action);
       }
     }
 
+    Map<String, Object> missingValues = new HashMap<>();
     for (Entry<String, Object> entry : other.getAllValues().entrySet()) {
       if (!values.containsKey(entry.getKey())) {
-        result = result.storeValue(entry.getKey(), entry.getValue());
+        missingValues.put(entry.getKey(), entry.getValue());
       }
     }
 
-    for (RenderedAction reloadAction : other.getAllReloadActions()) {
-      if (!reloadActions.contains(reloadAction)) {
-        result = result.storeReloadAction(reloadAction);
-      }
+    PhaseContext result = new PhaseContext(
+        values.plusAll(missingValues),
+        actions.plusAll(missingActions),
+        plusMissing(postActions, other.getAllPostScripts()),
+        plusMissing(reloadActions, other.getAllReloadActions())
+    );
+    if (event != null) {
+      event.finished(
+          missingValues.size(), missingActions.size(),
+          result.values.size(), result.actions.size()
+      );
     }
+    return result;
+  }
 
-    for (String postScript : other.getAllPostScripts()) {
-      if (!postActions.contains(postScript)) {
-        result = result.storePostScript(postScript);
+  /**
+   * Stores many entries at once. Equivalent to storing the values, actions, post scripts and
+   * reload actions one after another, in iteration order.
+   *
+   * @param newValues the values to store
+   * @param newActions the actions to store, by name
+   * @param newPostScripts the post scripts to store
+   * @param newReloadActions the reload actions to store
+   * @return the resulting context
+   */
+  PhaseContext plusAll(Map<String, Object> newValues, Map<String, RenderedAction> newActions,
+      List<String> newPostScripts, List<RenderedAction> newReloadActions) {
+    return new PhaseContext(
+        values.plusAll(newValues),
+        actions.plusAll(newActions),
+        postActions.plusAll(newPostScripts),
+        reloadActions.plusAll(newReloadActions)
+    );
+  }
+
+  /**
+   * Pushes all entries of a list that are not part of a stack, in list order. Entries that occur
+   * multiple times in the list are pushed every time.
+   *
+   * @param stack the stack to push onto
+   * @param entries the entries to push
+   * @param <T> the type of the entries
+   * @return the resulting stack
+   */
+  private static <T> ConsPStack<T> plusMissing(ConsPStack<T> stack, List<T> entries) {
+    if (entries.isEmpty()) {
+      return stack;
+    }
+    Set<T> present = new HashSet<>(stack);
+    List<T> missing = new ArrayList<>();
+    for (T entry : entries) {
+      if (!present.contains(entry)) {
+        missing.add(entry);
       }
     }
-
-    return result;
+    return stack.plusAll(missing);
   }
 
   @Override
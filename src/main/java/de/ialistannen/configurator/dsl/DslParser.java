@@ -4,6 +4,7 @@ import static de.ialistannen.configurator.output.ColoredOutput.colorErr;
 
 import de.ialistannen.configurator.context.Action;
 import de.ialistannen.configurator.dsl.comparison.ComparisonAstNode;
+import de.ialistannen.configurator.dsl.comparison.ComparisonOperator;
 import de.ialistannen.configurator.dsl.script.JavaScriptScript;
 import de.ialistannen.configurator.output.TerminalColor;
 import de.ialistannen.configurator.util.ParseException;
@@ -13,7 +14,6 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.function.BiFunction;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 
@@ -23,6 +23,12 @@ import lombok.AllArgsConstructor;
 @AllArgsConstructor(access = AccessLevel.PUBLIC)
 public class DslParser {
 
+  /**
+   * The version of the parser. Must be increased whenever the same input would be parsed to a
+   * different ast, as it invalidates persisted parse results.
+   */
+  public static final int PARSER_VERSION = 3;
+
   private final StringReader input;
   private String commandPrefix;
   private final boolean reportErrors;
@@ -69,6 +75,16 @@ public class DslParser {
     return new BlockAstNode(children);
   }
 
+  /**
+   * Returns the command prefix. It is read from the input when parsing, if it was not passed to
+   * the constructor.
+   *
+   * @return the command prefix or null if it was not parsed yet
+   */
+  public String getCommandPrefix() {
+    return commandPrefix;
+  }
+
   private void parseCommandPrefix() throws ParseException {
     input.assertRead("Command prefix");
     input.readWhile(Character::isWhitespace);
@@ -92,20 +108,14 @@ public class DslParser {
       return command.get();
     }
 
-    String line;
-    if (withNewline) {
-      line = input.readLineIncludingNewline();
-    } else {
-      line = input.readLine();
-    }
-    StringReader reader = new StringReader(line);
+    StringReader reader = input.sliceLine(withNewline);
 
     List<AstNode> children = new ArrayList<>();
 
     while (reader.canRead()) {
       readLiteral(reader).ifPresent(children::add);
 
-      if (reader.peek(2).equals("{{")) {
+      if (reader.peekMatches("{{")) {
         reader.assertRead("{{");
         Optional<AstNode> innerResult = tryParse(() -> readInnerExpression(reader), reader);
         if (innerResult.isPresent()) {
@@ -128,7 +138,7 @@ public class DslParser {
     int start = input.getPosition();
     String whitespace = input.readWhile(it -> it == ' ' || it == '\t');
 
-    if (input.peek(commandPrefix.length()).equals(commandPrefix)) {
+    if (input.peekMatches(commandPrefix)) {
       return tryParse(this::parseCommand, input).map(it -> {
         if (whitespace.isEmpty()) {
           return it;
@@ -171,10 +181,8 @@ public class DslParser {
     return readNamedEnclosed(
         "reload",
         (name, content) -> {
-          AstNode inner = new DslParser(
-              new StringReader(content), commandPrefix, reportErrors
-          ).parse();
-          return new ReloadActionAstNode(new Action(name, inner, false));
+          AstNode inner = new DslParser(content, commandPrefix, reportErrors).parse();
+          return new ReloadActionAstNode(new Action(name.readRemaining(), inner, false));
         }
     );
   }
@@ -183,9 +191,7 @@ public class DslParser {
     return readNamedEnclosed(
         "execute",
         (ignored, content) -> {
-          AstNode script = new DslParser(
-              new StringReader(content), commandPrefix, reportErrors
-          ).parse();
+          AstNode script = new DslParser(content, commandPrefix, reportErrors).parse();
           return new ExecuteFileAstNode(script);
         }
     );
@@ -202,61 +208,31 @@ public class DslParser {
     return readNamedEnclosed(
         "if",
         (condition, content) -> {
-          AstNode contentNode = new DslParser(
-              new StringReader(content), commandPrefix, reportErrors
-          )
+          AstNode contentNode = new DslParser(content, commandPrefix, reportErrors)
               .parse(false);
-          ComparisonAstNode comparison = new DslParser(
-              new StringReader(condition), commandPrefix, reportErrors
-          ).readComparison();
+          ComparisonAstNode comparison = new DslParser(condition, commandPrefix, reportErrors)
+              .readComparison();
           return new IfAstNode(comparison, contentNode);
         }
     );
   }
 
   private ComparisonAstNode readComparison() throws ParseException {
-    AstNode left = parseSectionOnString(input.readEnclosedByParentheses(), false);
+    AstNode left = parseSectionOn(input.sliceEnclosedByParentheses(), false);
 
     input.readWhile(Character::isWhitespace);
     String operator = input.readWhile(it -> !Character.isWhitespace(it));
     input.readWhile(Character::isWhitespace);
 
-    BiFunction<String, String, Boolean> comparison;
-    switch (operator) {
-      case "==":
-        comparison = String::equalsIgnoreCase;
-        break;
-      case "===":
-        comparison = String::equals;
-        break;
-      case "~=":
-        comparison = String::matches;
-        break;
-      case "!=":
-        comparison = (a, b) -> !a.equals(b);
-        break;
-      case ">":
-        comparison = (a, b) -> Integer.parseInt(a) > Integer.parseInt(b);
-        break;
-      case "<":
-        comparison = (a, b) -> Integer.parseInt(a) < Integer.parseInt(b);
-        break;
-      case "||":
-        comparison = (a, b) -> Boolean.parseBoolean(a) || Boolean.parseBoolean(b);
-        break;
-      case "&&":
-        comparison = (a, b) -> Boolean.parseBoolean(a) && Boolean.parseBoolean(b);
-        break;
-      default:
-        throw new ParseException(input, "Unknown comparison");
-    }
-    AstNode right = parseSectionOnString(input.readEnclosedByParentheses(), false);
+    ComparisonOperator comparison = ComparisonOperator.fromSymbol(operator)
+        .orElseThrow(() -> new ParseException(input, "Unknown comparison"));
+    AstNode right = parseSectionOn(input.sliceEnclosedByParentheses(), false);
 
     return new ComparisonAstNode(left, right, comparison);
   }
 
-  private AstNode parseSectionOnString(String input, boolean newline) throws ParseException {
-    return new DslParser(new StringReader(input), commandPrefix, reportErrors)
+  private AstNode parseSectionOn(StringReader input, boolean newline) throws ParseException {
+    return new DslParser(input, commandPrefix, reportErrors)
         .parseSection(newline);
   }
 
@@ -264,10 +240,10 @@ public class DslParser {
     return readNamedEnclosed(
         "script",
         (lang, content) -> {
-          if (!lang.equals("js")) {
+          if (!lang.readRemaining().equals("js")) {
             throw new ParseException(input, "Unknown language");
           }
-          return new ScriptAstNode(new JavaScriptScript(content));
+          return new ScriptAstNode(new JavaScriptScript(content.readRemaining()));
         }
     );
   }
@@ -283,11 +259,13 @@ public class DslParser {
     input.readWhile(it -> it == ' ' || it == '\t');
     final String END_MARKER = commandPrefix + " end " + start;
 
-    String name = input.readLine();
-    String content = input.readUntil(END_MARKER);
+    StringReader name = input.sliceLine(false);
+    int contentStart = input.getPosition();
+    input.skipUntil(END_MARKER);
+    StringReader content = input.slice(contentStart, input.getPosition());
 
     input.assertRead(END_MARKER);
-    if (input.peek(System.lineSeparator().length()).equals(System.lineSeparator())) {
+    if (input.peekMatches(System.lineSeparator())) {
       input.assertRead(System.lineSeparator());
     }
 
@@ -297,10 +275,8 @@ public class DslParser {
   private AstNode readAction(String keyword, boolean hideFromRunAll) throws ParseException {
     return readNamedEnclosed(keyword,
         (name, content) -> {
-          AstNode inner = new DslParser(
-              new StringReader(content), commandPrefix, reportErrors
-          ).parse();
-          return new ActionAstNode(new Action(name, inner, hideFromRunAll));
+          AstNode inner = new DslParser(content, commandPrefix, reportErrors).parse();
+          return new ActionAstNode(new Action(name.readRemaining(), inner, hideFromRunAll));
         }
     );
   }
@@ -332,7 +308,10 @@ public class DslParser {
         result = readVariable(input);
         break;
       case '!':
-        result = readShellCommand(input);
+        result = readShellCommand(input, false);
+        break;
+      case '*':
+        result = readShellCommand(input, true);
         break;
       case '|':
         result = readCall(input);
@@ -344,8 +323,8 @@ public class DslParser {
     return result;
   }
 
-  private AstNode readShellCommand(StringReader input) {
-    return new ShellCommandAstNode(input.readUntil("}}"));
+  private AstNode readShellCommand(StringReader input, boolean alwaysRun) {
+    return new ShellCommandAstNode(input.readUntil("}}"), alwaysRun);
   }
 
   private AstNode readVariable(StringReader input) {
@@ -375,8 +354,12 @@ public class DslParser {
     AstNode parse() throws ParseException;
   }
 
+  /**
+   * Creates a node from the header line and the content of an enclosed section. Both are slices
+   * of the input, so nested parsers can work on them without copying.
+   */
   private interface NamedSectionParser {
 
-    AstNode create(String name, String content) throws ParseException;
+    AstNode create(StringReader name, StringReader content) throws ParseException;
   }
 }
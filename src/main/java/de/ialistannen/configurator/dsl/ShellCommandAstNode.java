@@ -9,6 +9,28 @@ import lombok.Data;
 public class ShellCommandAstNode implements AstNode {
 
   private final String command;
+  private final boolean alwaysRun;
+
+  /**
+   * Creates a new shell command node whose output may be shared with identical commands.
+   *
+   * @param command the command to run
+   */
+  public ShellCommandAstNode(String command) {
+    this(command, false);
+  }
+
+  /**
+   * Creates a new shell command node.
+   *
+   * @param command the command to run
+   * @param alwaysRun whether the command must run every time instead of reusing the output of an
+   *     identical command that already ran
+   */
+  public ShellCommandAstNode(String command, boolean alwaysRun) {
+    this.command = command;
+    this.alwaysRun = alwaysRun;
+  }
 
   @Override
   public <T> T accept(AstVisitor<T> visitor) {
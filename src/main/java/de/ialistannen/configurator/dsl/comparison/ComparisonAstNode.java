@@ -2,25 +2,67 @@ package de.ialistannen.configurator.dsl.comparison;
 
 import de.ialistannen.configurator.dsl.AstNode;
 import de.ialistannen.configurator.dsl.AstVisitor;
-import java.util.function.BiFunction;
+import de.ialistannen.configurator.dsl.BlockAstNode;
+import de.ialistannen.configurator.dsl.LiteralAstNode;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 /**
  * An ast node that represents a boolean comparison.
  *
- * <p><br>Note that the equals function of this node ignores the comparison function.</p>
+ * <p>The operator is {@link ComparisonOperator#compile(String, String) compiled} when the node is
+ * created, so constant operands are only converted once.</p>
  */
 @Data
-@EqualsAndHashCode(exclude = {"comparisonFunction"})
+@EqualsAndHashCode(exclude = "condition")
+@ToString(exclude = "condition")
 public class ComparisonAstNode implements AstNode {
 
   private final AstNode left;
   private final AstNode right;
-  private final BiFunction<String, String, Boolean> comparisonFunction;
+  private final ComparisonOperator operator;
+  private final Condition condition;
+
+  /**
+   * Creates a new comparison.
+   *
+   * @param left the left operand
+   * @param right the right operand
+   * @param operator the operator
+   */
+  public ComparisonAstNode(AstNode left, AstNode right, ComparisonOperator operator) {
+    this.left = left;
+    this.right = right;
+    this.operator = operator;
+    this.condition = operator.compile(constantText(left), constantText(right));
+  }
 
   @Override
   public <T> T accept(AstVisitor<T> visitor) {
     return visitor.visitComparisonAstNode(this);
   }
+
+  /**
+   * Returns the text an operand renders to, if it only consists of literals.
+   *
+   * @param operand the operand
+   * @return the text or null if it depends on the context
+   */
+  private static String constantText(AstNode operand) {
+    if (operand instanceof LiteralAstNode) {
+      return ((LiteralAstNode) operand).getText();
+    }
+    if (!(operand instanceof BlockAstNode)) {
+      return null;
+    }
+    StringBuilder text = new StringBuilder();
+    for (AstNode child : ((BlockAstNode) operand).getChildren()) {
+      if (!(child instanceof LiteralAstNode)) {
+        return null;
+      }
+      text.append(((LiteralAstNode) child).getText());
+    }
+    return text.toString();
+  }
 }
@@ -0,0 +1,156 @@
+package de.ialistannen.configurator.dsl.comparison;
+
+import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * The operators that can be used in a {@link ComparisonAstNode}.
+ */
+public enum ComparisonOperator implements BiFunction<String, String, Boolean> {
+  EQUALS_IGNORE_CASE("==") {
+    @Override
+    public Boolean apply(String left, String right) {
+      return left.equalsIgnoreCase(right);
+    }
+  },
+  EQUALS("===") {
+    @Override
+    public Boolean apply(String left, String right) {
+      return left.equals(right);
+    }
+  },
+  MATCHES("~=") {
+    @Override
+    public Boolean apply(String left, String right) {
+      return PatternCache.get(right).matcher(left).matches();
+    }
+
+    @Override
+    public Condition compile(String constantLeft, String constantRight) {
+      if (constantRight == null) {
+        return this::apply;
+      }
+      Pattern pattern;
+      try {
+        pattern = Pattern.compile(constantRight);
+      } catch (PatternSyntaxException e) {
+        // Only fail if the comparison is actually evaluated
+        return this::apply;
+      }
+      return (left, right) -> pattern.matcher(left).matches();
+    }
+  },
+  NOT_EQUALS("!=") {
+    @Override
+    public Boolean apply(String left, String right) {
+      return !left.equals(right);
+    }
+  },
+  GREATER_THAN(">") {
+    @Override
+    public Boolean apply(String left, String right) {
+      return Integer.parseInt(left) > Integer.parseInt(right);
+    }
+
+    @Override
+    public Condition compile(String constantLeft, String constantRight) {
+      Integer leftNumber = parseIntOrNull(constantLeft);
+      Integer rightNumber = parseIntOrNull(constantRight);
+      return (left, right) -> (leftNumber != null ? leftNumber : Integer.parseInt(left))
+          > (rightNumber != null ? rightNumber : Integer.parseInt(right));
+    }
+  },
+  LESS_THAN("<") {
+    @Override
+    public Boolean apply(String left, String right) {
+      return Integer.parseInt(left) < Integer.parseInt(right);
+    }
+
+    @Override
+    public Condition compile(String constantLeft, String constantRight) {
+      Integer leftNumber = parseIntOrNull(constantLeft);
+      Integer rightNumber = parseIntOrNull(constantRight);
+      return (left, right) -> (leftNumber != null ? leftNumber : Integer.parseInt(left))
+          < (rightNumber != null ? rightNumber : Integer.parseInt(right));
+    }
+  },
+  OR("||") {
+    @Override
+    public Boolean apply(String left, String right) {
+      return Boolean.parseBoolean(left) || Boolean.parseBoolean(right);
+    }
+  },
+  AND("&&") {
+    @Override
+    public Boolean apply(String left, String right) {
+      return Boolean.parseBoolean(left) && Boolean.parseBoolean(right);
+    }
+  };
+
+  private final String symbol;
+
+  ComparisonOperator(String symbol) {
+    this.symbol = symbol;
+  }
+
+  /**
+   * Returns the symbol used for this operator in the DSL.
+   *
+   * @return the symbol of this operator
+   */
+  public String getSymbol() {
+    return symbol;
+  }
+
+  /**
+   * Returns whether the right operand is only evaluated if the left one does not decide the result.
+   *
+   * @return true for {@link #AND} and {@link #OR}
+   */
+  public boolean isShortCircuiting() {
+    return this == AND || this == OR;
+  }
+
+  /**
+   * Prepares this operator for repeated evaluation. Operands that are the same every time are
+   * converted once here, like a regex that is compiled or a number that is parsed.
+   *
+   * <p>Operands that can not be converted are left alone, so evaluating the condition fails just
+   * like {@link #apply(String, String)} would.</p>
+   *
+   * @param constantLeft the left operand if it is always the same, null otherwise
+   * @param constantRight the right operand if it is always the same, null otherwise
+   * @return the condition
+   */
+  public Condition compile(String constantLeft, String constantRight) {
+    return this::apply;
+  }
+
+  private static Integer parseIntOrNull(String constant) {
+    if (constant == null) {
+      return null;
+    }
+    try {
+      return Integer.parseInt(constant);
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Finds the operator for the given symbol.
+   *
+   * @param symbol the symbol of the operator
+   * @return the operator or an empty optional if there is none with that symbol
+   */
+  public static Optional<ComparisonOperator> fromSymbol(String symbol) {
+    for (ComparisonOperator operator : values()) {
+      if (operator.symbol.equals(symbol)) {
+        return Optional.of(operator);
+      }
+    }
+    return Optional.empty();
+  }
+}
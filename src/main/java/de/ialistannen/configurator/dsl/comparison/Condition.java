@@ -0,0 +1,18 @@
+package de.ialistannen.configurator.dsl.comparison;
+
+/**
+ * A comparison prepared for repeated evaluation, see {@link ComparisonOperator#compile(String,
+ * String)}.
+ */
+@FunctionalInterface
+public interface Condition {
+
+  /**
+   * Evaluates this condition.
+   *
+   * @param left the rendered left operand
+   * @param right the rendered right operand
+   * @return true if the condition holds
+   */
+  boolean test(String left, String right);
+}
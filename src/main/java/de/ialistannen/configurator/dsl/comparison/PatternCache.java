@@ -0,0 +1,37 @@
+package de.ialistannen.configurator.dsl.comparison;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Caches the compiled patterns of regex comparisons whose pattern is only known when rendering.
+ */
+class PatternCache {
+
+  private static final int MAX_SIZE = 256;
+  private static final Map<String, Pattern> PATTERNS = new ConcurrentHashMap<>();
+
+  /**
+   * Returns the compiled pattern for a regex, compiling it if it isn't cached yet.
+   *
+   * <p>The cache is cleared when it grows too big, so patterns depending on ever changing values
+   * can not exhaust the memory.</p>
+   *
+   * @param regex the regex
+   * @return the compiled pattern
+   * @throws java.util.regex.PatternSyntaxException if the regex is invalid
+   */
+  static Pattern get(String regex) {
+    Pattern pattern = PATTERNS.get(regex);
+    if (pattern != null) {
+      return pattern;
+    }
+    pattern = Pattern.compile(regex);
+    if (PATTERNS.size() >= MAX_SIZE) {
+      PATTERNS.clear();
+    }
+    PATTERNS.put(regex, pattern);
+    return pattern;
+  }
+}
@@ -1,48 +1,111 @@
 package de.ialistannen.configurator.dsl.script;
 
+import de.ialistannen.configurator.context.ContextBuilder;
 import de.ialistannen.configurator.context.RenderContext;
 import de.ialistannen.configurator.context.RenderedAction;
+import de.ialistannen.configurator.profiling.Category;
+import de.ialistannen.configurator.profiling.JfrEvents;
+import de.ialistannen.configurator.profiling.Profiler;
+import de.ialistannen.configurator.profiling.ScriptEvent;
+import de.ialistannen.configurator.profiling.Span;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Engine;
 import org.graalvm.polyglot.HostAccess.Export;
+import org.graalvm.polyglot.Source;
 
 /**
- * A python script.
+ * A javascript script.
+ *
+ * <p>All scripts share a single polyglot engine, so parsed and compiled code is reused. Every
+ * execution still gets a fresh context that is closed afterwards, as anything a script changes in
+ * the global scope would otherwise leak into the next script.</p>
  */
 @Data
 public class JavaScriptScript implements Script {
 
+  private static Engine engine;
+
   private String script;
+  @EqualsAndHashCode.Exclude
+  @ToString.Exclude
+  private volatile Source source;
 
   /**
-   * Creates a new python script.
+   * Creates a new javascript script.
    *
-   * @param script the python script
+   * @param script the javascript script
    */
   public JavaScriptScript(String script) {
     this.script = script;
   }
 
+  /**
+   * Sets the script to run.
+   *
+   * @param script the javascript script
+   */
+  public void setScript(String script) {
+    this.script = script;
+    this.source = null;
+  }
+
   @Override
   public RenderContext execute(RenderContext initial) {
-    StatefulContextHolder contextHolder = new StatefulContextHolder(initial);
-    Context context = Context.newBuilder("js")
+    ContextBuilder builder = ContextBuilder.of(initial);
+
+    ScriptEvent event = JfrEvents.startScript();
+    Span span = Profiler.getProfiler().start();
+    try (Context context = newContext()) {
+      context.getBindings("js").putMember("context", new StatefulContextHolder(builder));
+      context.eval(getSource());
+    } finally {
+      span.end(Category.SCRIPT, script.trim());
+      if (event != null) {
+        event.finished(script.trim());
+      }
+    }
+    return builder == initial ? builder : builder.build();
+  }
+
+  private Source getSource() {
+    Source result = source;
+    if (result == null) {
+      result = Source.newBuilder("js", script, "script.js").buildLiteral();
+      source = result;
+    }
+    return result;
+  }
+
+  /**
+   * Returns the engine shared by all scripts, creating it when the first script runs.
+   *
+   * @return the shared engine
+   */
+  private static synchronized Engine getEngine() {
+    if (engine == null) {
+      engine = Engine.create();
+    }
+    return engine;
+  }
+
+  private static Context newContext() {
+    return Context.newBuilder("js")
+        .engine(getEngine())
         .allowAllAccess(true)
         .build();
-    context.getBindings("js").putMember("context", contextHolder);
-
-    context.eval("js", script);
-    return contextHolder.underlying;
   }
 
   private static class StatefulContextHolder implements RenderContext {
 
-    private RenderContext underlying;
+    private final ContextBuilder underlying;
 
-    StatefulContextHolder(RenderContext underlying) {
+    StatefulContextHolder(ContextBuilder underlying) {
       this.underlying = underlying;
     }
 
@@ -58,7 +121,7 @@ public class JavaScriptScript implements Script {
 
     @Override
     public <T> RenderContext storeValue(String key, T val) {
-      underlying = underlying.storeValue(key, val);
+      underlying.storeValue(key, val);
       return this;
     }
 
@@ -70,7 +133,7 @@ public class JavaScriptScript implements Script {
     @Export
     @Override
     public RenderContext storeAction(RenderedAction action) {
-      underlying = underlying.storeAction(action);
+      underlying.storeAction(action);
       return this;
     }
 
@@ -96,7 +159,7 @@ public class JavaScriptScript implements Script {
 
     @Override
     public RenderContext storePostScript(String content) {
-      underlying = underlying.storePostScript(content);
+      underlying.storePostScript(content);
       return this;
     }
 
@@ -107,7 +170,7 @@ public class JavaScriptScript implements Script {
 
     @Override
     public RenderContext storeReloadAction(RenderedAction action) {
-      underlying = underlying.storeReloadAction(action);
+      underlying.storeReloadAction(action);
       return this;
     }
 
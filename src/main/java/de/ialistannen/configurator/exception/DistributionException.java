@@ -1,5 +1,7 @@
 package de.ialistannen.configurator.exception;
 
+import java.util.List;
+
 /**
  * An exception indicating there was a problem distributing a file or action.
  */
@@ -14,4 +16,33 @@ public class DistributionException extends Exception {
   public DistributionException(String message, Throwable cause) {
     super(message, cause);
   }
+
+  /**
+   * Combines multiple failures into a single exception, whose message lists all of them. The
+   * causes of the failures are added as suppressed exceptions.
+   *
+   * @param message the detail message
+   * @param failures the failures, each describing a single file or action
+   * @return the combined exception or the only failure
+   */
+  public static DistributionException aggregate(String message,
+      List<DistributionException> failures) {
+    if (failures.size() == 1) {
+      return failures.get(0);
+    }
+
+    StringBuilder report = new StringBuilder(message)
+        .append(" (").append(failures.size()).append(" failed)");
+    for (DistributionException failure : failures) {
+      report.append(System.lineSeparator())
+          .append("\t").append(failure.getMessage())
+          .append(": ").append(failure.getCause().getMessage());
+    }
+
+    DistributionException exception = new DistributionException(report.toString(), null);
+    for (DistributionException failure : failures) {
+      exception.addSuppressed(failure.getCause());
+    }
+    return exception;
+  }
 }
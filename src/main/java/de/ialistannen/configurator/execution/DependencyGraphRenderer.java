@@ -0,0 +1,412 @@
+package de.ialistannen.configurator.execution;
+
+import de.ialistannen.configurator.context.ContextDelta;
+import de.ialistannen.configurator.context.RenderContext;
+import de.ialistannen.configurator.context.RenderedAction;
+import de.ialistannen.configurator.profiling.Category;
+import de.ialistannen.configurator.profiling.JfrEvents;
+import de.ialistannen.configurator.profiling.PhaseEvent;
+import de.ialistannen.configurator.profiling.Profiler;
+import de.ialistannen.configurator.profiling.Span;
+import de.ialistannen.configurator.profiling.TargetRenderEvent;
+import de.ialistannen.configurator.rendering.ContextUsage;
+import de.ialistannen.configurator.rendering.FileRenderedObject;
+import de.ialistannen.configurator.rendering.RenderScheduler;
+import de.ialistannen.configurator.rendering.RenderSession;
+import de.ialistannen.configurator.rendering.RenderTarget;
+import de.ialistannen.configurator.util.Pair;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Renders the targets of multiple phases as soon as the values and actions they use are known,
+ * instead of waiting for every target of the previous phases.
+ *
+ * <p>A target depends on every target of an earlier phase that might store a value it reads or
+ * stores, or an action it stores. Targets with an unknown usage depend on all earlier targets and
+ * all later targets depend on them.</p>
+ *
+ * <p>A target is rendered with a context that agrees with the context the phase would have
+ * started with on every value and action it uses. Only the changes it made are applied. Once every
+ * target is rendered, the changes are merged phase by phase in the same order as if the phases had
+ * been rendered one after another, so the results are the same.</p>
+ */
+class DependencyGraphRenderer {
+
+  private final List<String> phaseNames;
+  private final PhaseEvent[] phaseEvents;
+  private final RenderContext startContext;
+  private final List<List<Node>> phases;
+  private final List<CompletableFuture<Void>> phasesDone;
+  private final List<RenderContext> phaseStartContexts;
+  private final List<Map<String, Pair<Boolean, Object>>> phaseStartValues;
+  private final List<Map<String, Pair<Boolean, Object>>> phaseStartActions;
+
+  /**
+   * Creates a new dependency graph renderer.
+   *
+   * @param phaseNames the name of every phase, in phase order
+   * @param phaseTargets the targets of every phase, in phase order
+   * @param startContext the context the first phase starts with
+   */
+  DependencyGraphRenderer(List<String> phaseNames,
+      List<List<RenderTarget<FileRenderedObject>>> phaseTargets, RenderContext startContext) {
+    this.phaseNames = phaseNames;
+    this.phaseEvents = JfrEvents.AVAILABLE ? new PhaseEvent[phaseTargets.size()] : null;
+    this.startContext = startContext;
+    this.phases = new ArrayList<>();
+    this.phasesDone = new ArrayList<>();
+    this.phaseStartContexts = new ArrayList<>();
+    this.phaseStartContexts.add(startContext);
+    this.phaseStartValues = new ArrayList<>();
+    this.phaseStartActions = new ArrayList<>();
+
+    Map<String, List<Node>> valueWriters = new HashMap<>();
+    Map<String, List<Node>> actionWriters = new HashMap<>();
+    List<Node> unknownWriters = new ArrayList<>();
+
+    for (int phase = 0; phase < phaseTargets.size(); phase++) {
+      List<Node> nodes = new ArrayList<>();
+      for (RenderTarget<FileRenderedObject> target : phaseTargets.get(phase)) {
+        Node node = new Node(phase, target, target.getContextUsage());
+        ContextUsage usage = node.usage;
+
+        if (usage.isKnown()) {
+          node.dependencies.addAll(unknownWriters);
+          for (String name : node.usedValues) {
+            node.dependencies.addAll(valueWriters.getOrDefault(name, Collections.emptyList()));
+          }
+          for (String name : usage.getWrittenActions()) {
+            node.dependencies.addAll(actionWriters.getOrDefault(name, Collections.emptyList()));
+          }
+        }
+        nodes.add(node);
+      }
+
+      for (Node node : nodes) {
+        if (!node.usage.isKnown()) {
+          unknownWriters.add(node);
+          continue;
+        }
+        for (String name : node.usage.getWrittenValues()) {
+          valueWriters.computeIfAbsent(name, key -> new ArrayList<>()).add(node);
+        }
+        for (String name : node.usage.getWrittenActions()) {
+          actionWriters.computeIfAbsent(name, key -> new ArrayList<>()).add(node);
+        }
+      }
+      phases.add(nodes);
+      if (phaseEvents != null) {
+        phaseEvents[phase] = JfrEvents.newPhase();
+      }
+      phaseStartValues.add(new ConcurrentHashMap<>());
+      phaseStartActions.add(new ConcurrentHashMap<>());
+    }
+  }
+
+  /**
+   * Renders all targets and merges their results phase by phase.
+   *
+   * @param session the session of the current run
+   * @param scheduler the scheduler to render the targets on
+   * @param startContexts receives the context every phase starts with
+   * @param results receives the rendered objects of every phase. If a phase fails, it only has a
+   *     start context.
+   * @return the context after the last phase
+   * @throws RuntimeException wrapping the first failure in phase order
+   */
+  RenderContext render(RenderSession session, RenderScheduler scheduler,
+      List<RenderContext> startContexts, List<List<FileRenderedObject>> results) {
+    List<CompletableFuture<?>> allResults = new ArrayList<>();
+
+    for (int phase = 0; phase < phases.size(); phase++) {
+      CompletableFuture<Void> previousPhaseDone = phase == 0
+          ? CompletableFuture.completedFuture(null)
+          : phasesDone.get(phase - 1);
+
+      List<CompletableFuture<?>> phaseResults = new ArrayList<>();
+      phaseResults.add(previousPhaseDone);
+
+      for (Node node : phases.get(phase)) {
+        CompletableFuture<Void> ready;
+        if (node.usage.isKnown()) {
+          ready = CompletableFuture.allOf(
+              node.dependencies.stream()
+                  .map(it -> it.result)
+                  .toArray(CompletableFuture<?>[]::new)
+          );
+        } else {
+          ready = previousPhaseDone;
+        }
+        node.result = ready.thenApplyAsync(ignored -> render(node, session), scheduler);
+
+        phaseResults.add(node.result);
+        allResults.add(node.result);
+      }
+      phasesDone.add(CompletableFuture.allOf(phaseResults.toArray(new CompletableFuture<?>[0])));
+
+      if (phaseEvents != null) {
+        PhaseEvent event = phaseEvents[phase];
+        String name = phaseNames.get(phase);
+        int targets = phases.get(phase).size();
+        phasesDone.get(phase).whenComplete((ignored, error) -> event.finished(name, targets));
+      }
+    }
+
+    try {
+      CompletableFuture.allOf(allResults.toArray(new CompletableFuture<?>[0])).join();
+    } catch (CompletionException ignored) {
+      // Reported in phase order below
+    }
+
+    for (int phase = 0; phase < phases.size(); phase++) {
+      startContexts.add(getPhaseStartContext(phase));
+      List<FileRenderedObject> renderedObjects = new ArrayList<>();
+      for (Node node : phases.get(phase)) {
+        renderedObjects.add(join(node.result).rendered);
+      }
+      results.add(renderedObjects);
+    }
+    return getPhaseStartContext(phases.size());
+  }
+
+  private NodeResult render(Node node, RenderSession session) {
+    RenderContext context = node.usage.isKnown()
+        ? contextFor(node)
+        : getPhaseStartContext(node.phase);
+
+    if (phaseEvents != null) {
+      phaseEvents[node.phase].started();
+    }
+    TargetRenderEvent event = JfrEvents.startTargetRender();
+    Span span = Profiler.getProfiler().start();
+
+    Pair<FileRenderedObject, RenderContext> rendered = node.target.render(context, session);
+
+    span.end(
+        Category.TARGET,
+        rendered.getFirst().getTargetPath().toString(),
+        phaseNames.get(node.phase)
+    );
+    if (event != null) {
+      event.finished(phaseNames.get(node.phase), rendered.getFirst());
+    }
+    return new NodeResult(rendered.getFirst(), context, rendered.getSecond());
+  }
+
+  /**
+   * Merges the results of a phase in the same way a {@link
+   * de.ialistannen.configurator.phases.MultiTargetRenderer} does.
+   *
+   * @param phaseStart the context the phase started with
+   * @param nodes the rendered nodes of the phase
+   * @return the context after the phase
+   */
+  private RenderContext mergePhase(RenderContext phaseStart, List<Node> nodes) {
+    List<ContextDelta> deltas = new ArrayList<>(nodes.size());
+    for (Node node : nodes) {
+      deltas.add(join(node.result).getDelta());
+    }
+    return ContextDelta.mergeAll(phaseStart, deltas);
+  }
+
+  /**
+   * Returns the full context a phase starts with. All targets of earlier phases must be rendered.
+   *
+   * @param phase the phase
+   * @return the context the phase starts with
+   */
+  private synchronized RenderContext getPhaseStartContext(int phase) {
+    while (phaseStartContexts.size() <= phase) {
+      int previousPhase = phaseStartContexts.size() - 1;
+      phaseStartContexts.add(
+          mergePhase(phaseStartContexts.get(previousPhase), phases.get(previousPhase))
+      );
+    }
+    return phaseStartContexts.get(phase);
+  }
+
+  /**
+   * Builds a context that agrees with the start context of the node's phase on every value and
+   * action the node uses. All dependencies of the node must be rendered.
+   *
+   * @param node the node to build the context for
+   * @return the context to render the node with
+   */
+  private RenderContext contextFor(Node node) {
+    if (node.phase == 0) {
+      return startContext;
+    }
+    CompletableFuture<Void> previousPhasesDone = phasesDone.get(node.phase - 1);
+    if (previousPhasesDone.isDone() && !previousPhasesDone.isCompletedExceptionally()) {
+      return getPhaseStartContext(node.phase);
+    }
+
+    RenderContext context = startContext;
+
+    for (String name : node.usedValues) {
+      Pair<Boolean, Object> entry = valueAtStart(node.phase, name);
+      if (entry.getFirst() && !Objects.equals(entry.getSecond(), startContext.getValue(name))) {
+        context = context.storeValue(name, entry.getSecond());
+      }
+    }
+
+    for (String name : node.usage.getWrittenActions()) {
+      Pair<Boolean, Object> entry = actionAtStart(node.phase, name);
+      if (entry.getFirst() && !Objects.equals(entry.getSecond(), startContext.getAction(name))) {
+        context = context.storeAction((RenderedAction) entry.getSecond());
+      }
+    }
+
+    return context;
+  }
+
+  private Pair<Boolean, Object> valueAtStart(int phase, String name) {
+    if (phase == 0) {
+      Object value = startContext.getValue(name);
+      return new Pair<>(value != null, value);
+    }
+    return phaseStartValues.get(phase).computeIfAbsent(name, ignored -> {
+      Pair<Boolean, Object> previous = valueAtStart(phase - 1, name);
+      return mergedEntry(
+          phases.get(phase - 1), previous.getFirst(), previous.getSecond(),
+          it -> it.usage.mightWriteValue(name),
+          result -> result.getChangedValue(name)
+      );
+    });
+  }
+
+  private Pair<Boolean, Object> actionAtStart(int phase, String name) {
+    if (phase == 0) {
+      RenderedAction action = startContext.getAction(name);
+      return new Pair<>(action != null, action);
+    }
+    return phaseStartActions.get(phase).computeIfAbsent(name, ignored -> {
+      Pair<Boolean, Object> previous = actionAtStart(phase - 1, name);
+      return mergedEntry(
+          phases.get(phase - 1), previous.getFirst(), previous.getSecond(),
+          it -> it.usage.mightWriteAction(name),
+          result -> result.getChangedAction(name)
+      );
+    });
+  }
+
+  /**
+   * Computes a single entry of the context after a phase, following the rules of {@link
+   * RenderContext#merge(RenderContext)}: Every target's result contains all entries the phase
+   * started with, so for those the last target wins. Entries that are new in the phase are taken
+   * from the last target that stored them.
+   *
+   * @param nodes the nodes of the phase
+   * @param present whether the entry exists at the start of the phase
+   * @param value the value at the start of the phase
+   * @param mightWrite whether a node might store the entry
+   * @param changed extracts the entry from a result if the node changed it, null otherwise
+   * @return whether the entry exists after the phase and its value
+   */
+  private static Pair<Boolean, Object> mergedEntry(List<Node> nodes, boolean present,
+      Object value, Predicate<Node> mightWrite, Function<NodeResult, Object> changed) {
+    if (nodes.isEmpty()) {
+      return new Pair<>(present, value);
+    }
+
+    if (present) {
+      Node last = nodes.get(nodes.size() - 1);
+      if (mightWrite.test(last)) {
+        Object changedValue = changed.apply(join(last.result));
+        if (changedValue != null) {
+          return new Pair<>(true, changedValue);
+        }
+      }
+      return new Pair<>(true, value);
+    }
+
+    for (int i = nodes.size() - 1; i >= 0; i--) {
+      Node node = nodes.get(i);
+      if (!mightWrite.test(node)) {
+        continue;
+      }
+      Object changedValue = changed.apply(join(node.result));
+      if (changedValue != null) {
+        return new Pair<>(true, changedValue);
+      }
+    }
+    return new Pair<>(false, null);
+  }
+
+  private static <T> T join(CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
+  /**
+   * A single target in the graph.
+   */
+  private static class Node {
+
+    private final int phase;
+    private final RenderTarget<FileRenderedObject> target;
+    private final ContextUsage usage;
+    private final Set<String> usedValues;
+    private final Set<Node> dependencies;
+    private CompletableFuture<NodeResult> result;
+
+    Node(int phase, RenderTarget<FileRenderedObject> target, ContextUsage usage) {
+      this.phase = phase;
+      this.target = target;
+      this.usage = usage;
+      this.usedValues = usage.getUsedValues();
+      this.dependencies = new LinkedHashSet<>();
+    }
+  }
+
+  /**
+   * The result of rendering a single target.
+   */
+  private static class NodeResult {
+
+    private final FileRenderedObject rendered;
+    private final RenderContext before;
+    private final RenderContext after;
+
+    NodeResult(FileRenderedObject rendered, RenderContext before, RenderContext after) {
+      this.rendered = rendered;
+      this.before = before;
+      this.after = after;
+    }
+
+    /**
+     * Returns the changes the target made to the context it was rendered with. Applied to the
+     * context of its phase, they give the context the target would have produced with it.
+     *
+     * @return the changes of the target
+     */
+    ContextDelta getDelta() {
+      return ContextDelta.between(before, after);
+    }
+
+    Object getChangedValue(String name) {
+      Object value = after.getValue(name);
+      return Objects.equals(value, before.getValue(name)) ? null : value;
+    }
+
+    RenderedAction getChangedAction(String name) {
+      RenderedAction action = after.getAction(name);
+      return Objects.equals(action, before.getAction(name)) ? null : action;
+    }
+  }
+}
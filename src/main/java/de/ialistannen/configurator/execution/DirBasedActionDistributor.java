@@ -2,6 +2,7 @@ package de.ialistannen.configurator.execution;
 
 import static de.ialistannen.configurator.output.ColoredOutput.colorOut;
 import static de.ialistannen.configurator.output.TerminalColor.BRIGHT_MAGENTA;
+import static de.ialistannen.configurator.output.TerminalColor.DIM;
 import static de.ialistannen.configurator.output.TerminalColor.GRAY;
 import static de.ialistannen.configurator.output.TerminalColor.GREEN;
 import static de.ialistannen.configurator.output.TerminalColor.MAGENTA;
@@ -12,32 +13,68 @@ import de.ialistannen.configurator.exception.DistributionException;
 import de.ialistannen.configurator.execution.inbuiltactions.InbuiltAction;
 import de.ialistannen.configurator.execution.inbuiltactions.ReloadAction;
 import de.ialistannen.configurator.execution.inbuiltactions.RunAllAction;
+import de.ialistannen.configurator.profiling.Category;
+import de.ialistannen.configurator.profiling.FileWriteEvent;
+import de.ialistannen.configurator.profiling.JfrEvents;
+import de.ialistannen.configurator.profiling.Profiler;
+import de.ialistannen.configurator.profiling.Span;
 import de.ialistannen.configurator.util.FileUtils;
+import de.ialistannen.configurator.util.FileUtils.WriteResult;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFileAttributes;
 import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
 import lombok.RequiredArgsConstructor;
 
 /**
  * Distributes the actions into their own files.
+ *
+ * <p>The actions dir is reconciled with the rendered actions: unchanged actions are not touched and
+ * actions that were not rendered are deleted, unless the actions dir should be preserved.</p>
  */
 @RequiredArgsConstructor
 public class DirBasedActionDistributor implements ActionDistributor {
 
   private static final String BASE_DIR_KEY = "actions_dir";
+  /**
+   * The permissions new actions are created with, before the umask is applied.
+   */
+  private static final Set<PosixFilePermission> CREATE_PERMISSIONS = PosixFilePermissions
+      .fromString("rwxr--r--");
 
   private final boolean dry;
   private final boolean printFileContents;
   private final boolean preserveActionsDir;
+  private final Executor ioExecutor;
+
+  /**
+   * Creates a new action distributor that writes one action after another.
+   *
+   * @param dry whether to only print what would be done
+   * @param printFileContents whether to print the action contents in dry mode
+   * @param preserveActionsDir whether to keep actions that were not rendered
+   */
+  public DirBasedActionDistributor(boolean dry, boolean printFileContents,
+      boolean preserveActionsDir) {
+    this(dry, printFileContents, preserveActionsDir, ParallelIo.SERIAL);
+  }
 
   @Override
   public void distributeActions(RenderContext context) throws DistributionException {
@@ -48,16 +85,24 @@ public class DirBasedActionDistributor implements ActionDistributor {
         .orElseThrow(() -> new RuntimeException("Could not find '$" + BASE_DIR_KEY));
     Path baseDir = Paths.get(dir);
     try {
-      if (!preserveActionsDir) {
-        FileUtils.deleteDirectory(baseDir, dry);
-      }
       distribute(addInbuiltActions(context, baseDir), baseDir);
     } catch (IOException e) {
       throw new DistributionException("Error distributing actions", e);
     }
   }
 
-  private void distribute(RenderContext context, Path baseDir) throws IOException {
+  /**
+   * Brings the actions dir in sync with the actions in the context. Only new or changed actions
+   * are written and only actions that no longer exist are deleted, so the directory never
+   * disappears while it is in use.
+   *
+   * @param context the context containing the actions
+   * @param baseDir the actions dir
+   * @throws IOException if an error occurs
+   * @throws DistributionException containing every action that could not be written
+   */
+  private void distribute(RenderContext context, Path baseDir)
+      throws IOException, DistributionException {
     if (Files.notExists(baseDir)) {
       if (!dry) {
         Files.createDirectories(baseDir);
@@ -73,23 +118,131 @@ public class DirBasedActionDistributor implements ActionDistributor {
     List<RenderedAction> actions = new ArrayList<>(context.getAllActions());
     actions.addAll(context.getAllReloadActions());
 
+    Map<Path, RenderedAction> desiredActions = new LinkedHashMap<>();
     for (RenderedAction action : actions) {
-      Path actionPath = resolveActionPath(baseDir, action);
-      String content = action.getContent();
+      desiredActions.put(resolveActionPath(baseDir, action), action);
+    }
 
-      if (!dry) {
-        Files.write(actionPath, content.getBytes(StandardCharsets.UTF_8));
-        makeExecutable(actionPath);
-      } else {
-        colorOut(
-            MAGENTA + "Writing " + GREEN + action.getName()
-                + MAGENTA + " to " + GREEN + actionPath.toAbsolutePath()
-        );
-        if (printFileContents) {
-          colorOut(GRAY + content);
+    List<WriteResult> results = ParallelIo.applyAll(
+        ioExecutor,
+        new ArrayList<>(desiredActions.entrySet()),
+        entry -> writeAction(entry.getKey(), entry.getValue()),
+        entry -> "Error writing action '" + entry.getValue().getName() + "'",
+        "Error writing actions"
+    );
+
+    Map<WriteResult, Integer> counts = new EnumMap<>(WriteResult.class);
+    for (WriteResult result : WriteResult.values()) {
+      counts.put(result, 0);
+    }
+    int index = 0;
+    for (Entry<Path, RenderedAction> entry : desiredActions.entrySet()) {
+      WriteResult result = results.get(index++);
+      counts.merge(result, 1, Integer::sum);
+      if (dry) {
+        printDryResult(entry.getKey(), entry.getValue(), result);
+      }
+    }
+
+    int deleted = 0;
+    if (!preserveActionsDir && Files.isDirectory(baseDir)) {
+      deleted = deleteStaleActions(baseDir, desiredActions.keySet());
+    }
+
+    colorOut(
+        BRIGHT_MAGENTA + "Actions: "
+            + GREEN + counts.get(WriteResult.UNCHANGED) + MAGENTA + " unchanged, "
+            + GREEN + counts.get(WriteResult.CHANGED) + MAGENTA + " changed, "
+            + GREEN + counts.get(WriteResult.CREATED) + MAGENTA + " created, "
+            + GREEN + deleted + MAGENTA + " deleted"
+    );
+  }
+
+  private WriteResult writeAction(Path actionPath, RenderedAction action) throws IOException {
+    FileWriteEvent event = JfrEvents.startFileWrite();
+    Span span = Profiler.getProfiler().start();
+
+    WriteResult result = write(actionPath, action);
+
+    span.end(Category.WRITE, actionPath.toString());
+    if (event != null) {
+      event.finished(actionPath.toString(), action.getContent().length(), result.name());
+    }
+    return result;
+  }
+
+  private WriteResult write(Path actionPath, RenderedAction action) throws IOException {
+    byte[] content = action.getContent().getBytes(StandardCharsets.UTF_8);
+    WriteResult result = WriteResult.CREATED;
+    Set<PosixFilePermission> permissions = null;
+
+    if (Files.isDirectory(actionPath, LinkOption.NOFOLLOW_LINKS)) {
+      FileUtils.deleteDirectory(actionPath, dry);
+    } else if (Files.exists(actionPath, LinkOption.NOFOLLOW_LINKS)) {
+      PosixFileAttributes attributes = Files.readAttributes(
+          actionPath, PosixFileAttributes.class, LinkOption.NOFOLLOW_LINKS
+      );
+      permissions = attributes.permissions();
+      boolean executable = permissions.contains(PosixFilePermission.OWNER_EXECUTE);
+
+      if (attributes.isRegularFile() && attributes.size() == content.length
+          && FileUtils.contentEquals(actionPath, content)) {
+        if (!executable && !dry) {
+          makeExecutable(actionPath, permissions);
         }
+        return WriteResult.UNCHANGED;
+      }
+      result = WriteResult.CHANGED;
+      if (!attributes.isRegularFile()) {
+        permissions = null;
+      } else if (!executable) {
+        permissions = new HashSet<>(permissions);
+        permissions.add(PosixFilePermission.OWNER_EXECUTE);
+      }
+    }
+
+    if (!dry) {
+      FileUtils.writeAtomically(
+          actionPath, content, permissions, permissions == null ? CREATE_PERMISSIONS : null
+      );
+    }
+    return result;
+  }
+
+  private void printDryResult(Path actionPath, RenderedAction action, WriteResult result) {
+    if (result == WriteResult.UNCHANGED) {
+      colorOut(DIM + "Unchanged action " + action.getName());
+      return;
+    }
+    colorOut(
+        MAGENTA + "Writing " + GREEN + action.getName()
+            + MAGENTA + " to " + GREEN + actionPath.toAbsolutePath()
+    );
+    if (printFileContents) {
+      colorOut(GRAY + action.getContent());
+    }
+  }
+
+  private int deleteStaleActions(Path baseDir, Set<Path> desiredActions) throws IOException {
+    List<Path> staleEntries = new ArrayList<>();
+    try (DirectoryStream<Path> entries = Files.newDirectoryStream(baseDir)) {
+      for (Path entry : entries) {
+        if (!desiredActions.contains(entry)) {
+          staleEntries.add(entry);
+        }
+      }
+    }
+
+    for (Path entry : staleEntries) {
+      if (Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS)) {
+        FileUtils.deleteDirectory(entry, dry);
+      } else if (!dry) {
+        Files.deleteIfExists(entry);
+      } else {
+        colorOut(BRIGHT_MAGENTA + "Deleting file " + GREEN + entry.toAbsolutePath());
       }
     }
+    return staleEntries.size();
   }
 
   private RenderContext addInbuiltActions(RenderContext context, Path baseDir) {
@@ -113,10 +266,11 @@ public class DirBasedActionDistributor implements ActionDistributor {
     return baseDir.resolve(action.getSanitizedName());
   }
 
-  private void makeExecutable(Path path) throws IOException {
-    Set<PosixFilePermission> existingPerms = new HashSet<>(Files.getPosixFilePermissions(path));
-    existingPerms.add(PosixFilePermission.OWNER_EXECUTE);
+  private void makeExecutable(Path path, Set<PosixFilePermission> existingPerms)
+      throws IOException {
+    Set<PosixFilePermission> permissions = new HashSet<>(existingPerms);
+    permissions.add(PosixFilePermission.OWNER_EXECUTE);
 
-    Files.setPosixFilePermissions(path, existingPerms);
+    Files.setPosixFilePermissions(path, permissions);
   }
 }
@@ -2,58 +2,149 @@ package de.ialistannen.configurator.execution;
 
 import static de.ialistannen.configurator.output.ColoredOutput.colorOut;
 import static de.ialistannen.configurator.output.TerminalColor.BRIGHT_MAGENTA;
+import static de.ialistannen.configurator.output.TerminalColor.DIM;
 import static de.ialistannen.configurator.output.TerminalColor.GRAY;
 import static de.ialistannen.configurator.output.TerminalColor.GREEN;
 import static de.ialistannen.configurator.output.TerminalColor.MAGENTA;
 
 import de.ialistannen.configurator.exception.DistributionException;
+import de.ialistannen.configurator.profiling.Category;
+import de.ialistannen.configurator.profiling.FileWriteEvent;
+import de.ialistannen.configurator.profiling.JfrEvents;
+import de.ialistannen.configurator.profiling.Profiler;
+import de.ialistannen.configurator.profiling.Span;
 import de.ialistannen.configurator.rendering.FileRenderedObject;
+import de.ialistannen.configurator.util.FileUtils;
+import de.ialistannen.configurator.util.FileUtils.WriteResult;
+import de.ialistannen.configurator.util.Pair;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
 import lombok.RequiredArgsConstructor;
 
 /**
  * Distributes all rendered objects into their assigned place.
+ *
+ * <p>Files that already have the rendered content are not touched, so their modification time
+ * stays the same. All other files are replaced atomically.</p>
+ *
+ * <p>Files are written concurrently on an I/O executor, which should be bounded so a slow disk is
+ * not flooded with requests.</p>
  */
 @RequiredArgsConstructor
 public class FileSystemFileDistributor implements FileDistributor {
 
   private final boolean dry;
   private final boolean printFileContents;
+  private final Executor ioExecutor;
 
+  /**
+   * Creates a new file distributor that writes one file after another.
+   *
+   * @param dry whether to only print what would be done
+   * @param printFileContents whether to print the file contents in dry mode
+   */
+  public FileSystemFileDistributor(boolean dry, boolean printFileContents) {
+    this(dry, printFileContents, ParallelIo.SERIAL);
+  }
+
+  /**
+   * Writes all files concurrently on the I/O executor. Every parent directory is created once,
+   * before any file is written. If a file is targeted by multiple objects, the last one wins.
+   *
+   * @param renderedObjects the rendered objects
+   * @throws DistributionException containing every file that could not be written
+   */
   @Override
   public void distributeFiles(List<FileRenderedObject> renderedObjects)
       throws DistributionException {
+    Map<Path, FileRenderedObject> objectsByPath = new LinkedHashMap<>();
     for (FileRenderedObject object : renderedObjects) {
-      writeObject(object);
+      objectsByPath.remove(object.getTargetPath());
+      objectsByPath.put(object.getTargetPath(), object);
     }
-  }
+    List<FileRenderedObject> objects = new ArrayList<>(objectsByPath.values());
 
-  private void writeObject(FileRenderedObject object) throws DistributionException {
-    try {
-      Path parentDir = object.getTargetPath().getParent();
-      if (Files.notExists(parentDir)) {
-        if (!dry) {
-          Files.createDirectories(parentDir);
-        } else {
-          colorOut(BRIGHT_MAGENTA + "Creating dir " + GREEN + parentDir.toAbsolutePath());
-        }
+    createParentDirs(objects);
+
+    List<Pair<FileRenderedObject, WriteResult>> results = ParallelIo.applyAll(
+        ioExecutor,
+        objects,
+        object -> new Pair<>(object, writeObject(object)),
+        object -> "Error writing file '" + object.getTargetPath() + "'",
+        "Error writing files"
+    );
+
+    Map<WriteResult, Integer> counts = new EnumMap<>(WriteResult.class);
+    for (WriteResult result : WriteResult.values()) {
+      counts.put(result, 0);
+    }
+    for (Pair<FileRenderedObject, WriteResult> result : results) {
+      counts.merge(result.getSecond(), 1, Integer::sum);
+      if (dry) {
+        printDryResult(result.getFirst(), result.getSecond());
       }
-      String content = object.getContent().asString();
-
-      if (!dry) {
-        Files.write(object.getTargetPath(), content.getBytes(StandardCharsets.UTF_8));
-      } else {
-        colorOut(MAGENTA + "Writing file to " + GREEN + object.getTargetPath());
-        if (printFileContents) {
-          colorOut(GRAY + object.getContent().asString());
+    }
+
+    colorOut(
+        BRIGHT_MAGENTA + "Files: "
+            + GREEN + counts.get(WriteResult.UNCHANGED) + MAGENTA + " unchanged, "
+            + GREEN + counts.get(WriteResult.CHANGED) + MAGENTA + " changed, "
+            + GREEN + counts.get(WriteResult.CREATED) + MAGENTA + " created"
+    );
+  }
+
+  private void createParentDirs(List<FileRenderedObject> objects) throws DistributionException {
+    Set<Path> parentDirs = new LinkedHashSet<>();
+    for (FileRenderedObject object : objects) {
+      parentDirs.add(object.getTargetPath().toAbsolutePath().getParent());
+    }
+
+    for (Path parentDir : parentDirs) {
+      try {
+        if (Files.notExists(parentDir)) {
+          if (!dry) {
+            Files.createDirectories(parentDir);
+          } else {
+            colorOut(BRIGHT_MAGENTA + "Creating dir " + GREEN + parentDir);
+          }
         }
+      } catch (IOException e) {
+        throw new DistributionException("Error creating dir '" + parentDir + "'", e);
       }
-    } catch (IOException e) {
-      throw new DistributionException("Error writing file", e);
+    }
+  }
+
+  private WriteResult writeObject(FileRenderedObject object) throws IOException {
+    FileWriteEvent event = JfrEvents.startFileWrite();
+    Span span = Profiler.getProfiler().start();
+    byte[] content = object.asUtf8Bytes();
+
+    WriteResult result = FileUtils.writeIfChanged(object.getTargetPath(), content, dry);
+
+    span.end(Category.WRITE, object.getTargetPath().toString());
+    if (event != null) {
+      event.finished(object.getTargetPath().toString(), content.length, result.name());
+    }
+    return result;
+  }
+
+  private void printDryResult(FileRenderedObject object, WriteResult result) {
+    if (result == WriteResult.UNCHANGED) {
+      colorOut(DIM + "Unchanged file " + object.getTargetPath());
+    } else {
+      colorOut(MAGENTA + "Writing file to " + GREEN + object.getTargetPath());
+    }
+    if (printFileContents) {
+      colorOut(GRAY + object.getContent().asString());
     }
   }
 }
@@ -0,0 +1,110 @@
+package de.ialistannen.configurator.execution;
+
+import de.ialistannen.configurator.exception.DistributionException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Runs the I/O of the distributors on a bounded pool.
+ */
+public class ParallelIo {
+
+  /**
+   * The default amount of threads writing files at the same time.
+   */
+  public static final int DEFAULT_THREADS = Math.max(
+      4, 2 * Runtime.getRuntime().availableProcessors()
+  );
+
+  /**
+   * An executor that runs everything in the calling thread.
+   */
+  static final Executor SERIAL = Runnable::run;
+
+  /**
+   * Creates a new pool for distributing files.
+   *
+   * @param threads the maximum amount of threads writing files at the same time
+   * @return the created pool
+   */
+  public static ExecutorService newExecutor(int threads) {
+    return Executors.newFixedThreadPool(threads, r -> {
+      Thread thread = new Thread(r, "DistributionWorker");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Applies a function to all items concurrently. Every item is processed, even if some fail.
+   *
+   * @param executor the executor to run the function on
+   * @param items the items to process
+   * @param function the function to apply
+   * @param describer describes an item in error messages
+   * @param errorMessage the message of the exception thrown if any item fails
+   * @param <T> the type of the items
+   * @param <R> the type of the results
+   * @return the results in the order of the items
+   * @throws DistributionException containing all failures, if any item failed
+   */
+  static <T, R> List<R> applyAll(Executor executor, List<T> items, IoFunction<T, R> function,
+      Function<T, String> describer, String errorMessage) throws DistributionException {
+    List<CompletableFuture<R>> futures = new ArrayList<>();
+    for (T item : items) {
+      futures.add(CompletableFuture.supplyAsync(() -> {
+        try {
+          return function.apply(item);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }, executor));
+    }
+
+    List<R> results = new ArrayList<>();
+    List<DistributionException> failures = new ArrayList<>();
+    for (int i = 0; i < futures.size(); i++) {
+      try {
+        results.add(futures.get(i).join());
+      } catch (CompletionException e) {
+        if (!(e.getCause() instanceof UncheckedIOException)) {
+          throw e;
+        }
+        failures.add(new DistributionException(
+            describer.apply(items.get(i)), e.getCause().getCause()
+        ));
+      }
+    }
+
+    if (!failures.isEmpty()) {
+      throw DistributionException.aggregate(errorMessage, failures);
+    }
+    return results;
+  }
+
+  /**
+   * A function performing I/O.
+   *
+   * @param <T> the type of the input
+   * @param <R> the type of the result
+   */
+  interface IoFunction<T, R> {
+
+    /**
+     * Applies this function.
+     *
+     * @param input the input
+     * @return the result
+     * @throws IOException if an error occurs
+     */
+    R apply(T input) throws IOException;
+  }
+}
@@ -7,6 +7,7 @@ import static de.ialistannen.configurator.output.TerminalColor.GRAY;
 import static de.ialistannen.configurator.output.TerminalColor.GREEN;
 
 import de.ialistannen.configurator.context.RenderContext;
+import de.ialistannen.configurator.util.Deadline;
 import de.ialistannen.configurator.util.ProcessUtils;
 import lombok.RequiredArgsConstructor;
 
@@ -22,15 +23,17 @@ public class PostActionRunner {
 
   /**
    * Runs all post actions. Actions will be run in a random order, but the phase ordering is still
-   * respected.
+   * respected. All scripts share a single run deadline.
    *
    * @param context the context
    */
   public void run(RenderContext context) {
+    Deadline runDeadline = ProcessUtils.getExecutor().newRunDeadline();
+
     for (String script : context.getAllPostScripts()) {
       if (!dry) {
         colorOut(BRIGHT_MAGENTA + "Running " + GREEN + abbreviate(script));
-        ProcessUtils.runAsFileWithShell(script);
+        ProcessUtils.runAsFileWithShell(script, runDeadline);
       } else {
         colorOut(BRIGHT_MAGENTA + "Would run " + DIM + GRAY + abbreviateIfNeeded(script));
       }
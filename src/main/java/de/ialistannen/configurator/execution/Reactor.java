@@ -4,29 +4,62 @@ import de.ialistannen.configurator.context.RenderContext;
 import de.ialistannen.configurator.phases.MultiTargetRenderer;
 import de.ialistannen.configurator.phases.Phase;
 import de.ialistannen.configurator.rendering.FileRenderedObject;
+import de.ialistannen.configurator.rendering.RenderScheduler;
+import de.ialistannen.configurator.rendering.RenderSession;
+import de.ialistannen.configurator.rendering.RenderTarget;
 import de.ialistannen.configurator.util.Pair;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 
 /**
  * Manages rendering the phases in the correct order.
+ *
+ * <p>Targets are not held back by phase barriers: every target is rendered as soon as the values
+ * and actions it uses are final, see {@link DependencyGraphRenderer}. The results are the same as
+ * if the phases had been rendered one after another.</p>
+ *
+ * <p>The reactor remembers the context each phase started with and what it rendered, so it can
+ * render again starting at any phase.</p>
+ *
+ * <p>The reactor owns the scheduler all phases are rendered on and shuts it down in
+ * {@link #shutdown()}.</p>
  */
 public class Reactor {
 
   private final List<Phase> phases;
   private final Map<String, MultiTargetRenderer> targets;
+  private final List<RenderContext> phaseStartContexts;
+  private final List<List<FileRenderedObject>> phaseResults;
+  private final RenderScheduler scheduler;
+  private RenderContext finalContext;
 
   /**
-   * Creates a new reactor.
+   * Creates a new reactor rendering on a fixed pool with one thread per processor.
    *
    * @param phases the phases to render
    * @param targets the available render targets
    */
   public Reactor(List<Phase> phases, Map<String, MultiTargetRenderer> targets) {
+    this(phases, targets, RenderScheduler.createDefault());
+  }
+
+  /**
+   * Creates a new reactor.
+   *
+   * @param phases the phases to render
+   * @param targets the available render targets
+   * @param scheduler the scheduler to render on. It is owned by the reactor from now on.
+   */
+  public Reactor(List<Phase> phases, Map<String, MultiTargetRenderer> targets,
+      RenderScheduler scheduler) {
     this.phases = new ArrayList<>(phases);
     this.targets = new HashMap<>(targets);
+    this.phaseStartContexts = new ArrayList<>();
+    this.phaseResults = new ArrayList<>();
+    this.scheduler = scheduler;
   }
 
   /**
@@ -36,21 +69,82 @@ public class Reactor {
    * @return the resulting rendered objects and the new context
    */
   public Pair<List<FileRenderedObject>, RenderContext> renderAll(RenderContext context) {
-    List<FileRenderedObject> renderedObjects = new ArrayList<>();
+    phaseStartContexts.clear();
+    phaseResults.clear();
+
+    return renderFrom(0, context, new RenderSession());
+  }
+
+  /**
+   * Replaces the targets of some phases and renders again, starting with the first phase whose
+   * targets changed or that failed to render. The phases before it are not rendered again.
+   *
+   * <p>{@link #renderAll(RenderContext)} must have been called before.</p>
+   *
+   * @param changedTargets the new renderers for all changed phases
+   * @return the resulting rendered objects and the new context
+   */
+  public Pair<List<FileRenderedObject>, RenderContext> rerender(
+      Map<String, MultiTargetRenderer> changedTargets) {
+    if (phaseStartContexts.isEmpty()) {
+      throw new IllegalStateException("Nothing was rendered yet");
+    }
+    int firstChangedPhase = phases.size();
+    for (Entry<String, MultiTargetRenderer> entry : changedTargets.entrySet()) {
+      targets.put(entry.getKey(), entry.getValue());
+
+      for (int i = 0; i < phases.size(); i++) {
+        if (phases.get(i).identifier().equals(entry.getKey())) {
+          firstChangedPhase = Math.min(firstChangedPhase, i);
+        }
+      }
+    }
+
+    // A phase might have failed to render last time
+    firstChangedPhase = Math.min(firstChangedPhase, phaseResults.size());
+
+    if (firstChangedPhase == phases.size()) {
+      return new Pair<>(collectRenderedObjects(), finalContext);
+    }
+
+    RenderContext startContext = phaseStartContexts.get(firstChangedPhase);
+    phaseStartContexts.subList(firstChangedPhase, phaseStartContexts.size()).clear();
+    phaseResults.subList(firstChangedPhase, phaseResults.size()).clear();
+
+    return renderFrom(firstChangedPhase, startContext, new RenderSession());
+  }
 
-    RenderContext currentContext = context;
+  /**
+   * Shuts down the scheduler. The reactor can not render anything afterwards.
+   */
+  public void shutdown() {
+    scheduler.shutdown();
+  }
 
-    for (Phase phase : phases) {
+  private Pair<List<FileRenderedObject>, RenderContext> renderFrom(int firstPhase,
+      RenderContext context, RenderSession session) {
+    List<String> phaseNames = new ArrayList<>();
+    List<List<RenderTarget<FileRenderedObject>>> phaseTargets = new ArrayList<>();
+    for (Phase phase : phases.subList(firstPhase, phases.size())) {
+      phaseNames.add(phase.identifier());
       MultiTargetRenderer renderer = targets.getOrDefault(
           phase.identifier(),
           MultiTargetRenderer.NOP_RENDERER
       );
-      Pair<List<FileRenderedObject>, RenderContext> result = renderer.render(currentContext);
-
-      renderedObjects.addAll(result.getFirst());
-      currentContext = result.getSecond();
+      phaseTargets.add(renderer.getTargets());
     }
 
-    return new Pair<>(renderedObjects, currentContext);
+    finalContext = new DependencyGraphRenderer(phaseNames, phaseTargets, context)
+        .render(session, scheduler, phaseStartContexts, phaseResults);
+
+    return new Pair<>(collectRenderedObjects(), finalContext);
+  }
+
+  private List<FileRenderedObject> collectRenderedObjects() {
+    List<FileRenderedObject> renderedObjects = new ArrayList<>();
+    for (List<FileRenderedObject> phaseResult : phaseResults) {
+      renderedObjects.addAll(phaseResult);
+    }
+    return renderedObjects;
   }
 }
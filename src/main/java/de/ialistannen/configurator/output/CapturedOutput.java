@@ -0,0 +1,38 @@
+package de.ialistannen.configurator.output;
+
+import de.ialistannen.configurator.util.Pair;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Output that was printed while {@link ColoredOutput#startCapture() capturing}, so it can be shown
+ * later, in one piece.
+ */
+public class CapturedOutput {
+
+  private final List<Pair<PrintStream, String>> lines;
+
+  CapturedOutput() {
+    this.lines = new ArrayList<>();
+  }
+
+  /**
+   * Adds a line.
+   *
+   * @param stream the stream the line was printed to
+   * @param line the line
+   */
+  void add(PrintStream stream, String line) {
+    lines.add(new Pair<>(stream, line));
+  }
+
+  /**
+   * Prints all captured lines to the streams they were originally printed to.
+   */
+  public void replay() {
+    for (Pair<PrintStream, String> line : lines) {
+      line.getFirst().println(line.getSecond());
+    }
+  }
+}
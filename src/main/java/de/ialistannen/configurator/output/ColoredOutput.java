@@ -11,6 +11,8 @@ public class ColoredOutput {
   @Setter
   private static boolean stripColour;
 
+  private static final ThreadLocal<CapturedOutput> CAPTURED = new ThreadLocal<>();
+
   /**
    * Prints a colored string.
    *
@@ -29,6 +31,25 @@ public class ColoredOutput {
     print(content, System.err);
   }
 
+  /**
+   * Captures everything the current thread prints from now on, instead of printing it. Useful when
+   * working concurrently, as the output of different threads would be mixed otherwise.
+   *
+   * @return the captured output
+   */
+  public static CapturedOutput startCapture() {
+    CapturedOutput output = new CapturedOutput();
+    CAPTURED.set(output);
+    return output;
+  }
+
+  /**
+   * Stops capturing the output of the current thread.
+   */
+  public static void stopCapture() {
+    CAPTURED.remove();
+  }
+
   private static void print(String content, PrintStream out) {
     String result = content;
     if (stripColour) {
@@ -39,6 +60,11 @@ public class ColoredOutput {
       result = result + TerminalColor.RESET;
     }
 
-    out.println(result);
+    CapturedOutput captured = CAPTURED.get();
+    if (captured != null) {
+      captured.add(out, result);
+    } else {
+      out.println(result);
+    }
   }
 }
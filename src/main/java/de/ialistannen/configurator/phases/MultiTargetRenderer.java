@@ -1,21 +1,21 @@
 package de.ialistannen.configurator.phases;
 
+import de.ialistannen.configurator.context.ContextDelta;
 import de.ialistannen.configurator.context.RenderContext;
 import de.ialistannen.configurator.rendering.FileRenderedObject;
+import de.ialistannen.configurator.rendering.RenderScheduler;
+import de.ialistannen.configurator.rendering.RenderSession;
 import de.ialistannen.configurator.rendering.RenderTarget;
 import de.ialistannen.configurator.util.Pair;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 /**
- * Renders multiple targets in succession.
+ * Renders multiple targets of a phase. The targets are rendered concurrently on the scheduler of
+ * the run.
  */
 public class MultiTargetRenderer {
 
@@ -26,8 +26,6 @@ public class MultiTargetRenderer {
       Collections.emptyList()
   );
 
-  private ExecutorService threadpool;
-
   private List<RenderTarget<FileRenderedObject>> targets;
 
   /**
@@ -37,14 +35,15 @@ public class MultiTargetRenderer {
    */
   public MultiTargetRenderer(List<? extends RenderTarget<FileRenderedObject>> targets) {
     this.targets = new ArrayList<>(targets);
-    this.threadpool = Executors.newFixedThreadPool(
-        Runtime.getRuntime().availableProcessors(),
-        r -> {
-          Thread thread = new Thread(r, "MultiRenderWorker");
-          thread.setDaemon(true);
-          return thread;
-        }
-    );
+  }
+
+  /**
+   * Returns the targets of this renderer.
+   *
+   * @return the targets in the order their results are merged in
+   */
+  public List<RenderTarget<FileRenderedObject>> getTargets() {
+    return Collections.unmodifiableList(targets);
   }
 
   /**
@@ -54,26 +53,43 @@ public class MultiTargetRenderer {
    * @return the rendered objects and the resulting context
    */
   public Pair<List<FileRenderedObject>, RenderContext> render(RenderContext context) {
+    RenderScheduler scheduler = RenderScheduler.createDefault();
+    try {
+      return render(context, new RenderSession(), scheduler);
+    } finally {
+      scheduler.shutdown();
+    }
+  }
+
+  /**
+   * Renders al objects.
+   *
+   * @param context the initial context
+   * @param session the session of the current run
+   * @param scheduler the scheduler to render the targets on
+   * @return the rendered objects and the resulting context
+   */
+  public Pair<List<FileRenderedObject>, RenderContext> render(RenderContext context,
+      RenderSession session, RenderScheduler scheduler) {
+    if (targets.isEmpty()) {
+      return new Pair<>(new ArrayList<>(), context);
+    }
     List<FileRenderedObject> renderedObjects = new ArrayList<>();
 
-    RenderContext currentContext = context;
-    try {
-      List<Future<Pair<FileRenderedObject, RenderContext>>> futures = threadpool.invokeAll(
-          targets.stream()
-              .map(target -> (Callable<Pair<FileRenderedObject, RenderContext>>)
-                  () -> target.render(context)
-              )
-              .collect(Collectors.toList())
-      );
-      for (Future<Pair<FileRenderedObject, RenderContext>> future : futures) {
-        Pair<FileRenderedObject, RenderContext> pair = future.get();
-        renderedObjects.add(pair.getFirst());
-        currentContext = pair.getSecond().merge(currentContext);
-      }
-    } catch (InterruptedException | ExecutionException e) {
-      throw new RuntimeException(e);
+    List<Pair<FileRenderedObject, RenderContext>> results = scheduler.invokeAll(
+        targets.stream()
+            .map(target -> (Callable<Pair<FileRenderedObject, RenderContext>>)
+                () -> target.render(context, session)
+            )
+            .collect(Collectors.toList())
+    );
+
+    List<ContextDelta> deltas = new ArrayList<>();
+    for (Pair<FileRenderedObject, RenderContext> pair : results) {
+      renderedObjects.add(pair.getFirst());
+      deltas.add(ContextDelta.between(context, pair.getSecond()));
     }
 
-    return new Pair<>(renderedObjects, currentContext);
+    return new Pair<>(renderedObjects, ContextDelta.mergeAll(context, deltas));
   }
 }
@@ -0,0 +1,16 @@
+package de.ialistannen.configurator.phases;
+
+import de.ialistannen.configurator.dsl.AstNode;
+import lombok.Data;
+
+/**
+ * The parsed contents of a single config file.
+ */
+@Data
+public class ParsedConfigFile {
+
+  private final String phaseName;
+  private final AstNode targetPath;
+  private final String commandPrefix;
+  private final AstNode body;
+}
@@ -2,13 +2,25 @@ package de.ialistannen.configurator.phases;
 
 import static de.ialistannen.configurator.output.ColoredOutput.colorOut;
 
+import de.ialistannen.configurator.cache.AstCache;
+import de.ialistannen.configurator.cache.RenderCache;
+import de.ialistannen.configurator.dsl.AstNode;
+import de.ialistannen.configurator.dsl.DslParser;
+import de.ialistannen.configurator.output.CapturedOutput;
+import de.ialistannen.configurator.output.ColoredOutput;
 import de.ialistannen.configurator.output.TerminalColor;
+import de.ialistannen.configurator.profiling.Category;
+import de.ialistannen.configurator.profiling.Profiler;
+import de.ialistannen.configurator.profiling.Span;
 import de.ialistannen.configurator.rendering.FileRenderTarget;
+import de.ialistannen.configurator.rendering.FileRenderedObject;
 import de.ialistannen.configurator.rendering.RenderTarget;
 import de.ialistannen.configurator.template.StringRenderTarget;
+import de.ialistannen.configurator.util.Pair;
 import de.ialistannen.configurator.util.ParseException;
 import de.ialistannen.configurator.util.StringReader;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -19,16 +31,57 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 
 /**
  * Collects file render targets for a phase.
+ *
+ * <p>Files are parsed on an executor while the folder is still being walked. The results, as well
+ * as the output of parsing them, are used in the order the files were found in, so the outcome
+ * does not depend on which file finishes parsing first.</p>
  */
 @RequiredArgsConstructor
 public class RenderTargetCollector {
 
+  private static final Pattern LINE_SEPARATOR = Pattern.compile("\r\n|\r|\n");
+
   private final boolean reportParseErrors;
+  private final AstCache astCache;
+  private final RenderCache renderCache;
+  private final Executor parseExecutor;
+
+  /**
+   * Creates a new render target collector that does not cache anything and parses in the calling
+   * thread.
+   *
+   * @param reportParseErrors whether to report parse errors
+   */
+  public RenderTargetCollector(boolean reportParseErrors) {
+    this(reportParseErrors, AstCache.DISABLED, RenderCache.DISABLED, Runnable::run);
+  }
+
+  /**
+   * Creates a new pool for parsing files.
+   *
+   * @param threads the maximum amount of files parsed at the same time
+   * @return the created pool
+   */
+  public static ExecutorService newParseExecutor(int threads) {
+    return Executors.newFixedThreadPool(threads, r -> {
+      Thread thread = new Thread(r, "ParseWorker");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
 
   /**
    * Collects all targets from a given folder (and subfolders).
@@ -38,49 +91,186 @@ public class RenderTargetCollector {
    * @throws IOException if an error occurs reading or processing the files
    */
   public Map<String, MultiTargetRenderer> collectTargets(Path start) throws IOException {
-    Map<String, List<FileRenderTarget>> renderTargets = new HashMap<>();
+    List<Path> files = new ArrayList<>();
+    List<CompletableFuture<LoadResult>> loads = new ArrayList<>();
 
-    Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+    walk(start, file -> {
+      files.add(file);
+      loads.add(submitLoad(file));
+    });
+
+    return groupByPhase(joinInOrder(files, loads));
+  }
 
+  /**
+   * Loads the render targets of multiple config files concurrently.
+   *
+   * @param files the files to load
+   * @return the phase and target of each file, in the order of the files
+   * @throws IOException if an error occurs reading or parsing a file. If multiple files fail, the
+   *     first one is reported.
+   */
+  public List<Pair<String, RenderTarget<FileRenderedObject>>> loadFiles(List<Path> files)
+      throws IOException {
+    List<CompletableFuture<LoadResult>> loads = new ArrayList<>();
+    for (Path file : files) {
+      loads.add(submitLoad(file));
+    }
+    return joinInOrder(files, loads);
+  }
+
+  /**
+   * Finds all config files in a given folder (and subfolders).
+   *
+   * @param start the start path
+   * @return all config files in the order they should be rendered in
+   * @throws IOException if an error occurs walking the folder
+   */
+  public List<Path> findFiles(Path start) throws IOException {
+    List<Path> files = new ArrayList<>();
+    walk(start, files::add);
+    return files;
+  }
+
+  private void walk(Path start, Consumer<Path> fileConsumer) throws IOException {
+    Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
       @Override
-      public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-        if (!file.toString().endsWith(".conf")) {
-          return FileVisitResult.CONTINUE;
-        }
-        try {
-          handleFile(file);
-        } catch (ParseException e) {
-          throw new IOException("Error parsing file '" + file + "'", e);
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+        if (isConfigFile(file)) {
+          fileConsumer.accept(file);
         }
         return FileVisitResult.CONTINUE;
       }
+    });
+  }
 
-      private void handleFile(Path file) throws IOException, ParseException {
-        List<String> lines = Files.readAllLines(file);
-        String phaseName = extractPhaseName(lines);
-        RenderTarget<?> targetPathTarget = StringRenderTarget.singleLine(
-            extractTargetPath(lines), reportParseErrors
-        );
+  private CompletableFuture<LoadResult> submitLoad(Path file) {
+    return CompletableFuture.supplyAsync(() -> {
+      CapturedOutput output = ColoredOutput.startCapture();
+      try {
+        return new LoadResult(loadFile(file), null, output);
+      } catch (IOException | ParseException e) {
+        return new LoadResult(null, e, output);
+      } finally {
+        ColoredOutput.stopCapture();
+      }
+    }, parseExecutor);
+  }
 
-        String fileContents = lines.stream()
-            .skip(2)
-            .collect(Collectors.joining(System.lineSeparator()));
-        if (reportParseErrors) {
-          System.out.println();
-          colorOut(
-              TerminalColor.BRIGHT_MAGENTA + "Parsing "
-                  + TerminalColor.GREEN + file.toAbsolutePath()
-          );
+  /**
+   * Waits for the loaded files in order, printing what was output while loading each of them. This
+   * stops at the first failure, just like loading the files one after another would.
+   *
+   * @param files the files
+   * @param loads the pending loads of the files
+   * @return the phase and target of each file
+   * @throws IOException if a file could not be loaded
+   */
+  private List<Pair<String, RenderTarget<FileRenderedObject>>> joinInOrder(List<Path> files,
+      List<CompletableFuture<LoadResult>> loads) throws IOException {
+    List<Pair<String, RenderTarget<FileRenderedObject>>> targets = new ArrayList<>();
+
+    for (int i = 0; i < loads.size(); i++) {
+      LoadResult result;
+      try {
+        result = loads.get(i).join();
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
         }
-        FileRenderTarget renderTarget = new FileRenderTarget(
-            new StringRenderTarget(fileContents, reportParseErrors),
-            targetPathTarget
-        );
+        throw e;
+      }
+      result.output.replay();
 
-        renderTargets.computeIfAbsent(phaseName, (key) -> new ArrayList<>())
-            .add(renderTarget);
+      if (result.failure instanceof ParseException) {
+        throw new IOException("Error parsing file '" + files.get(i) + "'", result.failure);
       }
-    });
+      if (result.failure != null) {
+        throw (IOException) result.failure;
+      }
+      targets.add(result.target);
+    }
+
+    return targets;
+  }
+
+  /**
+   * Checks whether a file is a config file that contains a render target.
+   *
+   * @param file the file to check
+   * @return true if the file is a config file
+   */
+  public boolean isConfigFile(Path file) {
+    return file.toString().endsWith(".conf");
+  }
+
+  /**
+   * Loads the render target of a single config file.
+   *
+   * @param file the file to load
+   * @return the phase of the target and the target itself
+   * @throws IOException if an error occurs reading the file
+   * @throws ParseException if the file is not valid
+   */
+  public Pair<String, RenderTarget<FileRenderedObject>> loadFile(Path file)
+      throws IOException, ParseException {
+    Span span = Profiler.getProfiler().start();
+    try {
+      return load(file);
+    } finally {
+      span.end(Category.PARSE, file.toString());
+    }
+  }
+
+  private Pair<String, RenderTarget<FileRenderedObject>> load(Path file)
+      throws IOException, ParseException {
+    byte[] content = Files.readAllBytes(file);
+    String cacheKey = AstCache.key(content);
+
+    // A cached file was not parsed, so it could not report its parse errors
+    Optional<ParsedConfigFile> cached = reportParseErrors
+        ? Optional.empty()
+        : astCache.load(cacheKey);
+    ParsedConfigFile parsedFile;
+    if (cached.isPresent()) {
+      parsedFile = cached.get();
+    } else {
+      if (reportParseErrors) {
+        colorOut(
+            "\n" + TerminalColor.BRIGHT_MAGENTA + "Parsing "
+                + TerminalColor.GREEN + file.toAbsolutePath()
+        );
+      }
+      parsedFile = parse(content);
+      astCache.store(cacheKey, parsedFile);
+    }
+
+    RenderTarget<FileRenderedObject> renderTarget = renderCache.wrap(
+        cacheKey,
+        new FileRenderTarget(
+            StringRenderTarget.fromAst(parsedFile.getBody()),
+            StringRenderTarget.fromAst(parsedFile.getTargetPath())
+        ),
+        parsedFile.getBody(), parsedFile.getTargetPath()
+    );
+
+    return new Pair<>(parsedFile.getPhaseName(), renderTarget);
+  }
+
+  /**
+   * Groups targets by their phase, keeping their relative order.
+   *
+   * @param targets the phases and their targets
+   * @return a renderer for each phase
+   */
+  public Map<String, MultiTargetRenderer> groupByPhase(
+      List<Pair<String, RenderTarget<FileRenderedObject>>> targets) {
+    Map<String, List<RenderTarget<FileRenderedObject>>> renderTargets = new HashMap<>();
+
+    for (Pair<String, RenderTarget<FileRenderedObject>> target : targets) {
+      renderTargets.computeIfAbsent(target.getFirst(), (key) -> new ArrayList<>())
+          .add(target.getSecond());
+    }
 
     return renderTargets.entrySet().stream()
         .collect(Collectors.toMap(
@@ -89,21 +279,83 @@ public class RenderTargetCollector {
         ));
   }
 
-  private String extractPhaseName(List<String> lines) throws ParseException {
-    StringReader reader = new StringReader(lines.get(0));
+  /**
+   * Parses a config file. The content is decoded once, the header lines are read in place and the
+   * parser works on a slice of the decoded content, so line numbers in errors match the file.
+   *
+   * @param content the content of the file
+   * @return the parsed file
+   * @throws ParseException if the file is not valid
+   */
+  private ParsedConfigFile parse(byte[] content) throws ParseException {
+    StringReader file = new StringReader(decode(content));
+
+    String phaseName = extractPhaseName(file.sliceLine(false));
+    StringRenderTarget targetPathTarget = StringRenderTarget.singleLine(
+        extractTargetPath(file.sliceLine(false)), reportParseErrors
+    );
+
+    DslParser parser = new DslParser(body(file), reportParseErrors);
+    AstNode body = parser.parse();
+
+    return new ParsedConfigFile(
+        phaseName, targetPathTarget.getAst(), parser.getCommandPrefix(), body
+    );
+  }
+
+  /**
+   * Decodes a file. Files that use other line separators than the platform are converted, as the
+   * parser only understands the platform's.
+   *
+   * @param content the content of the file
+   * @return the decoded content
+   */
+  private static String decode(byte[] content) {
+    String text = new String(content, StandardCharsets.UTF_8);
+    if (System.lineSeparator().equals("\n") && text.indexOf('\r') < 0) {
+      return text;
+    }
+    return LINE_SEPARATOR.matcher(text).replaceAll(System.lineSeparator());
+  }
+
+  /**
+   * Returns the rest of the file without its final line separator.
+   *
+   * @param file the file, positioned at the start of the body
+   * @return the body of the file
+   */
+  private static StringReader body(StringReader file) {
+    String content = file.getUnderlying();
+    int start = file.getPosition();
+    int end = content.length();
+    if (content.endsWith(System.lineSeparator())) {
+      end = Math.max(start, end - System.lineSeparator().length());
+    }
+    return file.slice(start, end);
+  }
 
+  private String extractPhaseName(StringReader reader) throws ParseException {
     reader.assertRead("Phase");
     reader.readWhile(Character::isWhitespace);
     reader.assertRead(": ");
     return reader.readPhrase();
   }
 
-  private String extractTargetPath(List<String> lines) throws ParseException {
-    StringReader reader = new StringReader(lines.get(1));
-
+  private String extractTargetPath(StringReader reader) throws ParseException {
     reader.assertRead("Target path");
     reader.readWhile(Character::isWhitespace);
     reader.assertRead(": ");
     return reader.readPhrase();
   }
+
+  /**
+   * The outcome of loading a single file.
+   */
+  @RequiredArgsConstructor
+  private static class LoadResult {
+
+    private final Pair<String, RenderTarget<FileRenderedObject>> target;
+    private final Exception failure;
+    private final CapturedOutput output;
+  }
 }
@@ -0,0 +1,27 @@
+package de.ialistannen.configurator.profiling;
+
+/**
+ * The kinds of work a {@link Profiler} measures.
+ */
+public enum Category {
+  PARSE("Parsing"),
+  TARGET("Targets"),
+  SHELL_COMMAND("Shell commands"),
+  SCRIPT("Scripts"),
+  WRITE("Writes");
+
+  private final String displayName;
+
+  Category(String displayName) {
+    this.displayName = displayName;
+  }
+
+  /**
+   * Returns the name of this category in reports.
+   *
+   * @return the display name
+   */
+  public String getDisplayName() {
+    return displayName;
+  }
+}
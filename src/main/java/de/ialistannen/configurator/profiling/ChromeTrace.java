@@ -0,0 +1,156 @@
+package de.ialistannen.configurator.profiling;
+
+import de.ialistannen.configurator.profiling.ProfileReport.PhaseSummary;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Writes the measurements of a {@link Profiler} in the Chrome trace event format, which
+ * chrome://tracing and Perfetto show as a timeline.
+ *
+ * <p>Every measurement becomes an event on the thread it ran on. Phases overlap, so each phase
+ * gets its own track in a separate process. It spans from the first target of the phase starting
+ * to its last target finishing.</p>
+ */
+public class ChromeTrace {
+
+  private static final int THREADS_PROCESS = 1;
+  private static final int PHASES_PROCESS = 2;
+
+  private final List<Measurement> measurements;
+
+  /**
+   * Creates a trace of everything the profiler measured until now.
+   *
+   * @param profiler the profiler
+   */
+  public ChromeTrace(Profiler profiler) {
+    this(profiler.getMeasurements());
+  }
+
+  /**
+   * Creates a new trace.
+   *
+   * @param measurements the measurements
+   */
+  ChromeTrace(List<Measurement> measurements) {
+    this.measurements = new ArrayList<>(measurements);
+  }
+
+  /**
+   * Writes the trace to a file, replacing it if it exists.
+   *
+   * @param file the file to write to
+   * @throws IOException if an error occurs writing the file
+   */
+  public void write(Path file) throws IOException {
+    try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+      write(writer);
+    }
+  }
+
+  /**
+   * Writes the trace.
+   *
+   * @param writer the writer to write to
+   * @throws IOException if an error occurs writing
+   */
+  void write(Writer writer) throws IOException {
+    List<String> events = new ArrayList<>();
+    events.add(metadata("process_name", THREADS_PROCESS, 0, "Configurator"));
+    events.add(metadata("process_name", PHASES_PROCESS, 0, "Phases"));
+
+    Map<Long, String> threads = new LinkedHashMap<>();
+    for (Measurement measurement : measurements) {
+      threads.putIfAbsent(measurement.getThreadId(), measurement.getThreadName());
+    }
+    for (Map.Entry<Long, String> thread : threads.entrySet()) {
+      events.add(metadata("thread_name", THREADS_PROCESS, thread.getKey(), thread.getValue()));
+    }
+
+    List<PhaseSummary> phases = ProfileReport.summarizePhases(measurements);
+    phases.sort(Comparator.comparingLong(PhaseSummary::getStartNanos));
+    for (int i = 0; i < phases.size(); i++) {
+      PhaseSummary phase = phases.get(i);
+      events.add(metadata("thread_name", PHASES_PROCESS, i, phase.getName()));
+      events.add(completeEvent(
+          phase.getName(), "phase", PHASES_PROCESS, i,
+          phase.getStartNanos(), phase.getWallNanos(),
+          "\"targets\":" + phase.getTargets()
+              + ",\"allocatedBytes\":" + phase.getAllocatedBytes()
+      ));
+    }
+
+    for (Measurement measurement : measurements) {
+      String args = "\"allocatedBytes\":" + measurement.getAllocatedBytes();
+      if (measurement.getPhase() != null) {
+        args += ",\"phase\":" + quote(measurement.getPhase());
+      }
+      events.add(completeEvent(
+          measurement.getName(),
+          measurement.getCategory().name().toLowerCase(Locale.ROOT),
+          THREADS_PROCESS, measurement.getThreadId(),
+          measurement.getStartNanos(), measurement.getDurationNanos(),
+          args
+      ));
+    }
+
+    writer.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[\n");
+    for (int i = 0; i < events.size(); i++) {
+      writer.write(events.get(i));
+      writer.write(i == events.size() - 1 ? "\n" : ",\n");
+    }
+    writer.write("]}\n");
+  }
+
+  private static String metadata(String name, int process, long thread, String value) {
+    return "{\"name\":" + quote(name) + ",\"ph\":\"M\",\"pid\":" + process
+        + ",\"tid\":" + thread + ",\"args\":{\"name\":" + quote(value) + "}}";
+  }
+
+  private static String completeEvent(String name, String category, int process, long thread,
+      long startNanos, long durationNanos, String args) {
+    return "{\"name\":" + quote(name) + ",\"cat\":" + quote(category)
+        + ",\"ph\":\"X\",\"pid\":" + process + ",\"tid\":" + thread
+        + ",\"ts\":" + micros(startNanos) + ",\"dur\":" + micros(durationNanos)
+        + ",\"args\":{" + args + "}}";
+  }
+
+  private static String micros(long nanos) {
+    return String.format(Locale.ROOT, "%.3f", nanos / 1000.0);
+  }
+
+  /**
+   * Quotes a string as a JSON string literal.
+   *
+   * @param value the string
+   * @return the JSON literal
+   */
+  static String quote(String value) {
+    StringBuilder result = new StringBuilder(value.length() + 2).append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '"' || c == '\\') {
+        result.append('\\').append(c);
+      } else if (c == '\n') {
+        result.append("\\n");
+      } else if (c == '\t') {
+        result.append("\\t");
+      } else if (c < 0x20) {
+        result.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+      } else {
+        result.append(c);
+      }
+    }
+    return result.append('"').toString();
+  }
+}
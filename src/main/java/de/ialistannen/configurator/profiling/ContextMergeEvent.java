@@ -0,0 +1,20 @@
+package de.ialistannen.configurator.profiling;
+
+/**
+ * Merging two contexts.
+ *
+ * <p>Obtained from {@link JfrEvents}, which only hands out events if the flight recorder is
+ * available.</p>
+ */
+public interface ContextMergeEvent {
+
+  /**
+   * Ends the merge and commits the event, if a recording wants it.
+   *
+   * @param mergedValues the amount of values taken from the other context
+   * @param mergedActions the amount of actions taken from the other context
+   * @param values the amount of values after merging
+   * @param actions the amount of actions after merging
+   */
+  void finished(int mergedValues, int mergedActions, int values, int actions);
+}
@@ -0,0 +1,49 @@
+package de.ialistannen.configurator.profiling;
+
+/**
+ * Creates the flight recorder events. Every event except the phase is started when it is created.
+ */
+public interface EventFactory {
+
+  /**
+   * Creates an event for a phase, which is only started once its first target starts rendering.
+   *
+   * @return the created event
+   */
+  PhaseEvent newPhase();
+
+  /**
+   * Starts an event for rendering a single target.
+   *
+   * @return the started event
+   */
+  TargetRenderEvent startTargetRender();
+
+  /**
+   * Starts an event for a shell command.
+   *
+   * @return the started event
+   */
+  ShellCommandEvent startShellCommand();
+
+  /**
+   * Starts an event for a script execution.
+   *
+   * @return the started event
+   */
+  ScriptEvent startScript();
+
+  /**
+   * Starts an event for merging two contexts.
+   *
+   * @return the started event
+   */
+  ContextMergeEvent startContextMerge();
+
+  /**
+   * Starts an event for writing a file or action.
+   *
+   * @return the started event
+   */
+  FileWriteEvent startFileWrite();
+}
@@ -0,0 +1,19 @@
+package de.ialistannen.configurator.profiling;
+
+/**
+ * Distributing a rendered file or action.
+ *
+ * <p>Obtained from {@link JfrEvents}, which only hands out events if the flight recorder is
+ * available.</p>
+ */
+public interface FileWriteEvent {
+
+  /**
+   * Ends the write and commits the event, if a recording wants it.
+   *
+   * @param path the written file
+   * @param size the size of the content
+   * @param result whether the file was created, changed or left alone
+   */
+  void finished(String path, long size, String result);
+}
@@ -0,0 +1,87 @@
+package de.ialistannen.configurator.profiling;
+
+/**
+ * Hands out flight recorder events, if they can be used.
+ *
+ * <p>The events extend {@code jdk.jfr.Event}, which older Java 8 runtimes do not have. They live in
+ * a separate source folder that is only compiled by JDKs with flight recorder support, see the
+ * {@code jfr} profile. If they were not compiled or the runtime does not support them, every method
+ * returns null. Once created, an event only does work if a recording is running.</p>
+ */
+public class JfrEvents {
+
+  private static final EventFactory FACTORY = loadFactory();
+
+  /**
+   * Whether flight recorder events are emitted.
+   */
+  public static final boolean AVAILABLE = FACTORY != null;
+
+  private static EventFactory loadFactory() {
+    ClassLoader loader = JfrEvents.class.getClassLoader();
+    try {
+      Class.forName("jdk.jfr.Event", false, loader);
+      String factoryClass = JfrEvents.class.getPackage().getName() + ".JfrEventFactory";
+      return (EventFactory) Class.forName(factoryClass, true, loader)
+          .getConstructor()
+          .newInstance();
+    } catch (ReflectiveOperationException | LinkageError e) {
+      return null;
+    }
+  }
+
+  /**
+   * Creates an event for a phase.
+   *
+   * @return the event or null if events are not available
+   * @see EventFactory#newPhase()
+   */
+  public static PhaseEvent newPhase() {
+    return FACTORY == null ? null : FACTORY.newPhase();
+  }
+
+  /**
+   * Starts an event for rendering a single target.
+   *
+   * @return the event or null if events are not available
+   */
+  public static TargetRenderEvent startTargetRender() {
+    return FACTORY == null ? null : FACTORY.startTargetRender();
+  }
+
+  /**
+   * Starts an event for a shell command.
+   *
+   * @return the event or null if events are not available
+   */
+  public static ShellCommandEvent startShellCommand() {
+    return FACTORY == null ? null : FACTORY.startShellCommand();
+  }
+
+  /**
+   * Starts an event for a script execution.
+   *
+   * @return the event or null if events are not available
+   */
+  public static ScriptEvent startScript() {
+    return FACTORY == null ? null : FACTORY.startScript();
+  }
+
+  /**
+   * Starts an event for merging two contexts.
+   *
+   * @return the event or null if events are not available
+   */
+  public static ContextMergeEvent startContextMerge() {
+    return FACTORY == null ? null : FACTORY.startContextMerge();
+  }
+
+  /**
+   * Starts an event for writing a file or action.
+   *
+   * @return the event or null if events are not available
+   */
+  public static FileWriteEvent startFileWrite() {
+    return FACTORY == null ? null : FACTORY.startFileWrite();
+  }
+}
@@ -0,0 +1,37 @@
+package de.ialistannen.configurator.profiling;
+
+import lombok.Data;
+
+/**
+ * A single piece of work measured by a {@link Profiler}.
+ */
+@Data
+public class Measurement {
+
+  private final Category category;
+  private final String name;
+  /**
+   * The phase the work belongs to or null, if it does not belong to one.
+   */
+  private final String phase;
+  private final long threadId;
+  private final String threadName;
+  /**
+   * The start of the work in nanoseconds, relative to the creation of the profiler.
+   */
+  private final long startNanos;
+  private final long durationNanos;
+  /**
+   * The bytes the thread allocated while doing the work or -1, if the JVM can not tell.
+   */
+  private final long allocatedBytes;
+
+  /**
+   * Returns the end of the work in nanoseconds, relative to the creation of the profiler.
+   *
+   * @return the end of the work
+   */
+  public long getEndNanos() {
+    return startNanos + durationNanos;
+  }
+}
@@ -0,0 +1,23 @@
+package de.ialistannen.configurator.profiling;
+
+/**
+ * A phase of a run, from its first target starting to render until all of its targets are merged.
+ *
+ * <p>Obtained from {@link JfrEvents}, which only hands out events if the flight recorder is
+ * available.</p>
+ */
+public interface PhaseEvent {
+
+  /**
+   * Marks the start of the phase, unless it was marked already.
+   */
+  void started();
+
+  /**
+   * Ends the phase and commits the event, if a recording wants it.
+   *
+   * @param phase the name of the phase
+   * @param targets the amount of targets in the phase
+   */
+  void finished(String phase, int targets);
+}
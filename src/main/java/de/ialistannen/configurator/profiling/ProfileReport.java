@@ -0,0 +1,219 @@
+package de.ialistannen.configurator.profiling;
+
+import static de.ialistannen.configurator.output.ColoredOutput.colorOut;
+import static de.ialistannen.configurator.output.TerminalColor.BLUE;
+import static de.ialistannen.configurator.output.TerminalColor.BOLD;
+import static de.ialistannen.configurator.output.TerminalColor.BRIGHT_BLUE;
+import static de.ialistannen.configurator.output.TerminalColor.DIM;
+import static de.ialistannen.configurator.output.TerminalColor.GREEN;
+import static de.ialistannen.configurator.output.TerminalColor.MAGENTA;
+import static de.ialistannen.configurator.output.TerminalColor.UNDERLINE;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+import lombok.Data;
+
+/**
+ * Summarizes the measurements of a {@link Profiler}, slowest first.
+ *
+ * <p>Phases are not measured directly, as targets of different phases render at the same time.
+ * The wall time of a phase spans from its first target starting to its last target finishing, its
+ * busy time and allocations are the sums over its targets.</p>
+ */
+public class ProfileReport {
+
+  /**
+   * The default amount of entries shown per category.
+   */
+  public static final int DEFAULT_SLOWEST = 10;
+
+  private final List<Measurement> measurements;
+  private final long totalNanos;
+  private final int slowest;
+
+  /**
+   * Creates a report of everything the profiler measured until now.
+   *
+   * @param profiler the profiler
+   * @param slowest the amount of entries to show per category
+   */
+  public ProfileReport(Profiler profiler, int slowest) {
+    this(profiler.getMeasurements(), System.nanoTime() - profiler.getStartNanos(), slowest);
+  }
+
+  /**
+   * Creates a new report.
+   *
+   * @param measurements the measurements
+   * @param totalNanos the wall time of the whole run
+   * @param slowest the amount of entries to show per category
+   */
+  ProfileReport(List<Measurement> measurements, long totalNanos, int slowest) {
+    this.measurements = new ArrayList<>(measurements);
+    this.totalNanos = totalNanos;
+    this.slowest = slowest;
+  }
+
+  /**
+   * Summarizes the targets of every phase.
+   *
+   * @return a summary of every phase that rendered targets, the longest wall time first
+   */
+  public List<PhaseSummary> getPhases() {
+    return summarizePhases(measurements);
+  }
+
+  /**
+   * Summarizes the targets of every phase.
+   *
+   * @param measurements the measurements
+   * @return a summary of every phase that rendered targets, the longest wall time first
+   */
+  static List<PhaseSummary> summarizePhases(List<Measurement> measurements) {
+    Map<String, List<Measurement>> targetsByPhase = new LinkedHashMap<>();
+    for (Measurement measurement : measurements) {
+      if (measurement.getCategory() == Category.TARGET && measurement.getPhase() != null) {
+        targetsByPhase.computeIfAbsent(measurement.getPhase(), key -> new ArrayList<>())
+            .add(measurement);
+      }
+    }
+
+    List<PhaseSummary> phases = new ArrayList<>();
+    for (Map.Entry<String, List<Measurement>> entry : targetsByPhase.entrySet()) {
+      List<Measurement> targets = entry.getValue();
+      long start = Long.MAX_VALUE;
+      long end = Long.MIN_VALUE;
+      long busy = 0;
+      long allocated = 0;
+      for (Measurement target : targets) {
+        start = Math.min(start, target.getStartNanos());
+        end = Math.max(end, target.getEndNanos());
+        busy += target.getDurationNanos();
+        if (allocated >= 0 && target.getAllocatedBytes() >= 0) {
+          allocated += target.getAllocatedBytes();
+        } else {
+          allocated = -1;
+        }
+      }
+      phases.add(new PhaseSummary(
+          entry.getKey(), start, end - start, busy, allocated, targets.size()
+      ));
+    }
+
+    phases.sort(Comparator.comparingLong(PhaseSummary::getWallNanos).reversed());
+    return phases;
+  }
+
+  /**
+   * Returns the slowest measurements of a category.
+   *
+   * @param category the category
+   * @return at most the configured amount of measurements, the slowest first
+   */
+  public List<Measurement> getSlowest(Category category) {
+    return measurements.stream()
+        .filter(it -> it.getCategory() == category)
+        .sorted(Comparator.comparingLong(Measurement::getDurationNanos).reversed())
+        .limit(slowest)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Prints the report.
+   */
+  public void print() {
+    colorOut(BRIGHT_BLUE.toString() + BOLD + UNDERLINE + "Total:"
+        + " " + GREEN + formatNanos(totalNanos));
+
+    colorOut(BRIGHT_BLUE.toString() + BOLD + UNDERLINE + "Phases:");
+    for (PhaseSummary phase : getPhases()) {
+      colorOut(String.format(
+          Locale.ROOT,
+          "%s%-20s %swall %s%10s %sbusy %s%10s %sallocated %s%10s %s%d targets",
+          BLUE, phase.getName(),
+          MAGENTA, GREEN, formatNanos(phase.getWallNanos()),
+          MAGENTA, GREEN, formatNanos(phase.getBusyNanos()),
+          MAGENTA, GREEN, formatBytes(phase.getAllocatedBytes()),
+          DIM, phase.getTargets()
+      ));
+    }
+
+    for (Category category : Category.values()) {
+      printCategory(category);
+    }
+  }
+
+  private void printCategory(Category category) {
+    long count = 0;
+    long total = 0;
+    for (Measurement measurement : measurements) {
+      if (measurement.getCategory() == category) {
+        count++;
+        total += measurement.getDurationNanos();
+      }
+    }
+    colorOut(
+        BRIGHT_BLUE.toString() + BOLD + UNDERLINE + category.getDisplayName() + ":"
+            + " " + GREEN + count + MAGENTA + " taking " + GREEN + formatNanos(total)
+    );
+
+    for (Measurement measurement : getSlowest(category)) {
+      String phase = measurement.getPhase() == null ? "" : " " + DIM + measurement.getPhase();
+      colorOut(String.format(
+          Locale.ROOT,
+          "%s%10s %s%10s %s%s%s",
+          GREEN, formatNanos(measurement.getDurationNanos()),
+          MAGENTA, formatBytes(measurement.getAllocatedBytes()),
+          BLUE, firstLine(measurement.getName()), phase
+      ));
+    }
+  }
+
+  private static String firstLine(String name) {
+    int newline = name.indexOf('\n');
+    String line = newline < 0 ? name : name.substring(0, newline) + " ...";
+    return line.length() <= 80 ? line : line.substring(0, 77) + "...";
+  }
+
+  private static String formatNanos(long nanos) {
+    return String.format(Locale.ROOT, "%.2f ms", nanos / 1_000_000.0);
+  }
+
+  private static String formatBytes(long bytes) {
+    if (bytes < 0) {
+      return "?";
+    }
+    if (bytes < 1024) {
+      return bytes + " B";
+    }
+    if (bytes < 1024 * 1024) {
+      return String.format(Locale.ROOT, "%.1f KiB", bytes / 1024.0);
+    }
+    return String.format(Locale.ROOT, "%.1f MiB", bytes / (1024.0 * 1024.0));
+  }
+
+  /**
+   * The time and memory spent rendering the targets of a phase.
+   */
+  @Data
+  public static class PhaseSummary {
+
+    private final String name;
+    /**
+     * The start of the first target in nanoseconds, relative to the creation of the profiler.
+     */
+    private final long startNanos;
+    private final long wallNanos;
+    private final long busyNanos;
+    /**
+     * The bytes allocated by all targets or -1, if the JVM can not tell.
+     */
+    private final long allocatedBytes;
+    private final int targets;
+  }
+}
@@ -0,0 +1,132 @@
+package de.ialistannen.configurator.profiling;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Measures how long the parts of a run take and how much they allocate.
+ *
+ * <p>Code that should be measured {@link #start() starts} a span on the {@link #getProfiler()
+ * current profiler} and ends it when it is done. The default profiler is disabled, so measuring
+ * costs next to nothing unless profiling was requested.</p>
+ */
+public class Profiler {
+
+  /**
+   * A profiler that records nothing.
+   */
+  public static final Profiler DISABLED = new Profiler(false);
+
+  private static volatile Profiler profiler = DISABLED;
+
+  private final boolean enabled;
+  private final long startNanos;
+  private final Queue<Measurement> measurements;
+  private final com.sun.management.ThreadMXBean threads;
+
+  /**
+   * Creates a new profiler that records everything from now on.
+   */
+  public Profiler() {
+    this(true);
+  }
+
+  private Profiler(boolean enabled) {
+    this.enabled = enabled;
+    this.startNanos = System.nanoTime();
+    this.measurements = new ConcurrentLinkedQueue<>();
+    this.threads = enabled ? allocationMeasuringThreads() : null;
+  }
+
+  /**
+   * Sets the profiler all work is measured with.
+   *
+   * @param profiler the profiler to use
+   */
+  public static void setProfiler(Profiler profiler) {
+    Profiler.profiler = profiler;
+  }
+
+  /**
+   * Returns the profiler all work is measured with.
+   *
+   * @return the profiler
+   */
+  public static Profiler getProfiler() {
+    return profiler;
+  }
+
+  /**
+   * Starts measuring a piece of work on the current thread.
+   *
+   * @return the span to end when the work is done
+   */
+  public Span start() {
+    if (!enabled) {
+      return Span.DISABLED;
+    }
+    return new Span(this, System.nanoTime(), currentThreadAllocatedBytes());
+  }
+
+  /**
+   * Returns everything measured so far.
+   *
+   * @return all measurements, in no particular order
+   */
+  public List<Measurement> getMeasurements() {
+    return new ArrayList<>(measurements);
+  }
+
+  /**
+   * Returns the time this profiler was created at.
+   *
+   * @return the creation time in {@link System#nanoTime()} nanoseconds
+   */
+  public long getStartNanos() {
+    return startNanos;
+  }
+
+  /**
+   * Returns whether this profiler records anything.
+   *
+   * @return true if this profiler records measurements
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  void record(Measurement measurement) {
+    measurements.add(measurement);
+  }
+
+  /**
+   * Returns the bytes the current thread allocated so far.
+   *
+   * @return the allocated bytes or -1, if the JVM can not measure them
+   */
+  long currentThreadAllocatedBytes() {
+    if (threads == null) {
+      return -1;
+    }
+    return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  private static com.sun.management.ThreadMXBean allocationMeasuringThreads() {
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+      return null;
+    }
+    com.sun.management.ThreadMXBean result = (com.sun.management.ThreadMXBean) threads;
+    if (!result.isThreadAllocatedMemorySupported()) {
+      return null;
+    }
+    if (!result.isThreadAllocatedMemoryEnabled()) {
+      result.setThreadAllocatedMemoryEnabled(true);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,17 @@
+package de.ialistannen.configurator.profiling;
+
+/**
+ * Executing a script.
+ *
+ * <p>Obtained from {@link JfrEvents}, which only hands out events if the flight recorder is
+ * available.</p>
+ */
+public interface ScriptEvent {
+
+  /**
+   * Ends the script and commits the event, if a recording wants it.
+   *
+   * @param script the source of the script
+   */
+  void finished(String script);
+}
@@ -0,0 +1,19 @@
+package de.ialistannen.configurator.profiling;
+
+/**
+ * Running a shell command in a child process.
+ *
+ * <p>Obtained from {@link JfrEvents}, which only hands out events if the flight recorder is
+ * available.</p>
+ */
+public interface ShellCommandEvent {
+
+  /**
+   * Ends the command and commits the event, if a recording wants it.
+   *
+   * @param command the command
+   * @param exitCode the exit code of the process
+   * @param timedOut whether the process was killed for taking too long
+   */
+  void finished(String command, int exitCode, boolean timedOut);
+}
@@ -0,0 +1,68 @@
+package de.ialistannen.configurator.profiling;
+
+/**
+ * A piece of work that is currently measured. A span must be ended on the thread that started it,
+ * as the allocated bytes are measured per thread.
+ */
+public class Span {
+
+  /**
+   * A span that records nothing when ended.
+   */
+  static final Span DISABLED = new Span(null, 0, 0);
+
+  private final Profiler profiler;
+  private final long startNanos;
+  private final long startAllocatedBytes;
+
+  /**
+   * Creates a new span.
+   *
+   * @param profiler the profiler to record to or null, if nothing should be recorded
+   * @param startNanos the start in {@link System#nanoTime()} nanoseconds
+   * @param startAllocatedBytes the bytes the thread allocated before, or -1 if unknown
+   */
+  Span(Profiler profiler, long startNanos, long startAllocatedBytes) {
+    this.profiler = profiler;
+    this.startNanos = startNanos;
+    this.startAllocatedBytes = startAllocatedBytes;
+  }
+
+  /**
+   * Ends this span and records it as work that belongs to no phase.
+   *
+   * @param category the kind of work
+   * @param name the name of the work, e.g. the command or file
+   */
+  public void end(Category category, String name) {
+    end(category, name, null);
+  }
+
+  /**
+   * Ends this span and records it.
+   *
+   * @param category the kind of work
+   * @param name the name of the work, e.g. the command or file
+   * @param phase the phase the work belongs to or null
+   */
+  public void end(Category category, String name, String phase) {
+    if (profiler == null) {
+      return;
+    }
+    long allocatedBytes = -1;
+    if (startAllocatedBytes >= 0) {
+      allocatedBytes = profiler.currentThreadAllocatedBytes() - startAllocatedBytes;
+    }
+
+    profiler.record(new Measurement(
+        category,
+        name,
+        phase,
+        Thread.currentThread().getId(),
+        Thread.currentThread().getName(),
+        startNanos - profiler.getStartNanos(),
+        System.nanoTime() - startNanos,
+        allocatedBytes
+    ));
+  }
+}
@@ -0,0 +1,20 @@
+package de.ialistannen.configurator.profiling;
+
+import de.ialistannen.configurator.rendering.FileRenderedObject;
+
+/**
+ * Rendering a single target.
+ *
+ * <p>Obtained from {@link JfrEvents}, which only hands out events if the flight recorder is
+ * available.</p>
+ */
+public interface TargetRenderEvent {
+
+  /**
+   * Ends the render and commits the event, if a recording wants it.
+   *
+   * @param phase the phase of the target
+   * @param rendered the rendered file
+   */
+  void finished(String phase, FileRenderedObject rendered);
+}
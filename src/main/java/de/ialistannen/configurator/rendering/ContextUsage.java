@@ -0,0 +1,83 @@
+package de.ialistannen.configurator.rendering;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import lombok.Data;
+
+/**
+ * The values and actions a render target reads from or stores in its context, determined without
+ * rendering it. All branches of an if are included.
+ */
+@Data
+public class ContextUsage {
+
+  /**
+   * The usage of a target that might read or store anything, e.g. because it runs a script.
+   */
+  public static final ContextUsage UNKNOWN = new ContextUsage(
+      false, Collections.emptySet(), Collections.emptySet(), Collections.emptySet()
+  );
+
+  private final boolean known;
+  private final Set<String> readValues;
+  private final Set<String> writtenValues;
+  private final Set<String> writtenActions;
+
+  /**
+   * Checks whether the target might store the given value.
+   *
+   * @param name the name of the value
+   * @return true if the target might store it
+   */
+  public boolean mightWriteValue(String name) {
+    return !known || writtenValues.contains(name);
+  }
+
+  /**
+   * Checks whether the target might store the given action.
+   *
+   * @param name the name of the action
+   * @return true if the target might store it
+   */
+  public boolean mightWriteAction(String name) {
+    return !known || writtenActions.contains(name);
+  }
+
+  /**
+   * Returns the names of all values whose content influences what the target renders or stores.
+   * These are the values it reads and the ones it writes, as a write of an unchanged value is
+   * indistinguishable from no write at all.
+   *
+   * @return the names of all values the target reads or writes
+   */
+  public Set<String> getUsedValues() {
+    Set<String> used = new HashSet<>(readValues);
+    used.addAll(writtenValues);
+    return used;
+  }
+
+  /**
+   * Combines the usage of two targets.
+   *
+   * @param other the other usage
+   * @return a usage containing everything both targets use
+   */
+  public ContextUsage combine(ContextUsage other) {
+    if (!known || !other.known) {
+      return UNKNOWN;
+    }
+    return new ContextUsage(
+        true,
+        union(readValues, other.readValues),
+        union(writtenValues, other.writtenValues),
+        union(writtenActions, other.writtenActions)
+    );
+  }
+
+  private static Set<String> union(Set<String> first, Set<String> second) {
+    Set<String> result = new HashSet<>(first);
+    result.addAll(second);
+    return result;
+  }
+}
@@ -0,0 +1,38 @@
+package de.ialistannen.configurator.rendering;
+
+import java.nio.charset.StandardCharsets;
+import lombok.EqualsAndHashCode;
+
+/**
+ * A {@link RenderedObject} that stores its content as UTF-8, which is the form it is written to
+ * disk in. For mostly ASCII content this also takes half the memory of a string.
+ */
+@EqualsAndHashCode
+public class EncodedRenderedObject implements RenderedObject {
+
+  private final byte[] content;
+
+  /**
+   * Creates a new encoded rendered object.
+   *
+   * @param content the UTF-8 encoded content. It is not copied and must not be modified.
+   */
+  public EncodedRenderedObject(byte[] content) {
+    this.content = content;
+  }
+
+  @Override
+  public String asString() {
+    return new String(content, StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public byte[] asUtf8Bytes() {
+    return content;
+  }
+
+  @Override
+  public String toString() {
+    return "EncodedRenderedObject(content=" + asString() + ")";
+  }
+}
@@ -14,11 +14,15 @@ public class FileRenderTarget implements RenderTarget<FileRenderedObject> {
 
   private final RenderTarget<? extends RenderedObject> underlying;
   private final RenderTarget<? extends RenderedObject> targetPathTarget;
+  private volatile ContextUsage contextUsage;
 
   @Override
-  public Pair<FileRenderedObject, RenderContext> render(RenderContext context) {
-    Pair<? extends RenderedObject, RenderContext> rendered = this.underlying.render(context);
-    RenderedObject renderedPath = this.targetPathTarget.render(context).getFirst();
+  public Pair<FileRenderedObject, RenderContext> render(RenderContext context,
+      RenderSession session) {
+    Pair<? extends RenderedObject, RenderContext> rendered = this.underlying.render(
+        context, session
+    );
+    RenderedObject renderedPath = this.targetPathTarget.render(context, session).getFirst();
     String pathString = renderedPath.asString();
 
     if (pathString.trim().isEmpty()) {
@@ -32,4 +36,12 @@ public class FileRenderTarget implements RenderTarget<FileRenderedObject> {
         rendered.getSecond()
     );
   }
+
+  @Override
+  public ContextUsage getContextUsage() {
+    if (contextUsage == null) {
+      contextUsage = underlying.getContextUsage().combine(targetPathTarget.getContextUsage());
+    }
+    return contextUsage;
+  }
 }
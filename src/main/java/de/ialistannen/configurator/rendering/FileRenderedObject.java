@@ -16,4 +16,9 @@ public class FileRenderedObject implements RenderedObject {
   public String asString() {
     return content.asString();
   }
+
+  @Override
+  public byte[] asUtf8Bytes() {
+    return content.asUtf8Bytes();
+  }
 }
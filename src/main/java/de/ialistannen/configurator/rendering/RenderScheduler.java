@@ -0,0 +1,138 @@
+package de.ialistannen.configurator.rendering;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+
+/**
+ * Runs the render targets of all phases. A single scheduler is shared by every phase of a run and
+ * must be shut down once the run is over.
+ */
+public class RenderScheduler implements Executor {
+
+  private final ExecutorService executor;
+
+  private RenderScheduler(ExecutorService executor) {
+    this.executor = executor;
+  }
+
+  /**
+   * Creates a scheduler with a fixed pool of one thread per processor.
+   *
+   * @return the created scheduler
+   */
+  public static RenderScheduler createDefault() {
+    return create(Kind.FIXED, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Creates a new scheduler.
+   *
+   * @param kind the kind of threads to render on
+   * @param parallelism the number of threads for fixed and fork join pools. Ignored for virtual
+   *     threads.
+   * @return the created scheduler
+   * @throws IllegalStateException if virtual threads are requested but not supported by the
+   *     running java version
+   */
+  public static RenderScheduler create(Kind kind, int parallelism) {
+    switch (kind) {
+      case FIXED:
+        return new RenderScheduler(Executors.newFixedThreadPool(parallelism, r -> {
+          Thread thread = new Thread(r, "MultiRenderWorker");
+          thread.setDaemon(true);
+          return thread;
+        }));
+      case FORK_JOIN:
+        return new RenderScheduler(new ForkJoinPool(
+            parallelism,
+            pool -> {
+              ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory
+                  .newThread(pool);
+              thread.setName("MultiRenderWorker-" + thread.getPoolIndex());
+              thread.setDaemon(true);
+              return thread;
+            },
+            null,
+            false
+        ));
+      case VIRTUAL:
+        return new RenderScheduler(newVirtualThreadExecutor());
+      default:
+        throw new IllegalArgumentException("Unknown scheduler kind " + kind);
+    }
+  }
+
+  /**
+   * Virtual threads are looked up reflectively, as they only exist since Java 21.
+   *
+   * @return an executor starting a new virtual thread per task
+   */
+  private static ExecutorService newVirtualThreadExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+          .invoke(null);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Virtual threads need at least Java 21", e);
+    }
+  }
+
+  @Override
+  public void execute(Runnable command) {
+    executor.execute(command);
+  }
+
+  /**
+   * Runs all tasks and waits for them to finish.
+   *
+   * @param tasks the tasks to run
+   * @param <T> the type of the results
+   * @return the results in the order of the tasks
+   * @throws RuntimeException wrapping the first failure or an interruption
+   */
+  public <T> List<T> invokeAll(List<Callable<T>> tasks) {
+    List<T> results = new ArrayList<>();
+    try {
+      for (Future<T> future : executor.invokeAll(tasks)) {
+        results.add(future.get());
+      }
+    } catch (InterruptedException | ExecutionException e) {
+      throw new RuntimeException(e);
+    }
+    return results;
+  }
+
+  /**
+   * Stops all threads of this scheduler. Tasks that are still running are finished, but no new
+   * tasks are accepted.
+   */
+  public void shutdown() {
+    executor.shutdown();
+  }
+
+  /**
+   * The kind of threads targets are rendered on.
+   */
+  public enum Kind {
+    /**
+     * A fixed pool of platform threads.
+     */
+    FIXED,
+    /**
+     * A work stealing fork join pool.
+     */
+    FORK_JOIN,
+    /**
+     * A new virtual thread for every target. Rendering mostly waits for child processes, which
+     * does not block a carrier thread.
+     */
+    VIRTUAL
+  }
+}
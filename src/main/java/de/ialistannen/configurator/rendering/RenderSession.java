@@ -0,0 +1,195 @@
+package de.ialistannen.configurator.rendering;
+
+import de.ialistannen.configurator.util.Deadline;
+import de.ialistannen.configurator.util.ProcessUtils;
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * State shared by all targets rendered in a single run.
+ *
+ * <p>Identical shell commands only run once per session. If multiple targets request the same
+ * command concurrently, all of them wait for the same execution. Commands can be started ahead of
+ * time on an I/O executor, so a target waits for all of its commands only once. Only as many of
+ * them are handed to the executor at once as processes may run at the same time, the rest wait in
+ * a queue instead of blocking a thread each.</p>
+ *
+ * <p>Render targets borrow their output buffers from the session. Only a few of them are kept, so
+ * the amount of memory held does not depend on how many threads render, and all of it is released
+ * with the session at the end of the run.</p>
+ *
+ * <p>All commands of a session share the run deadline of the {@link ProcessUtils#getExecutor()
+ * process executor}, which starts when the session is created.</p>
+ */
+public class RenderSession {
+
+  /**
+   * The maximum amount of output buffers kept for later renders.
+   */
+  private static final int MAX_KEPT_BUFFERS = 2 * Runtime.getRuntime().availableProcessors();
+  /**
+   * Output buffers larger than this are not kept for later renders.
+   */
+  private static final int MAX_KEPT_BUFFER_SIZE = 1024 * 1024;
+
+  private static final Executor SHARED_IO_EXECUTOR = Executors.newCachedThreadPool(r -> {
+    Thread thread = new Thread(r, "ShellCommandWorker");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private final ConcurrentMap<String, CompletableFuture<String>> shellCommandResults;
+  private final Executor ioExecutor;
+  private final Queue<String> pendingPrefetches;
+  private final AtomicInteger prefetchWorkers;
+  private final int maxPrefetchWorkers;
+  private final Deadline runDeadline;
+  private final Queue<StringBuilder> outputBuffers;
+
+  /**
+   * Creates a new, empty render session that starts commands ahead of time on a shared executor.
+   */
+  public RenderSession() {
+    this(SHARED_IO_EXECUTOR);
+  }
+
+  /**
+   * Creates a new, empty render session.
+   *
+   * @param ioExecutor the executor to start commands ahead of time on. It is never given more
+   *     tasks at once than the process executor runs processes at the same time.
+   */
+  public RenderSession(Executor ioExecutor) {
+    this.shellCommandResults = new ConcurrentHashMap<>();
+    this.ioExecutor = ioExecutor;
+    this.pendingPrefetches = new ConcurrentLinkedQueue<>();
+    this.prefetchWorkers = new AtomicInteger();
+    this.maxPrefetchWorkers = ProcessUtils.getExecutor().getMaxConcurrentProcesses();
+    this.runDeadline = ProcessUtils.getExecutor().newRunDeadline();
+    this.outputBuffers = new ArrayBlockingQueue<>(MAX_KEPT_BUFFERS);
+  }
+
+  /**
+   * Starts the given shell commands in the background, unless they already ran in this session.
+   * {@link #runShellCommand(String)} will then wait for the running command instead of starting
+   * it again.
+   *
+   * @param commands the commands to start
+   */
+  public void prefetchShellCommands(Collection<String> commands) {
+    for (String command : commands) {
+      if (shellCommandResults.putIfAbsent(command, new CompletableFuture<>()) == null) {
+        pendingPrefetches.add(command);
+      }
+    }
+    startPrefetchWorkers();
+  }
+
+  private void startPrefetchWorkers() {
+    while (!pendingPrefetches.isEmpty()) {
+      int workers = prefetchWorkers.get();
+      if (workers >= maxPrefetchWorkers) {
+        return;
+      }
+      if (prefetchWorkers.compareAndSet(workers, workers + 1)) {
+        ioExecutor.execute(this::runPrefetches);
+      }
+    }
+  }
+
+  private void runPrefetches() {
+    String command;
+    while ((command = pendingPrefetches.poll()) != null) {
+      execute(command, shellCommandResults.get(command));
+    }
+    prefetchWorkers.decrementAndGet();
+    // Commands queued after the last poll found all workers still busy
+    startPrefetchWorkers();
+  }
+
+  /**
+   * Runs a shell command or returns the output of an earlier run of the same command in this
+   * session.
+   *
+   * @param command the command to run
+   * @return the stdout of the command
+   */
+  public String runShellCommand(String command) {
+    CompletableFuture<String> result = new CompletableFuture<>();
+    CompletableFuture<String> existing = shellCommandResults.putIfAbsent(command, result);
+
+    if (existing != null) {
+      return join(existing);
+    }
+
+    execute(command, result);
+    return join(result);
+  }
+
+  /**
+   * Runs a shell command, even if it already ran in this session.
+   *
+   * @param command the command to run
+   * @return the stdout of the command
+   */
+  public String runUncachedShellCommand(String command) {
+    return run(command);
+  }
+
+  /**
+   * Returns an empty buffer to render into. It belongs to the caller until it is
+   * {@link #returnOutputBuffer(StringBuilder) returned}.
+   *
+   * @return an empty buffer, reused from an earlier render if possible
+   */
+  public StringBuilder takeOutputBuffer() {
+    StringBuilder buffer = outputBuffers.poll();
+    return buffer == null ? new StringBuilder() : buffer;
+  }
+
+  /**
+   * Hands a buffer back for later renders. It is dropped if it is too large or enough buffers are
+   * kept already.
+   *
+   * @param buffer the buffer taken from {@link #takeOutputBuffer()}, which must not be used
+   *     anymore
+   */
+  public void returnOutputBuffer(StringBuilder buffer) {
+    if (buffer.capacity() <= MAX_KEPT_BUFFER_SIZE) {
+      buffer.setLength(0);
+      outputBuffers.offer(buffer);
+    }
+  }
+
+  private void execute(String command, CompletableFuture<String> result) {
+    try {
+      result.complete(run(command));
+    } catch (RuntimeException e) {
+      result.completeExceptionally(e);
+    }
+  }
+
+  private String run(String command) {
+    return ProcessUtils.runWithShellForOutput(command, runDeadline);
+  }
+
+  private static String join(CompletableFuture<String> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+}
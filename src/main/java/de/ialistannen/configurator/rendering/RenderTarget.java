@@ -10,11 +10,31 @@ import de.ialistannen.configurator.util.Pair;
  */
 public interface RenderTarget<T extends RenderedObject> {
 
+  /**
+   * Renders this target in its own session.
+   *
+   * @param context the context to use
+   * @return the rendered object and the resulting context
+   */
+  default Pair<T, RenderContext> render(RenderContext context) {
+    return render(context, new RenderSession());
+  }
+
   /**
    * Renders this target.
    *
    * @param context the context to use
+   * @param session the session of the current run
    * @return the rendered object and the resulting context
    */
-  Pair<T, RenderContext> render(RenderContext context);
+  Pair<T, RenderContext> render(RenderContext context, RenderSession session);
+
+  /**
+   * Returns the values and actions this target reads from or stores in the context.
+   *
+   * @return the context usage of this target
+   */
+  default ContextUsage getContextUsage() {
+    return ContextUsage.UNKNOWN;
+  }
 }
@@ -1,5 +1,7 @@
 package de.ialistannen.configurator.rendering;
 
+import java.nio.charset.StandardCharsets;
+
 /**
  * A single rendered object.
  */
@@ -11,4 +13,14 @@ public interface RenderedObject {
    * @return this object as a string
    */
   String asString();
+
+  /**
+   * Returns this object encoded as UTF-8. The returned array might be shared and must not be
+   * modified.
+   *
+   * @return this object encoded as UTF-8
+   */
+  default byte[] asUtf8Bytes() {
+    return asString().getBytes(StandardCharsets.UTF_8);
+  }
 }
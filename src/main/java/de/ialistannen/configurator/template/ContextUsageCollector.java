@@ -0,0 +1,132 @@
+package de.ialistannen.configurator.template;
+
+import de.ialistannen.configurator.dsl.ActionAstNode;
+import de.ialistannen.configurator.dsl.ActionCallAstNode;
+import de.ialistannen.configurator.dsl.AssignmentAstNode;
+import de.ialistannen.configurator.dsl.AstNode;
+import de.ialistannen.configurator.dsl.AstVisitor;
+import de.ialistannen.configurator.dsl.BlockAstNode;
+import de.ialistannen.configurator.dsl.ExecuteFileAstNode;
+import de.ialistannen.configurator.dsl.IfAstNode;
+import de.ialistannen.configurator.dsl.LiteralAstNode;
+import de.ialistannen.configurator.dsl.ReloadActionAstNode;
+import de.ialistannen.configurator.dsl.ScriptAstNode;
+import de.ialistannen.configurator.dsl.ShellCommandAstNode;
+import de.ialistannen.configurator.dsl.VariableAstNode;
+import de.ialistannen.configurator.dsl.comparison.ComparisonAstNode;
+import de.ialistannen.configurator.rendering.ContextUsage;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Collects the values and actions an ast reads and stores when it is rendered.
+ *
+ * <p>Both branches of every if are visited. Scripts can access the whole context, so an ast
+ * containing one has an {@link ContextUsage#UNKNOWN unknown} usage.</p>
+ */
+class ContextUsageCollector implements AstVisitor<Void> {
+
+  private final Set<String> readValues;
+  private final Set<String> writtenValues;
+  private final Set<String> writtenActions;
+  private boolean known;
+
+  private ContextUsageCollector() {
+    this.readValues = new HashSet<>();
+    this.writtenValues = new HashSet<>();
+    this.writtenActions = new HashSet<>();
+    this.known = true;
+  }
+
+  /**
+   * Collects the context usage of an ast.
+   *
+   * @param ast the ast
+   * @return the values and actions it reads or stores
+   */
+  static ContextUsage collect(AstNode ast) {
+    ContextUsageCollector collector = new ContextUsageCollector();
+    ast.accept(collector);
+
+    if (!collector.known) {
+      return ContextUsage.UNKNOWN;
+    }
+    return new ContextUsage(
+        true, collector.readValues, collector.writtenValues, collector.writtenActions
+    );
+  }
+
+  @Override
+  public Void visitLiteral(LiteralAstNode node) {
+    return null;
+  }
+
+  @Override
+  public Void visitVariable(VariableAstNode node) {
+    readValues.add(node.getName());
+    return null;
+  }
+
+  @Override
+  public Void visitShellCommand(ShellCommandAstNode node) {
+    return null;
+  }
+
+  @Override
+  public Void visitBlock(BlockAstNode node) {
+    for (AstNode child : node.getChildren()) {
+      child.accept(this);
+    }
+    return null;
+  }
+
+  @Override
+  public Void visitAssignment(AssignmentAstNode node) {
+    writtenValues.add(node.getName());
+    return node.getValue().accept(this);
+  }
+
+  @Override
+  public Void visitAction(ActionAstNode node) {
+    writtenActions.add(node.getAction().getName());
+    return node.getAction().getContent().accept(this);
+  }
+
+  @Override
+  public Void visitScript(ScriptAstNode node) {
+    known = false;
+    return null;
+  }
+
+  @Override
+  public Void visitComparisonAstNode(ComparisonAstNode node) {
+    node.getLeft().accept(this);
+    return node.getRight().accept(this);
+  }
+
+  @Override
+  public Void visitIfAstNode(IfAstNode node) {
+    node.getCondition().accept(this);
+    node.getIfContent().accept(this);
+    if (node.getElseContent() != null) {
+      node.getElseContent().accept(this);
+    }
+    return null;
+  }
+
+  @Override
+  public Void visitActionCall(ActionCallAstNode node) {
+    readValues.add("actions_dir");
+    return null;
+  }
+
+  @Override
+  public Void visitExecuteFile(ExecuteFileAstNode node) {
+    return node.getContent().accept(this);
+  }
+
+  @Override
+  public Void visitReloadAction(ReloadActionAstNode node) {
+    return node.getAction().getContent().accept(this);
+  }
+}
@@ -0,0 +1,250 @@
+package de.ialistannen.configurator.template;
+
+import de.ialistannen.configurator.context.ContextBuilder;
+import de.ialistannen.configurator.context.RenderedAction;
+import de.ialistannen.configurator.dsl.comparison.Condition;
+import de.ialistannen.configurator.dsl.script.Script;
+import de.ialistannen.configurator.rendering.RenderSession;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * An ast lowered to a flat list of instructions, see {@link ProgramCompiler}.
+ *
+ * <p>Every instruction is an opcode followed by a single operand, usually an index into the
+ * constants. All instructions append to a single output buffer. Nodes whose output is used instead
+ * of rendered, like the value of an assignment, first {@link #MARK mark} the current end of the
+ * buffer. The instruction consuming the output takes everything after the mark and cuts it off
+ * again.</p>
+ *
+ * <p>Comparisons do not produce output, they set a single boolean condition that the conditional
+ * jumps read.</p>
+ */
+class Program {
+
+  /**
+   * Appends the constant string.
+   */
+  static final int EMIT = 0;
+  /**
+   * Appends the value of the variable named by the constant.
+   */
+  static final int LOAD_VARIABLE = 1;
+  /**
+   * Appends the value of the variable named by the constant, formatted as rgb.
+   */
+  static final int LOAD_VARIABLE_RGB = 2;
+  /**
+   * Appends the output of the constant shell command, reusing earlier runs in the session.
+   */
+  static final int RUN_SHELL_COMMAND = 3;
+  /**
+   * Appends the output of the constant shell command, always running it again.
+   */
+  static final int RUN_SHELL_COMMAND_ALWAYS = 4;
+  /**
+   * Remembers the current end of the output.
+   */
+  static final int MARK = 5;
+  /**
+   * Stores the output since the last mark as the value named by the constant and cuts it off.
+   */
+  static final int STORE_VALUE = 6;
+  /**
+   * Stores the output since the last mark as the content of the constant action and cuts it off.
+   */
+  static final int STORE_ACTION = 7;
+  /**
+   * Stores the output since the last mark as the content of the constant reload action and cuts it
+   * off.
+   */
+  static final int STORE_RELOAD_ACTION = 8;
+  /**
+   * Stores the output since the last mark as a post script. The output is kept.
+   */
+  static final int STORE_POST_SCRIPT = 9;
+  /**
+   * Runs the constant script.
+   */
+  static final int RUN_SCRIPT = 10;
+  /**
+   * Evaluates the constant comparison on the output since the last two marks and cuts both off.
+   * The result becomes the condition.
+   */
+  static final int TEST = 11;
+  /**
+   * Cuts off the output since the last mark. Whether it was "true" becomes the condition.
+   */
+  static final int TEST_BOOLEAN = 12;
+  /**
+   * Jumps to the operand.
+   */
+  static final int JUMP = 13;
+  /**
+   * Appends the path of an action followed by its arguments. The constant holds the sanitized name
+   * of the action and the argument string.
+   */
+  static final int CALL_ACTION = 14;
+  /**
+   * Jumps to the operand if the condition is false.
+   */
+  static final int JUMP_IF_FALSE = 15;
+  /**
+   * Jumps to the operand if the condition is true.
+   */
+  static final int JUMP_IF_TRUE = 16;
+  /**
+   * Appends the condition as "true" or "false".
+   */
+  static final int APPEND_CONDITION = 17;
+
+  private final int[] code;
+  private final Object[] constants;
+  private final int maxMarks;
+
+  /**
+   * Creates a new program.
+   *
+   * @param code the opcodes, each followed by its operand
+   * @param constants the constants referenced by the operands
+   * @param maxMarks the maximum amount of marks in use at the same time
+   */
+  Program(int[] code, Object[] constants, int maxMarks) {
+    this.code = code;
+    this.constants = constants;
+    this.maxMarks = maxMarks;
+  }
+
+  /**
+   * Runs the program.
+   *
+   * @param context the context to read from and store into
+   * @param session the session of the current run
+   * @param output the buffer to append the rendered output to
+   * @return the context containing everything stored. This is the passed builder, unless a script
+   *     returned a different context.
+   */
+  ContextBuilder run(ContextBuilder context, RenderSession session, StringBuilder output) {
+    int[] marks = new int[maxMarks];
+    int markCount = 0;
+    boolean condition = false;
+    ContextBuilder currentContext = context;
+
+    int pc = 0;
+    while (pc < code.length) {
+      int opcode = code[pc];
+      int operand = code[pc + 1];
+      pc += 2;
+
+      switch (opcode) {
+        case EMIT:
+          output.append((String) constants[operand]);
+          break;
+        case LOAD_VARIABLE:
+          output.append(loadVariable(currentContext, (String) constants[operand]));
+          break;
+        case LOAD_VARIABLE_RGB:
+          appendRgb(output, loadVariable(currentContext, (String) constants[operand]));
+          break;
+        case RUN_SHELL_COMMAND:
+          output.append(session.runShellCommand((String) constants[operand]));
+          break;
+        case RUN_SHELL_COMMAND_ALWAYS:
+          output.append(session.runUncachedShellCommand((String) constants[operand]));
+          break;
+        case MARK:
+          marks[markCount++] = output.length();
+          break;
+        case STORE_VALUE:
+          currentContext.storeValue((String) constants[operand], cut(output, marks[--markCount]));
+          break;
+        case STORE_ACTION:
+          currentContext.storeAction(
+              withContent((RenderedAction) constants[operand], cut(output, marks[--markCount]))
+          );
+          break;
+        case STORE_RELOAD_ACTION:
+          currentContext.storeReloadAction(
+              withContent((RenderedAction) constants[operand], cut(output, marks[--markCount]))
+          );
+          break;
+        case STORE_POST_SCRIPT:
+          currentContext.storePostScript(output.substring(marks[--markCount]));
+          break;
+        case RUN_SCRIPT:
+          currentContext = ContextBuilder.of(((Script) constants[operand]).execute(currentContext));
+          break;
+        case TEST: {
+          String right = cut(output, marks[--markCount]);
+          String left = cut(output, marks[--markCount]);
+          condition = ((Condition) constants[operand]).test(left, right);
+          break;
+        }
+        case TEST_BOOLEAN:
+          condition = Boolean.parseBoolean(cut(output, marks[--markCount]));
+          break;
+        case JUMP:
+          pc = operand;
+          break;
+        case JUMP_IF_FALSE:
+          if (!condition) {
+            pc = operand;
+          }
+          break;
+        case JUMP_IF_TRUE:
+          if (condition) {
+            pc = operand;
+          }
+          break;
+        case APPEND_CONDITION:
+          output.append(condition);
+          break;
+        case CALL_ACTION: {
+          String[] call = (String[]) constants[operand];
+          output.append(Paths.get(currentContext.<String>getValue("actions_dir"))
+              .resolve(call[0])
+              .toAbsolutePath())
+              .append(' ')
+              .append(call[1]);
+          break;
+        }
+        default:
+          throw new IllegalStateException("Unknown opcode " + opcode + " at " + (pc - 2));
+      }
+    }
+
+    return currentContext;
+  }
+
+  private static String loadVariable(ContextBuilder context, String name) {
+    return context.<String>getValueOpt(name)
+        .orElseThrow(() -> new NoSuchElementException("Unknown variable: '" + name + "'"));
+  }
+
+  private static void appendRgb(StringBuilder output, String value) {
+    String withoutPound = value.replace("#", "");
+    int colorInt = Integer.parseInt(withoutPound, 16);
+    int red = (colorInt & 0xFF0000) >> 16;
+    int green = (colorInt & 0x00FF00) >> 8;
+    int blue = colorInt & 0x0000FF;
+    output.append(red).append(", ").append(green).append(", ").append(blue);
+  }
+
+  private static String cut(StringBuilder output, int mark) {
+    String result = output.substring(mark);
+    output.setLength(mark);
+    return result;
+  }
+
+  private static RenderedAction withContent(RenderedAction action, String content) {
+    return new RenderedAction(
+        action.getName(), action.getSanitizedName(), content, action.isHideFromRunAll()
+    );
+  }
+
+  @Override
+  public String toString() {
+    return "Program{code=" + Arrays.toString(code) + ", constants=" + constants.length + "}";
+  }
+}
@@ -0,0 +1,261 @@
+package de.ialistannen.configurator.template;
+
+import de.ialistannen.configurator.context.Action;
+import de.ialistannen.configurator.context.RenderedAction;
+import de.ialistannen.configurator.dsl.ActionAstNode;
+import de.ialistannen.configurator.dsl.ActionCallAstNode;
+import de.ialistannen.configurator.dsl.AssignmentAstNode;
+import de.ialistannen.configurator.dsl.AstNode;
+import de.ialistannen.configurator.dsl.AstVisitor;
+import de.ialistannen.configurator.dsl.BlockAstNode;
+import de.ialistannen.configurator.dsl.ExecuteFileAstNode;
+import de.ialistannen.configurator.dsl.IfAstNode;
+import de.ialistannen.configurator.dsl.LiteralAstNode;
+import de.ialistannen.configurator.dsl.ReloadActionAstNode;
+import de.ialistannen.configurator.dsl.ScriptAstNode;
+import de.ialistannen.configurator.dsl.ShellCommandAstNode;
+import de.ialistannen.configurator.dsl.VariableAstNode;
+import de.ialistannen.configurator.dsl.comparison.ComparisonAstNode;
+import de.ialistannen.configurator.dsl.comparison.ComparisonOperator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Lowers an ast to a {@link Program}.
+ *
+ * <p>Blocks disappear, their children are emitted one after another. Adjacent literals are joined
+ * into a single one. An if becomes a conditional jump over its if content and an unconditional
+ * jump over its else content. Its comparison is evaluated directly into the condition the jump
+ * reads, and {@code &&} as well as {@code ||} jump over their right operand when the left one
+ * decides the result.</p>
+ */
+class ProgramCompiler implements AstVisitor<Void> {
+
+  private int[] code;
+  private int codeLength;
+  private final List<Object> constants;
+  private final StringBuilder pendingLiteral;
+  private int marks;
+  private int maxMarks;
+
+  private ProgramCompiler() {
+    this.code = new int[32];
+    this.constants = new ArrayList<>();
+    this.pendingLiteral = new StringBuilder();
+  }
+
+  /**
+   * Compiles an ast.
+   *
+   * @param ast the ast
+   * @return the resulting program
+   */
+  static Program compile(AstNode ast) {
+    ProgramCompiler compiler = new ProgramCompiler();
+    ast.accept(compiler);
+    compiler.flushLiteral();
+
+    return new Program(
+        Arrays.copyOf(compiler.code, compiler.codeLength),
+        compiler.constants.toArray(),
+        compiler.maxMarks
+    );
+  }
+
+  @Override
+  public Void visitLiteral(LiteralAstNode node) {
+    pendingLiteral.append(node.getText());
+    return null;
+  }
+
+  @Override
+  public Void visitVariable(VariableAstNode node) {
+    boolean rgb = node.getExtraArguments().contains("rgb");
+    emit(rgb ? Program.LOAD_VARIABLE_RGB : Program.LOAD_VARIABLE, constant(node.getName()));
+    return null;
+  }
+
+  @Override
+  public Void visitShellCommand(ShellCommandAstNode node) {
+    emit(
+        node.isAlwaysRun() ? Program.RUN_SHELL_COMMAND_ALWAYS : Program.RUN_SHELL_COMMAND,
+        constant(node.getCommand())
+    );
+    return null;
+  }
+
+  @Override
+  public Void visitBlock(BlockAstNode node) {
+    for (AstNode child : node.getChildren()) {
+      child.accept(this);
+    }
+    return null;
+  }
+
+  @Override
+  public Void visitAssignment(AssignmentAstNode node) {
+    mark();
+    node.getValue().accept(this);
+    emitConsumingMark(Program.STORE_VALUE, constant(node.getName()));
+    return null;
+  }
+
+  @Override
+  public Void visitAction(ActionAstNode node) {
+    mark();
+    node.getAction().getContent().accept(this);
+    emitConsumingMark(Program.STORE_ACTION, constant(withoutContent(node.getAction())));
+    return null;
+  }
+
+  @Override
+  public Void visitScript(ScriptAstNode node) {
+    emit(Program.RUN_SCRIPT, constant(node.getScript()));
+    return null;
+  }
+
+  @Override
+  public Void visitComparisonAstNode(ComparisonAstNode node) {
+    compileCondition(node);
+    emit(Program.APPEND_CONDITION, -1);
+    return null;
+  }
+
+  @Override
+  public Void visitIfAstNode(IfAstNode node) {
+    compileCondition(node.getCondition());
+    int jumpToElse = emit(Program.JUMP_IF_FALSE, -1);
+
+    node.getIfContent().accept(this);
+    if (node.getElseContent() == null) {
+      patchJump(jumpToElse);
+      return null;
+    }
+    int jumpToEnd = emit(Program.JUMP, -1);
+    patchJump(jumpToElse);
+
+    node.getElseContent().accept(this);
+    patchJump(jumpToEnd);
+    return null;
+  }
+
+  @Override
+  public Void visitActionCall(ActionCallAstNode node) {
+    String name = new Action(node.getName(), new LiteralAstNode(""), false).getSanitizedName();
+    emit(Program.CALL_ACTION, constant(new String[]{name, node.getArgumentString()}));
+    return null;
+  }
+
+  @Override
+  public Void visitExecuteFile(ExecuteFileAstNode node) {
+    mark();
+    node.getContent().accept(this);
+    emitConsumingMark(Program.STORE_POST_SCRIPT, -1);
+    return null;
+  }
+
+  @Override
+  public Void visitReloadAction(ReloadActionAstNode node) {
+    mark();
+    node.getAction().getContent().accept(this);
+    emitConsumingMark(Program.STORE_RELOAD_ACTION, constant(withoutContent(node.getAction())));
+    return null;
+  }
+
+  /**
+   * Compiles a comparison to instructions that set the condition. The right operand of {@code &&}
+   * and {@code ||} is skipped if the left one already decides the result.
+   *
+   * @param node the comparison
+   */
+  private void compileCondition(ComparisonAstNode node) {
+    ComparisonOperator operator = node.getOperator();
+    if (operator.isShortCircuiting()) {
+      testBoolean(node.getLeft());
+      int shortCircuit = emit(
+          operator == ComparisonOperator.AND ? Program.JUMP_IF_FALSE : Program.JUMP_IF_TRUE, -1
+      );
+      testBoolean(node.getRight());
+      patchJump(shortCircuit);
+      return;
+    }
+
+    mark();
+    node.getLeft().accept(this);
+    mark();
+    node.getRight().accept(this);
+    emitConsumingMark(Program.TEST, constant(node.getCondition()));
+    marks--;
+  }
+
+  private void testBoolean(AstNode operand) {
+    mark();
+    operand.accept(this);
+    emitConsumingMark(Program.TEST_BOOLEAN, -1);
+  }
+
+  private void mark() {
+    emit(Program.MARK, -1);
+    marks++;
+    maxMarks = Math.max(maxMarks, marks);
+  }
+
+  private int emitConsumingMark(int opcode, int operand) {
+    int position = emit(opcode, operand);
+    marks--;
+    return position;
+  }
+
+  /**
+   * Appends an instruction, after any literal text that precedes it.
+   *
+   * @param opcode the opcode
+   * @param operand the operand
+   * @return the position of the instruction
+   */
+  private int emit(int opcode, int operand) {
+    flushLiteral();
+    return append(opcode, operand);
+  }
+
+  private void flushLiteral() {
+    if (pendingLiteral.length() == 0) {
+      return;
+    }
+    int operand = constant(pendingLiteral.toString());
+    pendingLiteral.setLength(0);
+    append(Program.EMIT, operand);
+  }
+
+  private int append(int opcode, int operand) {
+    if (codeLength + 2 > code.length) {
+      code = Arrays.copyOf(code, code.length * 2);
+    }
+    int position = codeLength;
+    code[codeLength++] = opcode;
+    code[codeLength++] = operand;
+    return position;
+  }
+
+  /**
+   * Makes a jump continue after the last emitted instruction.
+   *
+   * @param jump the position of the jump
+   */
+  private void patchJump(int jump) {
+    flushLiteral();
+    code[jump + 1] = codeLength;
+  }
+
+  private int constant(Object value) {
+    constants.add(value);
+    return constants.size() - 1;
+  }
+
+  private static RenderedAction withoutContent(Action action) {
+    return new RenderedAction(
+        action.getName(), action.getSanitizedName(), "", action.isHideFromRunAll()
+    );
+  }
+}
@@ -0,0 +1,119 @@
+package de.ialistannen.configurator.template;
+
+import de.ialistannen.configurator.dsl.ActionAstNode;
+import de.ialistannen.configurator.dsl.ActionCallAstNode;
+import de.ialistannen.configurator.dsl.AssignmentAstNode;
+import de.ialistannen.configurator.dsl.AstNode;
+import de.ialistannen.configurator.dsl.AstVisitor;
+import de.ialistannen.configurator.dsl.BlockAstNode;
+import de.ialistannen.configurator.dsl.ExecuteFileAstNode;
+import de.ialistannen.configurator.dsl.IfAstNode;
+import de.ialistannen.configurator.dsl.LiteralAstNode;
+import de.ialistannen.configurator.dsl.ReloadActionAstNode;
+import de.ialistannen.configurator.dsl.ScriptAstNode;
+import de.ialistannen.configurator.dsl.ShellCommandAstNode;
+import de.ialistannen.configurator.dsl.VariableAstNode;
+import de.ialistannen.configurator.dsl.comparison.ComparisonAstNode;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Collects the shell commands that run whenever an ast is rendered.
+ *
+ * <p>Commands in the branches of an if only run depending on the context and commands that must
+ * always run need to run in place, so neither is collected. The condition of an if always runs,
+ * though, except for the right operand of {@code &&} and {@code ||}.</p>
+ */
+class ShellCommandCollector implements AstVisitor<Void> {
+
+  private final Set<String> commands;
+
+  private ShellCommandCollector() {
+    this.commands = new LinkedHashSet<>();
+  }
+
+  /**
+   * Collects all distinct shell commands that run whenever the ast is rendered.
+   *
+   * @param ast the ast
+   * @return the commands in the order they appear in
+   */
+  static List<String> collectUnconditional(AstNode ast) {
+    ShellCommandCollector collector = new ShellCommandCollector();
+    ast.accept(collector);
+    return new ArrayList<>(collector.commands);
+  }
+
+  @Override
+  public Void visitLiteral(LiteralAstNode node) {
+    return null;
+  }
+
+  @Override
+  public Void visitVariable(VariableAstNode node) {
+    return null;
+  }
+
+  @Override
+  public Void visitShellCommand(ShellCommandAstNode node) {
+    if (!node.isAlwaysRun()) {
+      commands.add(node.getCommand());
+    }
+    return null;
+  }
+
+  @Override
+  public Void visitBlock(BlockAstNode node) {
+    for (AstNode child : node.getChildren()) {
+      child.accept(this);
+    }
+    return null;
+  }
+
+  @Override
+  public Void visitAssignment(AssignmentAstNode node) {
+    return node.getValue().accept(this);
+  }
+
+  @Override
+  public Void visitAction(ActionAstNode node) {
+    return node.getAction().getContent().accept(this);
+  }
+
+  @Override
+  public Void visitScript(ScriptAstNode node) {
+    return null;
+  }
+
+  @Override
+  public Void visitComparisonAstNode(ComparisonAstNode node) {
+    node.getLeft().accept(this);
+    if (node.getOperator().isShortCircuiting()) {
+      // The right operand is skipped when the left one decides the result
+      return null;
+    }
+    return node.getRight().accept(this);
+  }
+
+  @Override
+  public Void visitIfAstNode(IfAstNode node) {
+    return node.getCondition().accept(this);
+  }
+
+  @Override
+  public Void visitActionCall(ActionCallAstNode node) {
+    return null;
+  }
+
+  @Override
+  public Void visitExecuteFile(ExecuteFileAstNode node) {
+    return node.getContent().accept(this);
+  }
+
+  @Override
+  public Void visitReloadAction(ReloadActionAstNode node) {
+    return node.getAction().getContent().accept(this);
+  }
+}
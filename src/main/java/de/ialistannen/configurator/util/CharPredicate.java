@@ -0,0 +1,16 @@
+package de.ialistannen.configurator.util;
+
+/**
+ * A predicate on a single, unboxed char.
+ */
+@FunctionalInterface
+public interface CharPredicate {
+
+  /**
+   * Tests the given char.
+   *
+   * @param c the char to test
+   * @return true if the char matches
+   */
+  boolean test(char c);
+}
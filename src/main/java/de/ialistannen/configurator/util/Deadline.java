@@ -0,0 +1,72 @@
+package de.ialistannen.configurator.util;
+
+import java.time.Duration;
+
+/**
+ * A point in time something has to finish by.
+ */
+public final class Deadline {
+
+  /**
+   * A deadline that never expires.
+   */
+  public static final Deadline NONE = new Deadline(0, false);
+
+  private final long nanoTime;
+  private final boolean bounded;
+
+  private Deadline(long nanoTime, boolean bounded) {
+    this.nanoTime = nanoTime;
+    this.bounded = bounded;
+  }
+
+  /**
+   * Returns a deadline that expires after the given duration.
+   *
+   * @param duration the duration or null for no deadline
+   * @return the deadline
+   */
+  public static Deadline after(Duration duration) {
+    if (duration == null) {
+      return NONE;
+    }
+    return new Deadline(System.nanoTime() + duration.toNanos(), true);
+  }
+
+  /**
+   * Returns the deadline that expires first.
+   *
+   * @param other the other deadline
+   * @return the earlier deadline
+   */
+  public Deadline min(Deadline other) {
+    if (!bounded) {
+      return other;
+    }
+    if (!other.bounded) {
+      return this;
+    }
+    return nanoTime - other.nanoTime <= 0 ? this : other;
+  }
+
+  /**
+   * Returns the remaining time in nanoseconds. Never negative.
+   *
+   * @return the remaining nanoseconds or {@link Long#MAX_VALUE} if this deadline never expires
+   */
+  public long remainingNanos() {
+    if (!bounded) {
+      return Long.MAX_VALUE;
+    }
+    return Math.max(0, nanoTime - System.nanoTime());
+  }
+
+  /**
+   * Returns whether the deadline has passed.
+   *
+   * @return true if the deadline has passed
+   */
+  public boolean isExpired() {
+    return remainingNanos() == 0;
+  }
+}
@@ -5,11 +5,23 @@ import static de.ialistannen.configurator.output.TerminalColor.BRIGHT_MAGENTA;
 import static de.ialistannen.configurator.output.TerminalColor.GREEN;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.UUID;
 import lombok.experimental.UtilityClass;
 
 /**
@@ -26,7 +38,6 @@ public class FileUtils {
    * @throws IOException if an error occurs
    */
   public static void deleteDirectory(Path directory, boolean dry) throws IOException {
-    colorOut(BRIGHT_MAGENTA + "Deleting actions dir");
     Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
       @Override
       public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
@@ -50,4 +61,156 @@ public class FileUtils {
     });
   }
 
+  /**
+   * Writes a file unless it already has exactly the given content. The file is replaced
+   * atomically, so readers never see a partially written file. Symbolic links are followed and
+   * the permissions of an existing file are kept.
+   *
+   * @param file the file to write
+   * @param content the content the file should have
+   * @param dry whether to only check what would happen
+   * @return what happened (or would happen) to the file
+   * @throws IOException if an error occurs
+   */
+  public static WriteResult writeIfChanged(Path file, byte[] content, boolean dry)
+      throws IOException {
+    if (Files.notExists(file)) {
+      if (!dry) {
+        writeAtomically(file, content);
+      }
+      return WriteResult.CREATED;
+    }
+
+    Path realFile = file.toRealPath();
+    if (hasContent(realFile, content)) {
+      return WriteResult.UNCHANGED;
+    }
+    if (!dry) {
+      writeAtomically(realFile, content);
+    }
+    return WriteResult.CHANGED;
+  }
+
+  /**
+   * Checks whether a file has exactly the given content. Only reads the file if the size matches
+   * and stops at the first difference.
+   *
+   * @param file the file to check
+   * @param content the expected content
+   * @return true if the file has the given content
+   * @throws IOException if an error occurs reading the file
+   */
+  public static boolean hasContent(Path file, byte[] content) throws IOException {
+    if (!Files.isRegularFile(file) || Files.size(file) != content.length) {
+      return false;
+    }
+    return contentEquals(file, content);
+  }
+
+  /**
+   * Compares the content of a file with the given bytes, stopping at the first difference. Callers
+   * should compare the file size first, as this always reads the file.
+   *
+   * @param file the file to compare
+   * @param content the expected content
+   * @return true if the file has the given content
+   * @throws IOException if an error occurs reading the file
+   */
+  public static boolean contentEquals(Path file, byte[] content) throws IOException {
+    byte[] buffer = new byte[8192];
+    int offset = 0;
+    try (InputStream input = Files.newInputStream(file)) {
+      int read;
+      while ((read = input.read(buffer)) >= 0) {
+        if (offset + read > content.length) {
+          return false;
+        }
+        for (int i = 0; i < read; i++) {
+          if (buffer[i] != content[offset + i]) {
+            return false;
+          }
+        }
+        offset += read;
+      }
+    }
+    return offset == content.length;
+  }
+
+  /**
+   * Replaces a file by writing a temporary file next to it and renaming it. The permissions of an
+   * existing file are kept.
+   *
+   * @param file the file to write
+   * @param content the content to write
+   * @throws IOException if an error occurs
+   */
+  public static void writeAtomically(Path file, byte[] content) throws IOException {
+    Set<PosixFilePermission> permissions = null;
+    if (Files.exists(file)) {
+      permissions = Files.getPosixFilePermissions(file);
+    }
+    writeAtomically(file, content, permissions, null);
+  }
+
+  /**
+   * Replaces a file by writing a temporary file next to it and renaming it.
+   *
+   * @param file the file to write
+   * @param content the content to write
+   * @param permissions the exact permissions of the written file or null to use the defaults
+   * @param createPermissions the permissions to create the file with or null to use the
+   *     defaults. Unlike {@code permissions} these are restricted by the umask, but need no
+   *     additional system call.
+   * @throws IOException if an error occurs
+   */
+  public static void writeAtomically(Path file, byte[] content,
+      Set<PosixFilePermission> permissions, Set<PosixFilePermission> createPermissions)
+      throws IOException {
+    Path temp = file.resolveSibling("." + file.getFileName() + "." + UUID.randomUUID() + ".tmp");
+
+    Set<StandardOpenOption> options = EnumSet.of(
+        StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE
+    );
+    FileAttribute<?>[] attributes = createPermissions == null
+        ? new FileAttribute<?>[0]
+        : new FileAttribute<?>[]{PosixFilePermissions.asFileAttribute(createPermissions)};
+
+    try {
+      try (SeekableByteChannel channel = Files.newByteChannel(temp, options, attributes)) {
+        ByteBuffer buffer = ByteBuffer.wrap(content);
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+      }
+      if (permissions != null) {
+        Files.setPosixFilePermissions(temp, permissions);
+      }
+
+      try {
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  /**
+   * What happened to a file that should have a given content.
+   */
+  public enum WriteResult {
+    /**
+     * The file did not exist.
+     */
+    CREATED,
+    /**
+     * The file existed with different content.
+     */
+    CHANGED,
+    /**
+     * The file already had the content.
+     */
+    UNCHANGED
+  }
 }
@@ -0,0 +1,105 @@
+package de.ialistannen.configurator.util;
+
+import java.util.Arrays;
+
+/**
+ * Maps offsets in a source string to line and column numbers.
+ *
+ * <p>The start offsets of all lines are computed once, on the first lookup. After that every
+ * lookup is a binary search. A single index is shared by all {@link StringReader}s working on the
+ * same source.</p>
+ */
+public final class LineIndex {
+
+  private final String source;
+  private volatile int[] lineStarts;
+
+  /**
+   * Creates a new line index for the given source. The index itself is built lazily.
+   *
+   * @param source the source string
+   */
+  public LineIndex(String source) {
+    this.source = source;
+  }
+
+  /**
+   * Returns the line number of the given offset, starting with 1.
+   *
+   * @param offset the offset in the source
+   * @return the line number
+   */
+  public int getLineNumber(int offset) {
+    return lineIndexOf(offset) + 1;
+  }
+
+  /**
+   * Returns the column of the given offset in its line, starting with 1.
+   *
+   * @param offset the offset in the source
+   * @return the column
+   */
+  public int getColumn(int offset) {
+    return offset - getLineStarts()[lineIndexOf(offset)] + 1;
+  }
+
+  /**
+   * Returns the offset the given line starts at.
+   *
+   * @param lineNumber the line number, starting with 1
+   * @return the offset of the first char in the line
+   * @throws IndexOutOfBoundsException if the line does not exist
+   */
+  public int getLineStart(int lineNumber) {
+    int[] starts = getLineStarts();
+    if (lineNumber < 1 || lineNumber > starts.length) {
+      throw new IndexOutOfBoundsException("Line " + lineNumber + " of " + starts.length);
+    }
+    return starts[lineNumber - 1];
+  }
+
+  /**
+   * Returns the amount of lines in the source. A trailing newline starts a new (empty) line.
+   *
+   * @return the amount of lines
+   */
+  public int getLineCount() {
+    return getLineStarts().length;
+  }
+
+  private int lineIndexOf(int offset) {
+    if (offset < 0 || offset > source.length()) {
+      throw new IndexOutOfBoundsException("Offset " + offset + " of " + source.length());
+    }
+    int[] starts = getLineStarts();
+    int index = Arrays.binarySearch(starts, offset);
+    if (index >= 0) {
+      return index;
+    }
+    // insertion point - 1 is the last line starting before the offset
+    return -index - 2;
+  }
+
+  private int[] getLineStarts() {
+    int[] starts = lineStarts;
+    if (starts == null) {
+      starts = computeLineStarts();
+      lineStarts = starts;
+    }
+    return starts;
+  }
+
+  private int[] computeLineStarts() {
+    int[] starts = new int[16];
+    int count = 1;
+
+    for (int i = source.indexOf('\n'); i >= 0; i = source.indexOf('\n', i + 1)) {
+      if (count == starts.length) {
+        starts = Arrays.copyOf(starts, count * 2);
+      }
+      starts[count++] = i + 1;
+    }
+
+    return Arrays.copyOf(starts, count);
+  }
+}
@@ -6,11 +6,21 @@ import static de.ialistannen.configurator.output.TerminalColor.RED;
 
 /**
  * An exception that occurred during parsing.
+ *
+ * <p>The parser uses these exceptions to backtrack, so most of them are never shown to anybody.
+ * Creating one is therefore cheap: the stack trace is not captured and the message with its
+ * context is only built when it is requested.</p>
  */
 public class ParseException extends Exception {
 
   private static final int CONTEXT_LENGTH = 10;
 
+  private final String source;
+  private final LineIndex lineIndex;
+  private final int position;
+  private final String detail;
+  private String message;
+
   /**
    * Creates a new parse exception.
    *
@@ -21,20 +31,65 @@ public class ParseException extends Exception {
    * @param detail the detail error message
    */
   public ParseException(StringReader reader, String detail) {
-    super(getContext(reader, detail));
+    super(null, null, false, false);
+    this.source = reader.getUnderlying();
+    this.lineIndex = reader.getLineIndex();
+    this.position = reader.getPosition();
+    this.detail = detail;
+  }
+
+  @Override
+  public String getMessage() {
+    if (message == null) {
+      message = getContext();
+    }
+    return message;
+  }
+
+  /**
+   * Returns the detail message without any context.
+   *
+   * @return the detail message
+   */
+  public String getDetail() {
+    return detail;
+  }
+
+  /**
+   * Returns the offset in the source the error occurred at.
+   *
+   * @return the offset of the error
+   */
+  public int getPosition() {
+    return position;
+  }
+
+  /**
+   * Returns the line the error occurred in, starting with 1.
+   *
+   * @return the line number
+   */
+  public int getLineNumber() {
+    return lineIndex.getLineNumber(position);
+  }
+
+  /**
+   * Returns the column the error occurred in, starting with 1.
+   *
+   * @return the column
+   */
+  public int getColumn() {
+    return lineIndex.getColumn(position);
   }
 
-  private static String getContext(StringReader input, String detail) {
-    int start = input.getPosition();
-    start = Math.max(start - CONTEXT_LENGTH, 0);
-    String contextString = input.getUnderlying().substring(start, input.getPosition())
-        .replaceAll("\\n", "⏎");
+  private String getContext() {
+    int start = Math.max(position - CONTEXT_LENGTH, 0);
+    String contextString = source.substring(start, position).replace("\n", "⏎");
 
-    int end = Math.min(input.getPosition() + CONTEXT_LENGTH, input.getUnderlying().length());
-    String contextAfterString = input.getUnderlying().substring(input.getPosition(), end)
-        .replaceAll("\\n", "⏎");
+    int end = Math.min(position + CONTEXT_LENGTH, source.length());
+    String contextAfterString = source.substring(position, end).replace("\n", "⏎");
 
-    String lineString = " (line " + input.getLineNumber() + ")";
+    String lineString = " (line " + getLineNumber() + ", column " + getColumn() + ")";
 
     if (!detail.isEmpty()) {
       return GREEN + detail
@@ -0,0 +1,282 @@
+package de.ialistannen.configurator.util;
+
+import de.ialistannen.configurator.profiling.Category;
+import de.ialistannen.configurator.profiling.Profiler;
+import de.ialistannen.configurator.profiling.Span;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+
+/**
+ * Runs external processes.
+ *
+ * <ul>
+ *   <li>Every process has to finish before its own timeout and before the deadline of the run it
+ *   belongs to. Otherwise it is killed, together with all processes it started.</li>
+ *   <li>Only a limited number of processes run at the same time, no matter how many threads
+ *   use the executor.</li>
+ *   <li>Standard output and standard error are read concurrently, so a process never blocks
+ *   on a full pipe. Only the first few bytes of each are kept.</li>
+ * </ul>
+ */
+public class ProcessExecutor {
+
+  /**
+   * The default maximum amount of processes running at the same time.
+   */
+  public static final int DEFAULT_MAX_PROCESSES = Math.max(
+      4, 2 * Runtime.getRuntime().availableProcessors()
+  );
+  /**
+   * The default time a single process may take.
+   */
+  public static final Duration DEFAULT_COMMAND_TIMEOUT = Duration.ofSeconds(60);
+  /**
+   * The default limit of bytes kept per output stream.
+   */
+  public static final int DEFAULT_OUTPUT_LIMIT = 16 * 1024 * 1024;
+
+  private static final ExecutorService DRAIN_EXECUTOR = Executors.newCachedThreadPool(r -> {
+    Thread thread = new Thread(r, "ProcessOutputDrainer");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private final int maxConcurrentProcesses;
+  private final Semaphore processPermits;
+  private final Duration commandTimeout;
+  private final Duration runTimeout;
+  private final int outputLimit;
+
+  /**
+   * Creates a new process executor.
+   *
+   * @param maxConcurrentProcesses the maximum amount of processes running at the same time
+   * @param commandTimeout the time a single process may take or null for no limit
+   * @param runTimeout the time all processes of a run may take together or null for no limit
+   * @param outputLimit the maximum amount of bytes kept per output stream
+   */
+  public ProcessExecutor(int maxConcurrentProcesses, Duration commandTimeout, Duration runTimeout,
+      int outputLimit) {
+    if (maxConcurrentProcesses <= 0) {
+      throw new IllegalArgumentException("Need to allow at least one process");
+    }
+    this.maxConcurrentProcesses = maxConcurrentProcesses;
+    this.processPermits = new Semaphore(maxConcurrentProcesses, true);
+    this.commandTimeout = commandTimeout;
+    this.runTimeout = runTimeout;
+    this.outputLimit = outputLimit;
+  }
+
+  /**
+   * Returns the maximum amount of processes running at the same time.
+   *
+   * @return the maximum amount of concurrent processes
+   */
+  public int getMaxConcurrentProcesses() {
+    return maxConcurrentProcesses;
+  }
+
+  /**
+   * Returns the deadline for a run that starts now.
+   *
+   * @return the deadline all processes of the run have to finish by
+   */
+  public Deadline newRunDeadline() {
+    return Deadline.after(runTimeout);
+  }
+
+  /**
+   * Runs a process and waits for it to finish.
+   *
+   * @param command the command and its arguments
+   * @param runDeadline the deadline of the run the process belongs to
+   * @return the result of the process
+   * @throws IOException if the process could not be started
+   * @throws InterruptedException if the thread was interrupted while waiting
+   */
+  public ProcessResult run(List<String> command, Deadline runDeadline)
+      throws IOException, InterruptedException {
+    return run(command, String.join(" ", command), runDeadline);
+  }
+
+  /**
+   * Runs a process and waits for it to finish. The lifetime of the process is recorded as a
+   * {@link Category#SHELL_COMMAND} span, the time spent waiting for a free slot is not.
+   *
+   * @param command the command and its arguments
+   * @param name the name of the process in profiles
+   * @param runDeadline the deadline of the run the process belongs to
+   * @return the result of the process
+   * @throws IOException if the process could not be started
+   * @throws InterruptedException if the thread was interrupted while waiting
+   */
+  public ProcessResult run(List<String> command, String name, Deadline runDeadline)
+      throws IOException, InterruptedException {
+    Deadline deadline = runDeadline.min(Deadline.after(commandTimeout));
+
+    if (!processPermits.tryAcquire(deadline.remainingNanos(), TimeUnit.NANOSECONDS)) {
+      return new ProcessResult(-1, new byte[0], new byte[0], true, false);
+    }
+    try {
+      return runWithPermit(command, name, deadline);
+    } finally {
+      processPermits.release();
+    }
+  }
+
+  private ProcessResult runWithPermit(List<String> command, String name, Deadline deadline)
+      throws IOException, InterruptedException {
+    Span span = Profiler.getProfiler().start();
+    try {
+      return runProcess(command, deadline);
+    } finally {
+      span.end(Category.SHELL_COMMAND, name);
+    }
+  }
+
+  private ProcessResult runProcess(List<String> command, Deadline deadline)
+      throws IOException, InterruptedException {
+    Process process = new ProcessBuilder(command).start();
+    process.getOutputStream().close();
+
+    CappedOutput stdout = new CappedOutput(outputLimit);
+    CappedOutput stderr = new CappedOutput(outputLimit);
+    CompletableFuture<Void> drained = CompletableFuture.allOf(
+        drain(process.getInputStream(), stdout),
+        drain(process.getErrorStream(), stderr)
+    );
+
+    boolean timedOut = !process.waitFor(deadline.remainingNanos(), TimeUnit.NANOSECONDS);
+    if (!timedOut) {
+      // Children that outlive the process might still hold the pipes open
+      timedOut = !awaitDrained(drained, deadline);
+    }
+    if (timedOut) {
+      killTree(process);
+      closeQuietly(process.getInputStream());
+      closeQuietly(process.getErrorStream());
+    }
+
+    return new ProcessResult(
+        timedOut ? -1 : process.exitValue(),
+        stdout.toByteArray(),
+        stderr.toByteArray(),
+        timedOut,
+        stdout.isTruncated() || stderr.isTruncated()
+    );
+  }
+
+  private static CompletableFuture<Void> drain(InputStream inputStream, CappedOutput output) {
+    return CompletableFuture.runAsync(() -> {
+      byte[] buffer = new byte[8192];
+      try (InputStream input = inputStream) {
+        int read;
+        while ((read = input.read(buffer)) >= 0) {
+          output.write(buffer, read);
+        }
+      } catch (IOException ignored) {
+        // The stream was closed because the process was killed
+      }
+    }, DRAIN_EXECUTOR);
+  }
+
+  private static boolean awaitDrained(CompletableFuture<Void> drained, Deadline deadline)
+      throws InterruptedException {
+    try {
+      drained.get(deadline.remainingNanos(), TimeUnit.NANOSECONDS);
+      return true;
+    } catch (TimeoutException e) {
+      return false;
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Draining process output failed", e.getCause());
+    }
+  }
+
+  /**
+   * Kills a process and all of its descendants. On Java 8 only the process itself can be killed.
+   *
+   * @param process the process to kill
+   */
+  private static void killTree(Process process) {
+    List<Object> descendants = findDescendants(process);
+    process.destroyForcibly();
+
+    for (Object descendant : descendants) {
+      try {
+        Class.forName("java.lang.ProcessHandle").getMethod("destroyForcibly").invoke(descendant);
+      } catch (ReflectiveOperationException ignored) {
+      }
+    }
+  }
+
+  private static List<Object> findDescendants(Process process) {
+    List<Object> descendants = new ArrayList<>();
+    try {
+      Method descendantsMethod = Process.class.getMethod("descendants");
+      try (Stream<?> stream = (Stream<?>) descendantsMethod.invoke(process)) {
+        Iterator<?> iterator = stream.iterator();
+        while (iterator.hasNext()) {
+          descendants.add(iterator.next());
+        }
+      }
+    } catch (ReflectiveOperationException | RuntimeException ignored) {
+      // Not available before Java 9
+    }
+    return descendants;
+  }
+
+  private static void closeQuietly(InputStream inputStream) {
+    try {
+      inputStream.close();
+    } catch (IOException ignored) {
+    }
+  }
+
+  /**
+   * Keeps the first bytes written to it and discards the rest. Thread safe, as a process might be
+   * abandoned while its output is still being read.
+   */
+  private static class CappedOutput {
+
+    private final ByteArrayOutputStream bytes;
+    private final int limit;
+    private boolean truncated;
+
+    CappedOutput(int limit) {
+      this.bytes = new ByteArrayOutputStream();
+      this.limit = limit;
+    }
+
+    synchronized void write(byte[] buffer, int length) {
+      int kept = Math.min(length, limit - bytes.size());
+      if (kept < length) {
+        truncated = true;
+      }
+      if (kept > 0) {
+        bytes.write(buffer, 0, kept);
+      }
+    }
+
+    synchronized boolean isTruncated() {
+      return truncated;
+    }
+
+    synchronized byte[] toByteArray() {
+      return bytes.toByteArray();
+    }
+  }
+}
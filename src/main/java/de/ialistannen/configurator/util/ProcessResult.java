@@ -0,0 +1,44 @@
+package de.ialistannen.configurator.util;
+
+import java.nio.charset.Charset;
+import lombok.Data;
+
+/**
+ * The result of running a process with a {@link ProcessExecutor}.
+ */
+@Data
+public class ProcessResult {
+
+  private final int exitCode;
+  private final byte[] stdout;
+  private final byte[] stderr;
+  private final boolean timedOut;
+  private final boolean truncated;
+
+  /**
+   * Returns the standard output decoded with the platform charset.
+   *
+   * @return the standard output
+   */
+  public String getStdoutString() {
+    return new String(stdout, Charset.defaultCharset());
+  }
+
+  /**
+   * Returns the standard error decoded with the platform charset.
+   *
+   * @return the standard error
+   */
+  public String getStderrString() {
+    return new String(stderr, Charset.defaultCharset());
+  }
+
+  /**
+   * Returns whether the process finished in time with an exit code of zero.
+   *
+   * @return true if the process succeeded
+   */
+  public boolean isSuccess() {
+    return !timedOut && exitCode == 0;
+  }
+}
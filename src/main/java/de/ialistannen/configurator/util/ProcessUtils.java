@@ -1,20 +1,44 @@
 package de.ialistannen.configurator.util;
 
-import java.io.BufferedReader;
+import de.ialistannen.configurator.profiling.JfrEvents;
+import de.ialistannen.configurator.profiling.ShellCommandEvent;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.attribute.PosixFilePermission;
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.EnumSet;
-import java.util.List;
 import java.util.Set;
 
 public class ProcessUtils {
 
+  private static volatile ProcessExecutor executor = new ProcessExecutor(
+      ProcessExecutor.DEFAULT_MAX_PROCESSES,
+      ProcessExecutor.DEFAULT_COMMAND_TIMEOUT,
+      null,
+      ProcessExecutor.DEFAULT_OUTPUT_LIMIT
+  );
+
+  /**
+   * Sets the executor all processes are run with.
+   *
+   * @param executor the executor to use
+   */
+  public static void setExecutor(ProcessExecutor executor) {
+    ProcessUtils.executor = executor;
+  }
+
+  /**
+   * Returns the executor all processes are run with.
+   *
+   * @return the executor
+   */
+  public static ProcessExecutor getExecutor() {
+    return executor;
+  }
+
   /**
    * Executes a command and captures the output.
    *
@@ -22,34 +46,78 @@ public class ProcessUtils {
    * @return the stdout of the program
    */
   public static String runWithShellForOutput(String command) {
-    ProcessBuilder processBuilder = new ProcessBuilder("/bin/sh", "-c", command);
-    try {
-      Process process = processBuilder.start();
-      try (InputStream input = process.getInputStream()) {
-        String output = readOutput(input);
-
-        int exitCode = process.waitFor();
-        if (exitCode != 0) {
-          return "Process exited with exit code " + exitCode + "!";
-        }
+    return runWithShellForOutput(command, executor.newRunDeadline());
+  }
 
-        return output;
+  /**
+   * Executes a command and captures the output.
+   *
+   * @param command the command to run
+   * @param runDeadline the deadline of the run the command belongs to
+   * @return the stdout of the program
+   */
+  public static String runWithShellForOutput(String command, Deadline runDeadline) {
+    ShellCommandEvent event = JfrEvents.startShellCommand();
+    ProcessResult result = null;
+    try {
+      result = executor.run(Arrays.asList("/bin/sh", "-c", command), command, runDeadline);
+      if (result.isTimedOut()) {
+        return "Process timed out!";
+      }
+      if (result.getExitCode() != 0) {
+        return "Process exited with exit code " + result.getExitCode() + "!";
       }
+
+      return joinLines(result.getStdoutString());
     } catch (IOException | InterruptedException e) {
       throw new RuntimeException(e);
+    } finally {
+      if (event != null) {
+        // A process that never ran is reported with exit code -1
+        event.finished(
+            command,
+            result == null ? -1 : result.getExitCode(),
+            result != null && result.isTimedOut()
+        );
+      }
     }
   }
 
-  private static String readOutput(InputStream inputStream) throws IOException {
-    try (InputStreamReader inputStreamReader = new InputStreamReader(inputStream);
-        BufferedReader reader = new BufferedReader(inputStreamReader)) {
-      List<String> result = new ArrayList<>();
-      String tmp;
-      while ((tmp = reader.readLine()) != null) {
-        result.add(tmp);
+  /**
+   * Normalizes line separators to the platform separator and drops a single trailing one.
+   *
+   * @param output the process output
+   * @return the output lines joined by the platform line separator
+   */
+  private static String joinLines(String output) {
+    String separator = System.lineSeparator();
+    if (output.indexOf('\r') < 0 && separator.equals("\n")) {
+      return output.endsWith("\n") ? output.substring(0, output.length() - 1) : output;
+    }
+
+    StringBuilder result = new StringBuilder(output.length());
+    int lineStart = 0;
+    for (int i = 0; i < output.length(); i++) {
+      char c = output.charAt(i);
+      if (c != '\n' && c != '\r') {
+        continue;
+      }
+      if (lineStart > 0) {
+        result.append(separator);
+      }
+      result.append(output, lineStart, i);
+      if (c == '\r' && i + 1 < output.length() && output.charAt(i + 1) == '\n') {
+        i++;
+      }
+      lineStart = i + 1;
+    }
+    if (lineStart < output.length()) {
+      if (lineStart > 0) {
+        result.append(separator);
       }
-      return String.join(System.lineSeparator(), result);
+      result.append(output, lineStart, output.length());
     }
+    return result.toString();
   }
 
   /**
@@ -59,19 +127,36 @@ public class ProcessUtils {
    * @return the standard out of the process
    */
   public static String runAsFileWithShell(String command) {
+    return runAsFileWithShell(command, executor.newRunDeadline());
+  }
+
+  /**
+   * Executes a command as a file.
+   *
+   * @param command the command to run
+   * @param runDeadline the deadline of the run the command belongs to
+   * @return the standard out of the process
+   */
+  public static String runAsFileWithShell(String command, Deadline runDeadline) {
     try (ExecutableTempFile temp = new ExecutableTempFile("execute-file", ".sh")) {
       Files.write(temp.file, command.getBytes(StandardCharsets.UTF_8));
-      ProcessBuilder builder = new ProcessBuilder(temp.file.toAbsolutePath().toString());
-      Process process = builder.start();
-
-      String output = readOutput(process.getInputStream());
+      ProcessResult result = executor.run(
+          Collections.singletonList(temp.file.toAbsolutePath().toString()),
+          command.trim(),
+          runDeadline
+      );
 
-      int exitCode = process.waitFor();
-
-      if (exitCode != 0) {
-        throw new RuntimeException("Process exited with exit code " + exitCode + "!");
+      if (result.isTimedOut()) {
+        throw new RuntimeException("Process timed out!");
+      }
+      if (result.getExitCode() != 0) {
+        String stderr = result.getStderrString().trim();
+        throw new RuntimeException(
+            "Process exited with exit code " + result.getExitCode() + "!"
+                + (stderr.isEmpty() ? "" : " " + stderr)
+        );
       }
-      return output;
+      return joinLines(result.getStdoutString());
     } catch (IOException | InterruptedException e) {
       throw new RuntimeException(e);
     }
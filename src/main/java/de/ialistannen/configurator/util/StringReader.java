@@ -1,21 +1,23 @@
 package de.ialistannen.configurator.util;
 
 
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
-import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * A utility reader for a string.
+ *
+ * <p>A reader is a cursor over a range of an underlying string. {@link #slice(int, int)} creates
+ * readers for a sub range that share the underlying string, so nested parsers never need to copy
+ * their input. All positions are absolute offsets into the underlying string.</p>
  */
 public class StringReader {
 
-  private static Set<Character> QUOTE_CHARS = new HashSet<>(Arrays.asList('"', '\''));
+  private static final Pattern INTEGER_PATTERN = Pattern.compile("[+-]?\\d+");
 
   private final String underlying;
+  private final LineIndex lineIndex;
+  private final int end;
   private int position;
 
   /**
@@ -34,8 +36,32 @@ public class StringReader {
    * @param position the initial position
    */
   public StringReader(String underlying, int position) {
+    this(underlying, new LineIndex(underlying), position, underlying.length());
+  }
+
+  private StringReader(String underlying, LineIndex lineIndex, int position, int end) {
     this.underlying = underlying;
+    this.lineIndex = lineIndex;
     this.position = position;
+    this.end = end;
+  }
+
+  /**
+   * Returns a new reader for the given range of the underlying string. The new reader starts at
+   * {@code start} and can not read past {@code end}. No characters are copied.
+   *
+   * @param start the absolute start offset (inclusive)
+   * @param end the absolute end offset (exclusive)
+   * @return a reader for the given range
+   * @throws IndexOutOfBoundsException if the range is not valid for the underlying string
+   */
+  public StringReader slice(int start, int end) {
+    if (start < 0 || end > underlying.length() || start > end) {
+      throw new IndexOutOfBoundsException(
+          "Invalid slice [" + start + ", " + end + ") of " + underlying.length() + " chars"
+      );
+    }
+    return new StringReader(underlying, lineIndex, start, end);
   }
 
   /**
@@ -44,7 +70,7 @@ public class StringReader {
    * @return true if there is more to read
    */
   public boolean canRead() {
-    return position < underlying.length();
+    return position < end;
   }
 
   /**
@@ -54,7 +80,7 @@ public class StringReader {
    * @return true if there is more to read
    */
   public boolean canRead(int amount) {
-    return position + amount <= underlying.length();
+    return position + amount <= end;
   }
 
   /**
@@ -73,7 +99,17 @@ public class StringReader {
    * @return the read text
    */
   public String peek(int amount) {
-    return underlying.substring(position, Math.min(underlying.length(), position + amount));
+    return underlying.substring(position, Math.min(end, position + amount));
+  }
+
+  /**
+   * Returns true if the next chars are exactly the given sequence. Does not allocate.
+   *
+   * @param sequence the sequence to check for
+   * @return true if the input continues with the given sequence
+   */
+  public boolean peekMatches(String sequence) {
+    return canRead(sequence.length()) && underlying.startsWith(sequence, position);
   }
 
   /**
@@ -82,7 +118,7 @@ public class StringReader {
    * @param predicate the predicate
    * @return the read text
    */
-  public String peekWhile(Predicate<Character> predicate) {
+  public String peekWhile(CharPredicate predicate) {
     int start = position;
     String text = readWhile(predicate);
 
@@ -121,10 +157,10 @@ public class StringReader {
    * @param predicate the predicate
    * @return the read string
    */
-  public String readWhile(Predicate<Character> predicate) {
+  public String readWhile(CharPredicate predicate) {
     int start = position;
-    while (canRead() && predicate.test(peek())) {
-      readChar();
+    while (position < end && predicate.test(underlying.charAt(position))) {
+      position++;
     }
 
     return underlying.substring(start, position);
@@ -140,24 +176,23 @@ public class StringReader {
    */
   public String readUntil(String sequence) {
     int start = position;
-    RingBuffer<Character> target = new RingBuffer<>(sequence.length());
-    sequence.chars().forEach(it -> target.add((char) it));
-
-    RingBuffer<Character> current = new RingBuffer<>(sequence.length());
-
-    while (canRead()) {
-      char next = readChar();
-      current.add(next);
-
-      if (current.equals(target)) {
-        position -= sequence.length();
-        break;
-      }
-    }
+    skipUntil(sequence);
 
     return underlying.substring(start, position);
   }
 
+  /**
+   * Moves the cursor to the start of the next occurrence of the given sequence or to the end of
+   * the input, if it does not occur. This is {@link #readUntil(String)} without building the
+   * string.
+   *
+   * @param sequence the end sequence
+   */
+  public void skipUntil(String sequence) {
+    int found = indexOf(sequence, position);
+    position = found < 0 ? end : found;
+  }
+
   /**
    * Reads the whole string matching the regex.
    *
@@ -165,8 +200,9 @@ public class StringReader {
    * @return the read string or an empty String, if the regex didn't match
    */
   public String readRegex(Pattern pattern) {
-    Matcher matcher = pattern.matcher(getUnderlying());
-    boolean resultFound = matcher.find(position);
+    Matcher matcher = pattern.matcher(underlying);
+    matcher.region(position, end);
+    boolean resultFound = matcher.find();
 
     if (!resultFound) {
       return "";
@@ -185,7 +221,7 @@ public class StringReader {
    * @throws ParseException if no integer can be read
    */
   public int readInteger() throws ParseException {
-    String read = readRegex(Pattern.compile("[+-]?\\d+"));
+    String read = readRegex(INTEGER_PATTERN);
 
     if (read.isEmpty()) {
       throw new ParseException(this, "Expected an integer");
@@ -204,11 +240,9 @@ public class StringReader {
    * @return the read line
    */
   public String readLine() {
-    String read = readLineIncludingNewline();
-    if (read.endsWith(System.lineSeparator())) {
-      return read.substring(0, read.length() - System.lineSeparator().length());
-    }
-    return read;
+    int start = position;
+    int contentEnd = skipLine(start);
+    return underlying.substring(start, contentEnd);
   }
 
   /**
@@ -217,7 +251,39 @@ public class StringReader {
    * @return the read line
    */
   public String readLineIncludingNewline() {
-    return readRegex(Pattern.compile(".*?(\\n|$)"));
+    int start = position;
+    skipLine(start);
+    return underlying.substring(start, position);
+  }
+
+  /**
+   * Reads a single line and returns a reader for it, without copying it.
+   *
+   * @param includeNewline whether the returned reader should include the line separator
+   * @return a reader for the read line
+   */
+  public StringReader sliceLine(boolean includeNewline) {
+    int start = position;
+    int contentEnd = skipLine(start);
+    return new StringReader(underlying, lineIndex, start, includeNewline ? position : contentEnd);
+  }
+
+  /**
+   * Moves the cursor after the next newline.
+   *
+   * @param lineStart the start of the line
+   * @return the end of the line content, i.e. the position before a trailing line separator
+   */
+  private int skipLine(int lineStart) {
+    int newline = indexOf('\n', position);
+    position = newline < 0 ? end : newline + 1;
+
+    String separator = System.lineSeparator();
+    int separatorStart = position - separator.length();
+    if (separatorStart >= lineStart && underlying.startsWith(separator, separatorStart)) {
+      return separatorStart;
+    }
+    return position;
   }
 
   /**
@@ -226,7 +292,7 @@ public class StringReader {
    * @return a parser that reads a single word or a quoted phrase
    */
   public String readPhrase() {
-    if (!QUOTE_CHARS.contains(peek())) {
+    if (!isQuoteChar(peek())) {
       return readWhile(it -> !Character.isWhitespace(it));
     }
 
@@ -255,6 +321,10 @@ public class StringReader {
     return readString.toString();
   }
 
+  private static boolean isQuoteChar(char c) {
+    return c == '"' || c == '\'';
+  }
+
   /**
    * Reads a string that is enclosed by parenthesis i.e. '(' and ')'.
    *
@@ -262,8 +332,19 @@ public class StringReader {
    * @throws ParseException if there is a syntax error
    */
   public String readEnclosedByParentheses() throws ParseException {
+    return sliceEnclosedByParentheses().readRemaining();
+  }
+
+  /**
+   * Reads a string that is enclosed by parenthesis i.e. '(' and ')' and returns a reader for the
+   * enclosed text, without copying it.
+   *
+   * @return a reader for the enclosed text
+   * @throws ParseException if there is a syntax error
+   */
+  public StringReader sliceEnclosedByParentheses() throws ParseException {
     assertRead("(");
-    StringBuilder readString = new StringBuilder();
+    int start = position;
 
     int depth = 1;
     while (canRead()) {
@@ -274,10 +355,9 @@ public class StringReader {
       } else if (read == ')') {
         depth--;
         if (depth == 0) {
-          return readString.toString();
+          return new StringReader(underlying, lineIndex, start, position - 1);
         }
       }
-      readString.append(read);
     }
     throw new ParseException(this, "Did not find a closing parenthesis");
   }
@@ -296,12 +376,11 @@ public class StringReader {
       String rest = input.replaceFirst(Pattern.quote(remaining), "");
       throw new ParseException(this, "Expected '" + rest + "'");
     }
-    int startPos = position;
-    if (!readChars(input.length()).equals(input)) {
+    if (!underlying.startsWith(input, position)) {
       // Show the discrepancy beginning at the start
-      reset(startPos);
       throw new ParseException(this, "Expected '" + input + "'");
     }
+    position += input.length();
   }
 
   /**
@@ -310,7 +389,9 @@ public class StringReader {
    * @return the remaining string
    */
   public String readRemaining() {
-    return readWhile(it -> true);
+    int start = position;
+    position = end;
+    return underlying.substring(start, end);
   }
 
   /**
@@ -319,10 +400,7 @@ public class StringReader {
    * @return the remaining string
    */
   public String peekRemaining() {
-    int start = position;
-    String read = readWhile(it -> true);
-    reset(start);
-    return read;
+    return underlying.substring(position, end);
   }
 
   /**
@@ -343,6 +421,15 @@ public class StringReader {
     return position;
   }
 
+  /**
+   * Returns the position this reader can not read past.
+   *
+   * @return the exclusive end offset of this reader
+   */
+  public int getEnd() {
+    return end;
+  }
+
   /**
    * Sets the position of the reader.
    *
@@ -358,33 +445,56 @@ public class StringReader {
    * @return the line number
    */
   public int getLineNumber() {
-    return countOccurrences(System.lineSeparator()) + 1;
+    return lineIndex.getLineNumber(position);
   }
 
   /**
-   * Returns the amount of times a sequence occurred in the read string.
+   * Returns the current column in the line, starting with 1.
    *
-   * @return the amount of occurrences
+   * @return the column
    */
-  public int countOccurrences(String sequence) {
-    String substring = underlying.substring(0, position);
-    if (sequence.length() == 1) {
-      return (int) substring.chars()
-          .filter(it -> it == sequence.charAt(0))
-          .count();
-    }
+  public int getColumn() {
+    return lineIndex.getColumn(position);
+  }
+
+  /**
+   * Returns the line index of the underlying string. It is shared with all slices of this reader.
+   *
+   * @return the line index
+   */
+  public LineIndex getLineIndex() {
+    return lineIndex;
+  }
 
-    int count = 0;
-    RingBuffer<Character> expected = RingBuffer.forCharArray(sequence.toCharArray());
+  /**
+   * Finds the next occurrence of the sequence that lies completely before {@link #end}.
+   *
+   * @param sequence the sequence to search
+   * @param from the offset to start searching at
+   * @return the start of the occurrence or -1 if there is none
+   */
+  private int indexOf(String sequence, int from) {
+    int length = sequence.length();
+    if (length == 0) {
+      return from;
+    }
+    char first = sequence.charAt(0);
+    int lastStart = end - length;
 
-    RingBuffer<Character> rollingLast = new RingBuffer<>(sequence.length());
-    for (char c : underlying.toCharArray()) {
-      rollingLast.add(c);
-      if (expected.equals(rollingLast)) {
-        count++;
+    for (int i = from; i <= lastStart; i++) {
+      if (underlying.charAt(i) == first && underlying.startsWith(sequence, i)) {
+        return i;
       }
     }
+    return -1;
+  }
 
-    return count;
+  private int indexOf(char c, int from) {
+    for (int i = from; i < end; i++) {
+      if (underlying.charAt(i) == c) {
+        return i;
+      }
+    }
+    return -1;
   }
 }
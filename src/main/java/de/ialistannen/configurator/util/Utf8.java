@@ -0,0 +1,105 @@
+package de.ialistannen.configurator.util;
+
+/**
+ * Encodes text as UTF-8 without creating a {@link String} first.
+ */
+public class Utf8 {
+
+  private static final int CHUNK_SIZE = 4096;
+
+  /**
+   * Encodes the given characters as UTF-8. Unpaired surrogates are replaced by {@code '?'}, like
+   * {@link String#getBytes(java.nio.charset.Charset)} does.
+   *
+   * @param text the text to encode
+   * @return the encoded text, in an array of exactly the right size
+   */
+  public static byte[] encode(StringBuilder text) {
+    char[] chunk = new char[Math.min(CHUNK_SIZE, text.length()) + 1];
+    byte[] result = new byte[encodedLength(text, chunk)];
+    int position = 0;
+
+    for (int start = 0; start < text.length(); start += CHUNK_SIZE) {
+      int length = readChunk(text, start, chunk);
+      for (int i = 0; i < length; i++) {
+        char c = chunk[i];
+        if (c < 0x80) {
+          result[position++] = (byte) c;
+        } else if (c < 0x800) {
+          result[position++] = (byte) (0xC0 | (c >> 6));
+          result[position++] = (byte) (0x80 | (c & 0x3F));
+        } else if (!Character.isSurrogate(c)) {
+          result[position++] = (byte) (0xE0 | (c >> 12));
+          result[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+          result[position++] = (byte) (0x80 | (c & 0x3F));
+        } else if (isPairStart(chunk, i, length)) {
+          int codePoint = Character.toCodePoint(c, chunk[++i]);
+          result[position++] = (byte) (0xF0 | (codePoint >> 18));
+          result[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+          result[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+          result[position++] = (byte) (0x80 | (codePoint & 0x3F));
+        } else if (Character.isLowSurrogate(c) && i == 0 && start > 0
+            && Character.isHighSurrogate(text.charAt(start - 1))) {
+          // Second half of a pair that was split between two chunks, already encoded
+          continue;
+        } else {
+          result[position++] = '?';
+        }
+      }
+    }
+    return result;
+  }
+
+  private static int encodedLength(StringBuilder text, char[] chunk) {
+    int encodedLength = 0;
+    for (int start = 0; start < text.length(); start += CHUNK_SIZE) {
+      int length = readChunk(text, start, chunk);
+      for (int i = 0; i < length; i++) {
+        char c = chunk[i];
+        if (c < 0x80) {
+          encodedLength += 1;
+        } else if (c < 0x800) {
+          encodedLength += 2;
+        } else if (!Character.isSurrogate(c)) {
+          encodedLength += 3;
+        } else if (isPairStart(chunk, i, length)) {
+          encodedLength += 4;
+          i++;
+        } else if (Character.isLowSurrogate(c) && i == 0 && start > 0
+            && Character.isHighSurrogate(text.charAt(start - 1))) {
+          continue;
+        } else {
+          encodedLength += 1;
+        }
+      }
+    }
+    return encodedLength;
+  }
+
+  /**
+   * Copies a chunk of the text. The character following the chunk is copied as well, so a
+   * surrogate pair starting at the end of the chunk can be recognized. At the end of the text, a
+   * zero is used instead.
+   *
+   * @param text the text
+   * @param start the start of the chunk
+   * @param chunk the array to copy to
+   * @return the length of the chunk, without the extra character
+   */
+  private static int readChunk(StringBuilder text, int start, char[] chunk) {
+    int length = Math.min(CHUNK_SIZE, text.length() - start);
+    if (start + length < text.length()) {
+      text.getChars(start, start + length + 1, chunk, 0);
+    } else {
+      text.getChars(start, start + length, chunk, 0);
+      chunk[length] = 0;
+    }
+    return length;
+  }
+
+  private static boolean isPairStart(char[] chunk, int index, int length) {
+    return Character.isHighSurrogate(chunk[index])
+        && index + 1 <= length
+        && Character.isLowSurrogate(chunk[index + 1]);
+  }
+}
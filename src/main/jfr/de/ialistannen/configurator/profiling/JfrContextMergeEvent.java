@@ -0,0 +1,55 @@
+package de.ialistannen.configurator.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The flight recorder implementation of {@link ContextMergeEvent}.
+ */
+@Name("de.ialistannen.configurator.ContextMerge")
+@Label("Context Merge")
+@Category({"Configurator", "Rendering"})
+@StackTrace(false)
+public class JfrContextMergeEvent extends jdk.jfr.Event implements ContextMergeEvent {
+
+  @Label("Merged Values")
+  private int mergedValues;
+
+  @Label("Merged Actions")
+  private int mergedActions;
+
+  @Label("Values")
+  private int values;
+
+  @Label("Actions")
+  private int actions;
+
+  /**
+   * Starts measuring a merge.
+   */
+  JfrContextMergeEvent() {
+    begin();
+  }
+
+  /**
+   * Ends the merge and commits the event, if a recording wants it.
+   *
+   * @param mergedValues the amount of values taken from the other context
+   * @param mergedActions the amount of actions taken from the other context
+   * @param values the amount of values after merging
+   * @param actions the amount of actions after merging
+   */
+  @Override
+  public void finished(int mergedValues, int mergedActions, int values, int actions) {
+    end();
+    if (shouldCommit()) {
+      this.mergedValues = mergedValues;
+      this.mergedActions = mergedActions;
+      this.values = values;
+      this.actions = actions;
+      commit();
+    }
+  }
+}
@@ -0,0 +1,39 @@
+package de.ialistannen.configurator.profiling;
+
+/**
+ * Creates events that are recorded by the flight recorder. Loaded reflectively by
+ * {@link JfrEvents}, as this class only exists if the project was built with flight recorder
+ * support.
+ */
+public class JfrEventFactory implements EventFactory {
+
+  @Override
+  public PhaseEvent newPhase() {
+    return new JfrPhaseEvent();
+  }
+
+  @Override
+  public TargetRenderEvent startTargetRender() {
+    return new JfrTargetRenderEvent();
+  }
+
+  @Override
+  public ShellCommandEvent startShellCommand() {
+    return new JfrShellCommandEvent();
+  }
+
+  @Override
+  public ScriptEvent startScript() {
+    return new JfrScriptEvent();
+  }
+
+  @Override
+  public ContextMergeEvent startContextMerge() {
+    return new JfrContextMergeEvent();
+  }
+
+  @Override
+  public FileWriteEvent startFileWrite() {
+    return new JfrFileWriteEvent();
+  }
+}
@@ -0,0 +1,52 @@
+package de.ialistannen.configurator.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The flight recorder implementation of {@link FileWriteEvent}.
+ */
+@Name("de.ialistannen.configurator.FileWrite")
+@Label("File Write")
+@Category({"Configurator", "Distribution"})
+@StackTrace(false)
+public class JfrFileWriteEvent extends jdk.jfr.Event implements FileWriteEvent {
+
+  @Label("Path")
+  private String path;
+
+  @Label("Size")
+  @DataAmount
+  private long size;
+
+  @Label("Result")
+  private String result;
+
+  /**
+   * Starts measuring a write.
+   */
+  JfrFileWriteEvent() {
+    begin();
+  }
+
+  /**
+   * Ends the write and commits the event, if a recording wants it.
+   *
+   * @param path the written file
+   * @param size the size of the content
+   * @param result whether the file was created, changed or left alone
+   */
+  @Override
+  public void finished(String path, long size, String result) {
+    end();
+    if (shouldCommit()) {
+      this.path = path;
+      this.size = size;
+      this.result = result;
+      commit();
+    }
+  }
+}
@@ -0,0 +1,53 @@
+package de.ialistannen.configurator.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The flight recorder implementation of {@link PhaseEvent}.
+ */
+@Name("de.ialistannen.configurator.Phase")
+@Label("Phase")
+@Description("From the first target of a phase starting until the phase is merged")
+@Category({"Configurator", "Rendering"})
+@StackTrace(false)
+public class JfrPhaseEvent extends jdk.jfr.Event implements PhaseEvent {
+
+  @Label("Phase")
+  private String phase;
+
+  @Label("Targets")
+  private int targets;
+
+  private transient boolean started;
+
+  /**
+   * Marks the start of the phase, unless it was marked already.
+   */
+  @Override
+  public synchronized void started() {
+    if (!started) {
+      started = true;
+      begin();
+    }
+  }
+
+  /**
+   * Ends the phase and commits the event, if a recording wants it.
+   *
+   * @param phase the name of the phase
+   * @param targets the amount of targets in the phase
+   */
+  @Override
+  public synchronized void finished(String phase, int targets) {
+    end();
+    if (shouldCommit()) {
+      this.phase = phase;
+      this.targets = targets;
+      commit();
+    }
+  }
+}
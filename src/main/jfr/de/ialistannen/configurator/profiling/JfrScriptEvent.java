@@ -0,0 +1,40 @@
+package de.ialistannen.configurator.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The flight recorder implementation of {@link ScriptEvent}.
+ */
+@Name("de.ialistannen.configurator.Script")
+@Label("Script")
+@Category({"Configurator", "Rendering"})
+@StackTrace(false)
+public class JfrScriptEvent extends jdk.jfr.Event implements ScriptEvent {
+
+  @Label("Script")
+  private String script;
+
+  /**
+   * Starts measuring a script.
+   */
+  JfrScriptEvent() {
+    begin();
+  }
+
+  /**
+   * Ends the script and commits the event, if a recording wants it.
+   *
+   * @param script the source of the script
+   */
+  @Override
+  public void finished(String script) {
+    end();
+    if (shouldCommit()) {
+      this.script = script;
+      commit();
+    }
+  }
+}
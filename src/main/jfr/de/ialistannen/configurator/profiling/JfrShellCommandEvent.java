@@ -0,0 +1,50 @@
+package de.ialistannen.configurator.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The flight recorder implementation of {@link ShellCommandEvent}.
+ */
+@Name("de.ialistannen.configurator.ShellCommand")
+@Label("Shell Command")
+@Category({"Configurator", "Processes"})
+@StackTrace(false)
+public class JfrShellCommandEvent extends jdk.jfr.Event implements ShellCommandEvent {
+
+  @Label("Command")
+  private String command;
+
+  @Label("Exit Code")
+  private int exitCode;
+
+  @Label("Timed Out")
+  private boolean timedOut;
+
+  /**
+   * Starts measuring a command.
+   */
+  JfrShellCommandEvent() {
+    begin();
+  }
+
+  /**
+   * Ends the command and commits the event, if a recording wants it.
+   *
+   * @param command the command
+   * @param exitCode the exit code of the process
+   * @param timedOut whether the process was killed for taking too long
+   */
+  @Override
+  public void finished(String command, int exitCode, boolean timedOut) {
+    end();
+    if (shouldCommit()) {
+      this.command = command;
+      this.exitCode = exitCode;
+      this.timedOut = timedOut;
+      commit();
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package de.ialistannen.configurator.profiling;
+
+import de.ialistannen.configurator.rendering.FileRenderedObject;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The flight recorder implementation of {@link TargetRenderEvent}.
+ */
+@Name("de.ialistannen.configurator.TargetRender")
+@Label("Target Render")
+@Category({"Configurator", "Rendering"})
+@StackTrace(false)
+public class JfrTargetRenderEvent extends jdk.jfr.Event implements TargetRenderEvent {
+
+  @Label("Phase")
+  private String phase;
+
+  @Label("Target Path")
+  private String targetPath;
+
+  @Label("Output Size")
+  @DataAmount
+  private long outputSize;
+
+  /**
+   * Starts measuring a render.
+   */
+  JfrTargetRenderEvent() {
+    begin();
+  }
+
+  /**
+   * Ends the render and commits the event, if a recording wants it.
+   *
+   * @param phase the phase of the target
+   * @param rendered the rendered file
+   */
+  @Override
+  public void finished(String phase, FileRenderedObject rendered) {
+    end();
+    if (shouldCommit()) {
+      this.phase = phase;
+      this.targetPath = rendered.getTargetPath().toString();
+      this.outputSize = rendered.asUtf8Bytes().length;
+      commit();
+    }
+  }
+}
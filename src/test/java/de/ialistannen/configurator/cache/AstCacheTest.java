@@ -0,0 +1,81 @@
+package de.ialistannen.configurator.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import de.ialistannen.configurator.dsl.AstNode;
+import de.ialistannen.configurator.dsl.BlockAstNode;
+import de.ialistannen.configurator.dsl.DslParser;
+import de.ialistannen.configurator.dsl.IfAstNode;
+import de.ialistannen.configurator.dsl.comparison.ComparisonOperator;
+import de.ialistannen.configurator.phases.ParsedConfigFile;
+import de.ialistannen.configurator.util.ParseException;
+import de.ialistannen.configurator.util.StringReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AstCacheTest {
+
+  private static final String SOURCE = "Command prefix: #\n"
+      + "# name = {{$user}} {{$color rgb}} {{!whoami}}\n"
+      + "# if ({{$name}}) ~= (a.*)\n"
+      + "matched\n"
+      + "# else\n"
+      + "{{$name}} did not match\n"
+      + "# end if\n"
+      + "# action* Say: hi\n"
+      + "#!/bin/sh\n"
+      + "echo hi\n"
+      + "# end action*\n"
+      + "# reload action i3\n"
+      + "i3-msg reload\n"
+      + "# end reload action\n"
+      + "# call (Say: hi) (a b)\n"
+      + "# script js\n"
+      + "context.put('hey', 'you')\n"
+      + "# end script\n"
+      + "# execute\n"
+      + "echo {{$name}}\n"
+      + "# end execute";
+
+  @TempDir
+  Path cacheDir;
+
+  @Test
+  public void roundTripsParsedFile() throws ParseException {
+    DslParser parser = new DslParser(new StringReader(SOURCE), false);
+    AstNode body = parser.parse();
+    AstNode targetPath = new DslParser(new StringReader("{{$home}}/.bashrc"), "#", false).parse();
+    ParsedConfigFile parsedFile = new ParsedConfigFile(
+        "render", targetPath, parser.getCommandPrefix(), body
+    );
+
+    AstCache cache = new AstCache(cacheDir);
+    String key = AstCache.key(SOURCE.getBytes(StandardCharsets.UTF_8));
+    cache.store(key, parsedFile);
+
+    Optional<ParsedConfigFile> loaded = cache.load(key);
+    assertThat(loaded).contains(parsedFile);
+
+    IfAstNode ifNode = (IfAstNode) ((BlockAstNode) loaded.get().getBody()).getChildren().get(1);
+    assertThat(ifNode.getCondition().getOperator()).isEqualTo(ComparisonOperator.MATCHES);
+  }
+
+  @Test
+  public void treatsCorruptEntryAsMiss() throws IOException {
+    String key = AstCache.key(SOURCE.getBytes(StandardCharsets.UTF_8));
+    Files.write(cacheDir.resolve(key), new byte[]{0x43, 0x46, 0x47});
+
+    assertThat(new AstCache(cacheDir).load(key)).isEmpty();
+  }
+
+  @Test
+  public void keyDependsOnContent() {
+    assertThat(AstCache.key("a".getBytes(StandardCharsets.UTF_8)))
+        .isNotEqualTo(AstCache.key("b".getBytes(StandardCharsets.UTF_8)));
+  }
+}
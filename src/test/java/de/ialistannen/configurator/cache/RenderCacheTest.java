@@ -0,0 +1,113 @@
+package de.ialistannen.configurator.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import de.ialistannen.configurator.context.PhaseContext;
+import de.ialistannen.configurator.context.RenderContext;
+import de.ialistannen.configurator.rendering.FileRenderTarget;
+import de.ialistannen.configurator.rendering.FileRenderedObject;
+import de.ialistannen.configurator.rendering.RenderTarget;
+import de.ialistannen.configurator.template.StringRenderTarget;
+import de.ialistannen.configurator.util.Pair;
+import de.ialistannen.configurator.util.ParseException;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class RenderCacheTest {
+
+  @TempDir
+  Path cacheDir;
+
+  private StringRenderTarget body;
+  private StringRenderTarget targetPath;
+  private AtomicInteger renderCount;
+  private RenderTarget<FileRenderedObject> target;
+
+  @BeforeEach
+  void setUp() throws ParseException {
+    body = new StringRenderTarget(
+        "Command prefix: #\n"
+            + "# greeting = hello {{$name}}\n"
+            + "# action Greet\n"
+            + "echo {{$greeting}}\n"
+            + "# end action\n"
+            + "{{$greeting}}",
+        false
+    );
+    targetPath = StringRenderTarget.singleLine("/tmp/{{$name}}", false);
+    renderCount = new AtomicInteger();
+    target = cached(body);
+  }
+
+  private RenderTarget<FileRenderedObject> cached(StringRenderTarget body) {
+    FileRenderTarget fileTarget = new FileRenderTarget(body, targetPath);
+    return new RenderCache(cacheDir, RenderCachePolicy.CONTEXT_ONLY).wrap(
+        "fingerprint",
+        (context, session) -> {
+          renderCount.incrementAndGet();
+          return fileTarget.render(context, session);
+        },
+        body.getAst(), targetPath.getAst()
+    );
+  }
+
+  @Test
+  public void reusesResultIfReadValuesAreUnchanged() {
+    RenderContext context = new PhaseContext().storeValue("name", "world");
+    Pair<FileRenderedObject, RenderContext> first = target.render(context);
+    Pair<FileRenderedObject, RenderContext> second = target.render(
+        context.storeValue("unrelated", "value")
+    );
+
+    assertThat(renderCount).hasValue(1);
+    assertThat(second.getFirst()).isEqualTo(first.getFirst());
+    assertThat(second.getSecond().<String>getValue("greeting")).isEqualTo("hello world");
+    assertThat(second.getSecond().getAction("Greet"))
+        .isEqualTo(first.getSecond().getAction("Greet"));
+    assertThat(second.getSecond().<String>getValue("unrelated")).isEqualTo("value");
+  }
+
+  @Test
+  public void rendersAgainIfReadValueChanged() {
+    target.render(new PhaseContext().storeValue("name", "world"));
+    Pair<FileRenderedObject, RenderContext> result = target.render(
+        new PhaseContext().storeValue("name", "you")
+    );
+
+    assertThat(renderCount).hasValue(2);
+    assertThat(result.getFirst().asString()).isEqualTo("hello you");
+    assertThat(result.getFirst().getTargetPath().toString()).isEqualTo("/tmp/you");
+
+    target.render(new PhaseContext().storeValue("name", "world"));
+    assertThat(renderCount).hasValue(2);
+  }
+
+  @Test
+  public void replaysStoresThatDidNotChangeTheContext() throws ParseException {
+    RenderTarget<FileRenderedObject> fontTarget = cached(new StringRenderTarget(
+        "Command prefix: #\n"
+            + "# font = X\n"
+            + "{{$name}}",
+        false
+    ));
+    fontTarget.render(new PhaseContext().storeValue("name", "world").storeValue("font", "X"));
+    Pair<FileRenderedObject, RenderContext> result = fontTarget.render(
+        new PhaseContext().storeValue("name", "world").storeValue("font", "Y")
+    );
+
+    assertThat(renderCount).hasValue(1);
+    assertThat(result.getSecond().<String>getValue("font")).isEqualTo("X");
+  }
+
+  @Test
+  public void doesNotCacheShellCommandsByDefault() throws ParseException {
+    StringRenderTarget shell = new StringRenderTarget("Command prefix: #\n{{!echo hey}}", false);
+
+    assertThat(RenderCachePolicy.CONTEXT_ONLY.allows(shell.getAst())).isFalse();
+    assertThat(RenderCachePolicy.TRUST_SHELL_COMMANDS.allows(shell.getAst())).isTrue();
+    assertThat(RenderCachePolicy.TRUST_SHELL_COMMANDS.allows(body.getAst())).isTrue();
+  }
+}
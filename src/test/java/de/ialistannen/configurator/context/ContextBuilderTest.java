@@ -0,0 +1,60 @@
+package de.ialistannen.configurator.context;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class ContextBuilderTest {
+
+  @Test
+  public void buildEqualsStoringOneByOne() {
+    RenderContext base = new PhaseContext()
+        .storeValue("kept", 1)
+        .storeValue("overwritten", 2)
+        .storePostScript("base script");
+
+    RenderContext expected = base
+        .storeValue("overwritten", 3)
+        .storeValue("new", 4)
+        .storeAction(action("action"))
+        .storePostScript("first")
+        .storePostScript("second")
+        .storeReloadAction(action("reload"));
+
+    RenderContext built = new ContextBuilder(base)
+        .storeValue("overwritten", 3)
+        .storeValue("new", 4)
+        .storeAction(action("action"))
+        .storePostScript("first")
+        .storePostScript("second")
+        .storeReloadAction(action("reload"))
+        .build();
+
+    assertThat(built).isEqualTo(expected);
+  }
+
+  @Test
+  public void readsSeeStoredEntries() {
+    ContextBuilder builder = new ContextBuilder(
+        new PhaseContext().storeValue("value", "old").storePostScript("base script")
+    );
+    builder.storeValue("value", "new");
+    builder.storePostScript("first");
+    builder.storePostScript("second");
+
+    assertThat(builder.<String>getValue("value")).isEqualTo("new");
+    assertThat(builder.getAllValues()).containsEntry("value", "new");
+    assertThat(builder.getAllPostScripts()).containsExactly("second", "first", "base script");
+  }
+
+  @Test
+  public void buildWithoutChangesReturnsBase() {
+    RenderContext base = new PhaseContext().storeValue("value", 1);
+
+    assertThat(new ContextBuilder(base).build()).isSameAs(base);
+  }
+
+  private static RenderedAction action(String name) {
+    return new RenderedAction(name, name, "content of " + name, false);
+  }
+}
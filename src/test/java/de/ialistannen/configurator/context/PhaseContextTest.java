@@ -0,0 +1,127 @@
+package de.ialistannen.configurator.context;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class PhaseContextTest {
+
+  @Test
+  public void mergeKeepsOwnValuesAndActions() {
+    RenderContext own = new PhaseContext()
+        .storeValue("shared", "own")
+        .storeValue("own", 1)
+        .storeAction(action("shared", "own"));
+    RenderContext other = new PhaseContext()
+        .storeValue("shared", "other")
+        .storeValue("other", 2)
+        .storeAction(action("shared", "other"))
+        .storeAction(action("other", "other"));
+
+    RenderContext merged = own.merge(other);
+
+    assertThat(merged.getAllValues())
+        .hasSize(3)
+        .containsEntry("shared", "own")
+        .containsEntry("own", 1)
+        .containsEntry("other", 2);
+    assertThat(merged.getAction("shared")).isEqualTo(action("shared", "own"));
+    assertThat(merged.getAction("other")).isEqualTo(action("other", "other"));
+  }
+
+  @Test
+  public void mergePushesMissingScriptsInTheirOrder() {
+    RenderContext own = new PhaseContext()
+        .storePostScript("shared")
+        .storePostScript("own")
+        .storeReloadAction(action("shared", "reload"));
+    RenderContext other = new PhaseContext()
+        .storePostScript("first")
+        .storePostScript("shared")
+        .storePostScript("second")
+        .storePostScript("second")
+        .storeReloadAction(action("shared", "reload"))
+        .storeReloadAction(action("other", "reload"));
+
+    RenderContext merged = own.merge(other);
+
+    assertThat(merged.getAllPostScripts())
+        .containsExactly("first", "second", "second", "own", "shared");
+    assertThat(merged.getAllReloadActions())
+        .containsExactly(action("other", "reload"), action("shared", "reload"));
+  }
+
+  @Test
+  public void mergeWithItselfChangesNothing() {
+    RenderContext context = new PhaseContext()
+        .storeValue("value", 1)
+        .storePostScript("script");
+
+    assertThat(context.merge(context)).isEqualTo(context);
+  }
+
+  @Test
+  public void mergeAllEqualsMergingOneAfterAnother() {
+    RenderContext start = new PhaseContext()
+        .storeValue("shared", "start")
+        .storeValue("untouched", "start")
+        .storeAction(action("shared", "start"))
+        .storePostScript("start")
+        .storeReloadAction(action("start", "reload"));
+    List<RenderContext> results = Arrays.asList(
+        start
+            .storeValue("shared", "first")
+            .storeValue("new", "first")
+            .storeAction(action("new", "first"))
+            .storePostScript("a")
+            .storePostScript("b")
+            .storePostScript("b")
+            .storeReloadAction(action("first", "reload")),
+        start
+            .storeValue("new", "second")
+            .storeValue("second", "second")
+            .storePostScript("c")
+            .storePostScript("start")
+            .storeReloadAction(action("start", "reload")),
+        start
+            .storeAction(action("shared", "third"))
+            .storePostScript("d")
+            .storePostScript("a")
+            .storePostScript("e"),
+        start,
+        start
+            .storePostScript("g")
+            .storePostScript("h")
+            .storeReloadAction(action("fifth", "reload"))
+            .storeReloadAction(action("last", "reload")),
+        start
+            .storeValue("shared", "last")
+            .storePostScript("f")
+            .storePostScript("c")
+            .storeReloadAction(action("last", "reload"))
+    );
+
+    RenderContext folded = start;
+    List<ContextDelta> deltas = new ArrayList<>();
+    for (RenderContext result : results) {
+      folded = result.merge(folded);
+      deltas.add(ContextDelta.between(start, result));
+    }
+
+    assertThat(ContextDelta.mergeAll(start, deltas)).isEqualTo(folded);
+  }
+
+  @Test
+  public void mergeAllOfNothingIsTheStart() {
+    RenderContext start = new PhaseContext().storeValue("value", 1);
+
+    assertThat(ContextDelta.mergeAll(start, new ArrayList<>())).isSameAs(start);
+  }
+
+  private static RenderedAction action(String name, String content) {
+    return new RenderedAction(name, name, content, false);
+  }
+}
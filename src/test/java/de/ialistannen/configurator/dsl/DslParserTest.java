@@ -4,6 +4,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import de.ialistannen.configurator.context.Action;
 import de.ialistannen.configurator.dsl.comparison.ComparisonAstNode;
+import de.ialistannen.configurator.dsl.comparison.ComparisonOperator;
 import de.ialistannen.configurator.dsl.script.JavaScriptScript;
 import de.ialistannen.configurator.util.ParseException;
 import de.ialistannen.configurator.util.StringReader;
@@ -59,6 +60,7 @@ class DslParserTest {
       "{{!echo 'Hey you'}}, 'echo ''Hey you'''",
       "{{!echo Hey you}}, echo Hey you",
       "{{!echo Hey y'ou}}, echo Hey y'ou", // not what a shell would do, but might be nicer
+      "{{!!true}}, !true",
   })
   public void parseShellCommand(String input, String expected) throws ParseException {
     assertThat(getParsedResult(input)).isEqualTo(
@@ -66,6 +68,18 @@ class DslParserTest {
     );
   }
 
+  @ParameterizedTest(name = "{0} should parse to {1}")
+  @CsvSource({
+      "{{*echo}}, echo",
+      "{{*date +%N}}, date +%N",
+      "{{* echo}}, ' echo'",
+  })
+  public void parseAlwaysRunShellCommand(String input, String expected) throws ParseException {
+    assertThat(getParsedResult(input)).isEqualTo(
+        wrapInBlock(new ShellCommandAstNode(expected, true))
+    );
+  }
+
   @ParameterizedTest(name = "{0} should assign {1} to {2}")
   @CsvSource({
       "'# a = wow', a, wow",
@@ -191,7 +205,11 @@ class DslParserTest {
     AstNode result = getParsedResult(input);
     assertThat(result).isEqualTo(wrapInBlock(
         new IfAstNode(
-            new ComparisonAstNode(new LiteralAstNode("hey"), new LiteralAstNode("you"), null),
+            new ComparisonAstNode(
+                new LiteralAstNode("hey"),
+                new LiteralAstNode("you"),
+                ComparisonOperator.EQUALS_IGNORE_CASE
+            ),
             wrapInBlock(new LiteralAstNode("hey"))
         )
     ));
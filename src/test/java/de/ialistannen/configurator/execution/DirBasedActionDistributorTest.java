@@ -0,0 +1,102 @@
+package de.ialistannen.configurator.execution;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import de.ialistannen.configurator.context.PhaseContext;
+import de.ialistannen.configurator.context.RenderContext;
+import de.ialistannen.configurator.context.RenderedAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DirBasedActionDistributorTest {
+
+  @TempDir
+  Path tempDir;
+
+  private Path actionsDir;
+  private RenderContext context;
+
+  @BeforeEach
+  public void setUp() throws Exception {
+    actionsDir = Files.createDirectory(tempDir.resolve("actions"));
+    context = new PhaseContext()
+        .storeValue("actions_dir", actionsDir.toString())
+        .storeAction(new RenderedAction("a", "a", "echo a", false));
+  }
+
+  @Test
+  public void deletesStaleActions() throws Exception {
+    Files.write(actionsDir.resolve("stale"), bytes("echo stale"));
+    Files.createDirectories(actionsDir.resolve("stale-dir").resolve("nested"));
+
+    new DirBasedActionDistributor(false, false, false).distributeActions(context);
+
+    assertThat(listActions()).containsExactlyInAnyOrder("a", "Run_action");
+  }
+
+  @Test
+  public void preservesStaleActionsIfRequested() throws Exception {
+    Files.write(actionsDir.resolve("stale"), bytes("echo stale"));
+
+    new DirBasedActionDistributor(false, false, true).distributeActions(context);
+
+    assertThat(listActions()).containsExactlyInAnyOrder("a", "Run_action", "stale");
+  }
+
+  @Test
+  public void doesNotTouchUnchangedActions() throws Exception {
+    new DirBasedActionDistributor(false, false, false).distributeActions(context);
+    Path action = actionsDir.resolve("a");
+    FileTime oldTime = FileTime.fromMillis(1000);
+    Files.setLastModifiedTime(action, oldTime);
+
+    new DirBasedActionDistributor(false, false, false).distributeActions(context);
+
+    assertThat(Files.getLastModifiedTime(action)).isEqualTo(oldTime);
+  }
+
+  @Test
+  public void keepsChangedActionsExecutable() throws Exception {
+    Path action = Files.write(actionsDir.resolve("a"), bytes("echo old"));
+    Files.setPosixFilePermissions(action, PosixFilePermissions.fromString("rw-r-----"));
+
+    new DirBasedActionDistributor(false, false, false).distributeActions(context);
+
+    assertThat(Files.readAllBytes(action)).isEqualTo(bytes("echo a"));
+    assertThat(Files.getPosixFilePermissions(action))
+        .contains(PosixFilePermission.OWNER_EXECUTE, PosixFilePermission.GROUP_READ);
+  }
+
+  @Test
+  public void replacesDirectoriesInPlaceOfActions() throws Exception {
+    Path action = Files.createDirectory(actionsDir.resolve("a"));
+    Files.write(action.resolve("nested"), bytes("nested"));
+
+    new DirBasedActionDistributor(false, false, false).distributeActions(context);
+
+    assertThat(action).isRegularFile();
+    assertThat(Files.readAllBytes(action)).isEqualTo(bytes("echo a"));
+    assertThat(Files.getPosixFilePermissions(action))
+        .contains(PosixFilePermission.OWNER_EXECUTE);
+  }
+
+  private List<String> listActions() throws Exception {
+    try (Stream<Path> actions = Files.list(actionsDir)) {
+      return actions.map(path -> path.getFileName().toString()).collect(Collectors.toList());
+    }
+  }
+
+  private static byte[] bytes(String content) {
+    return content.getBytes(StandardCharsets.UTF_8);
+  }
+}
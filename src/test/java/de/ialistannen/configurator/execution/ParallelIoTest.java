@@ -0,0 +1,79 @@
+package de.ialistannen.configurator.execution;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+import de.ialistannen.configurator.exception.DistributionException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class ParallelIoTest {
+
+  private final ExecutorService executor = ParallelIo.newExecutor(4);
+
+  @AfterEach
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void reportsEveryFailureAfterProcessingAllItems() {
+    List<String> items = Arrays.asList("a", "bad-b", "c", "bad-d", "e");
+    Set<String> processed = ConcurrentHashMap.newKeySet();
+
+    DistributionException exception = catchThrowableOfType(
+        () -> ParallelIo.applyAll(
+            executor,
+            items,
+            item -> {
+              processed.add(item);
+              if (item.startsWith("bad")) {
+                throw new IOException("broken " + item);
+              }
+              return item;
+            },
+            item -> "Error writing '" + item + "'",
+            "Error writing files"
+        ),
+        DistributionException.class
+    );
+
+    assertThat(processed).containsExactlyInAnyOrderElementsOf(items);
+    assertThat(exception.getMessage())
+        .startsWith("Error writing files (2 failed)")
+        .contains("Error writing 'bad-b': broken bad-b")
+        .contains("Error writing 'bad-d': broken bad-d");
+    assertThat(exception.getSuppressed())
+        .extracting(Throwable::getMessage)
+        .containsExactly("broken bad-b", "broken bad-d");
+  }
+
+  @Test
+  public void returnsResultsInTheOrderOfTheItems() throws Exception {
+    List<Integer> items = Arrays.asList(80, 60, 40, 20, 0);
+
+    List<String> results = ParallelIo.applyAll(
+        executor,
+        items,
+        item -> {
+          try {
+            Thread.sleep(item);
+          } catch (InterruptedException e) {
+            throw new IOException(e);
+          }
+          return "slept " + item;
+        },
+        item -> "Error sleeping " + item,
+        "Error sleeping"
+    );
+
+    assertThat(results)
+        .containsExactly("slept 80", "slept 60", "slept 40", "slept 20", "slept 0");
+  }
+}
@@ -0,0 +1,138 @@
+package de.ialistannen.configurator.execution;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import de.ialistannen.configurator.config.Config;
+import de.ialistannen.configurator.context.PhaseContext;
+import de.ialistannen.configurator.context.RenderContext;
+import de.ialistannen.configurator.phases.MultiTargetRenderer;
+import de.ialistannen.configurator.phases.Phase;
+import de.ialistannen.configurator.rendering.ContextUsage;
+import de.ialistannen.configurator.rendering.FileRenderTarget;
+import de.ialistannen.configurator.rendering.FileRenderedObject;
+import de.ialistannen.configurator.rendering.RenderScheduler;
+import de.ialistannen.configurator.rendering.RenderSession;
+import de.ialistannen.configurator.rendering.RenderTarget;
+import de.ialistannen.configurator.rendering.StringRenderedObject;
+import de.ialistannen.configurator.template.StringRenderTarget;
+import de.ialistannen.configurator.util.Pair;
+import de.ialistannen.configurator.util.ParseException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+
+class ReactorTest {
+
+  private static final List<Phase> PHASES = Config.loadConfig("phases:\n- a\n- b\n- c")
+      .getPhasesAsObject();
+
+  @Test
+  public void sameResultAsRenderingPhaseByPhase() throws ParseException {
+    Map<String, MultiTargetRenderer> targets = new HashMap<>();
+    targets.put("a", new MultiTargetRenderer(Arrays.asList(
+        target("# x = 1\n# y = 1", "/a1"),
+        target("# x = 2", "/a2")
+    )));
+    targets.put("b", new MultiTargetRenderer(Arrays.asList(
+        // Lost, as the last target of the phase also contains the old value
+        target("# y = changed", "/b1"),
+        target("# z = {{$x}}\n# action Print\necho {{$x}}\n# end action", "/b2"),
+        target("# x = 3", "/b3")
+    )));
+    targets.put("c", new MultiTargetRenderer(Arrays.asList(
+        target("{{$x}} {{$y}} {{$z}}", "/c1"),
+        target("# action Print\necho {{$y}}\n# end action", "/c2")
+    )));
+
+    Reactor reactor = new Reactor(PHASES, targets);
+    Pair<List<FileRenderedObject>, RenderContext> result = reactor.renderAll(new PhaseContext());
+    reactor.shutdown();
+
+    RenderScheduler scheduler = RenderScheduler.createDefault();
+    RenderSession session = new RenderSession();
+    RenderContext expectedContext = new PhaseContext();
+    List<FileRenderedObject> expectedObjects = new ArrayList<>();
+    for (Phase phase : PHASES) {
+      Pair<List<FileRenderedObject>, RenderContext> phaseResult = targets.get(phase.identifier())
+          .render(expectedContext, session, scheduler);
+      expectedObjects.addAll(phaseResult.getFirst());
+      expectedContext = phaseResult.getSecond();
+    }
+    scheduler.shutdown();
+
+    assertThat(result.getFirst()).isEqualTo(expectedObjects);
+    assertThat(result.getSecond()).isEqualTo(expectedContext);
+    assertThat(result.getFirst().get(5).asString()).isEqualTo("3 1 2");
+  }
+
+  @Test
+  public void independentTargetsDoNotWaitForEarlierPhases() {
+    CountDownLatch laterPhaseRendered = new CountDownLatch(1);
+    Map<String, MultiTargetRenderer> targets = new HashMap<>();
+    targets.put("a", new MultiTargetRenderer(Collections.singletonList(
+        new IndependentTarget(() -> {
+          try {
+            return String.valueOf(laterPhaseRendered.await(10, TimeUnit.SECONDS));
+          } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+          }
+        })
+    )));
+    targets.put("c", new MultiTargetRenderer(Collections.singletonList(
+        new IndependentTarget(() -> {
+          laterPhaseRendered.countDown();
+          return "done";
+        })
+    )));
+
+    Reactor reactor = new Reactor(
+        PHASES, targets, RenderScheduler.create(RenderScheduler.Kind.FIXED, 2)
+    );
+    Pair<List<FileRenderedObject>, RenderContext> result = reactor.renderAll(new PhaseContext());
+    reactor.shutdown();
+
+    assertThat(result.getFirst().get(0).asString()).isEqualTo("true");
+    assertThat(result.getFirst().get(1).asString()).isEqualTo("done");
+  }
+
+  private static RenderTarget<FileRenderedObject> target(String body, String path)
+      throws ParseException {
+    return new FileRenderTarget(
+        new StringRenderTarget("Command prefix: #\n" + body, false),
+        StringRenderTarget.singleLine(path, false)
+    );
+  }
+
+  private static class IndependentTarget implements RenderTarget<FileRenderedObject> {
+
+    private final Supplier<String> content;
+
+    IndependentTarget(Supplier<String> content) {
+      this.content = content;
+    }
+
+    @Override
+    public Pair<FileRenderedObject, RenderContext> render(RenderContext context,
+        RenderSession session) {
+      return new Pair<>(
+          new FileRenderedObject(Paths.get("/tmp"), new StringRenderedObject(content.get())),
+          context
+      );
+    }
+
+    @Override
+    public ContextUsage getContextUsage() {
+      return new ContextUsage(
+          true, Collections.emptySet(), Collections.emptySet(), Collections.emptySet()
+      );
+    }
+  }
+}
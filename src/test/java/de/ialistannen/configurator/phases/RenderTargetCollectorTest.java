@@ -0,0 +1,121 @@
+package de.ialistannen.configurator.phases;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import de.ialistannen.configurator.cache.AstCache;
+import de.ialistannen.configurator.cache.RenderCache;
+import de.ialistannen.configurator.context.PhaseContext;
+import de.ialistannen.configurator.rendering.FileRenderedObject;
+import de.ialistannen.configurator.rendering.RenderTarget;
+import de.ialistannen.configurator.util.Pair;
+import de.ialistannen.configurator.util.ParseException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class RenderTargetCollectorTest {
+
+  private ExecutorService executor;
+  private RenderTargetCollector collector;
+
+  @BeforeEach
+  void setUp() {
+    executor = RenderTargetCollector.newParseExecutor(4);
+    collector = new RenderTargetCollector(
+        false, AstCache.DISABLED, RenderCache.DISABLED, executor
+    );
+  }
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void loadsFilesInOrder(@TempDir Path tempDir) throws IOException {
+    List<Path> files = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      files.add(write(tempDir, "file" + i + ".conf", "Phase: phase" + i));
+    }
+
+    List<Pair<String, RenderTarget<FileRenderedObject>>> targets = collector.loadFiles(files);
+
+    assertThat(targets.stream().map(Pair::getFirst).collect(Collectors.toList()))
+        .containsExactlyElementsOf(
+            files.stream()
+                .map(it -> it.getFileName().toString().replace("file", "phase"))
+                .map(it -> it.replace(".conf", ""))
+                .collect(Collectors.toList())
+        );
+  }
+
+  @Test
+  public void reportsTheFirstBrokenFile(@TempDir Path tempDir) throws IOException {
+    List<Path> files = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      String header = i == 7 || i == 15 ? "Not a phase" : "Phase: phase" + i;
+      files.add(write(tempDir, "file" + i + ".conf", header));
+    }
+
+    assertThatThrownBy(() -> collector.loadFiles(files))
+        .isInstanceOf(IOException.class)
+        .hasMessage("Error parsing file '" + files.get(7) + "'")
+        .hasCauseInstanceOf(ParseException.class);
+  }
+
+  @Test
+  public void collectsAllPhases(@TempDir Path tempDir) throws IOException {
+    write(tempDir, "a.conf", "Phase: first");
+    Files.createDirectories(tempDir.resolve("nested"));
+    write(tempDir.resolve("nested"), "b.conf", "Phase: second");
+    write(tempDir.resolve("nested"), "ignored.txt", "Not a phase");
+
+    assertThat(collector.collectTargets(tempDir)).containsOnlyKeys("first", "second");
+  }
+
+  @ParameterizedTest(name = "Files with \"{0}\" line separators should render the same")
+  @ValueSource(strings = {"\n", "\r\n", "\r"})
+  public void rendersBodyIndependentOfLineSeparators(String separator, @TempDir Path tempDir)
+      throws IOException, ParseException {
+    String content = String.join(separator,
+        "Phase: test",
+        "Target path: /tmp/target",
+        "Command prefix: #",
+        "first",
+        "# a = value",
+        "second {{$a}}",
+        ""
+    );
+    Path file = tempDir.resolve("file.conf");
+    Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+
+    FileRenderedObject rendered = collector.loadFile(file).getSecond()
+        .render(new PhaseContext())
+        .getFirst();
+
+    assertThat(rendered.asString())
+        .isEqualTo("first" + System.lineSeparator() + "second value");
+  }
+
+  private static Path write(Path directory, String name, String header) throws IOException {
+    Path file = directory.resolve(name);
+    String content = header + "\n"
+        + "Target path: /tmp/" + name + "\n"
+        + "Command prefix: #\n"
+        + "Some content\n";
+    Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    return file;
+  }
+}
@@ -0,0 +1,58 @@
+package de.ialistannen.configurator.profiling;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+class ChromeTraceTest {
+
+  @Test
+  public void writesThreadsAndPhases() throws IOException {
+    StringWriter output = new StringWriter();
+    new ChromeTrace(Arrays.asList(
+        new Measurement(Category.TARGET, "/a", "base", 7, "MultiRenderWorker", 2000, 3000, 64),
+        new Measurement(Category.SHELL_COMMAND, "echo \"hi\"", null, 8, "Shell", 0, 1500, -1)
+    )).write(output);
+
+    assertThat(output.toString()).isEqualTo(
+        "{\"displayTimeUnit\":\"ms\",\"traceEvents\":[\n"
+            + "{\"name\":\"process_name\",\"ph\":\"M\",\"pid\":1,\"tid\":0,"
+            + "\"args\":{\"name\":\"Configurator\"}},\n"
+            + "{\"name\":\"process_name\",\"ph\":\"M\",\"pid\":2,\"tid\":0,"
+            + "\"args\":{\"name\":\"Phases\"}},\n"
+            + "{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":7,"
+            + "\"args\":{\"name\":\"MultiRenderWorker\"}},\n"
+            + "{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":8,"
+            + "\"args\":{\"name\":\"Shell\"}},\n"
+            + "{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":2,\"tid\":0,"
+            + "\"args\":{\"name\":\"base\"}},\n"
+            + "{\"name\":\"base\",\"cat\":\"phase\",\"ph\":\"X\",\"pid\":2,\"tid\":0,"
+            + "\"ts\":2.000,\"dur\":3.000,\"args\":{\"targets\":1,\"allocatedBytes\":64}},\n"
+            + "{\"name\":\"/a\",\"cat\":\"target\",\"ph\":\"X\",\"pid\":1,\"tid\":7,"
+            + "\"ts\":2.000,\"dur\":3.000,\"args\":{\"allocatedBytes\":64,\"phase\":\"base\"}},\n"
+            + "{\"name\":\"echo \\\"hi\\\"\",\"cat\":\"shell_command\",\"ph\":\"X\",\"pid\":1,"
+            + "\"tid\":8,\"ts\":0.000,\"dur\":1.500,\"args\":{\"allocatedBytes\":-1}}\n"
+            + "]}\n"
+    );
+  }
+
+  @ParameterizedTest(name = "\"{0}\" should be quoted as {1}")
+  @CsvSource({
+      "plain, '\"plain\"'",
+      "'with \"quotes\"', '\"with \\\"quotes\\\"\"'",
+      "'back\\slash', '\"back\\\\slash\"'",
+  })
+  public void quotesStrings(String input, String expected) {
+    assertThat(ChromeTrace.quote(input)).isEqualTo(expected);
+  }
+
+  @Test
+  public void escapesControlCharacters() {
+    assertThat(ChromeTrace.quote("a\nb\tc\u0001")).isEqualTo("\"a\\nb\\tc\\u0001\"");
+  }
+}
@@ -0,0 +1,64 @@
+package de.ialistannen.configurator.profiling;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import de.ialistannen.configurator.profiling.ProfileReport.PhaseSummary;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ProfileReportTest {
+
+  @Test
+  public void summarizesOverlappingPhases() {
+    ProfileReport report = new ProfileReport(Arrays.asList(
+        target("a", "first", 0, 10, 100),
+        target("b", "first", 5, 10, 50),
+        target("c", "second", 2, 30, -1),
+        new Measurement(Category.SHELL_COMMAND, "echo", null, 1, "main", 0, 50, 10)
+    ), 100, 10);
+
+    assertThat(report.getPhases()).containsExactly(
+        new PhaseSummary("second", 2, 30, 30, -1, 1),
+        new PhaseSummary("first", 0, 15, 20, 150, 2)
+    );
+  }
+
+  @Test
+  public void showsOnlyTheSlowest() {
+    ProfileReport report = new ProfileReport(Arrays.asList(
+        command("fast", 1),
+        command("slowest", 30),
+        command("slow", 20)
+    ), 100, 2);
+
+    assertThat(report.getSlowest(Category.SHELL_COMMAND))
+        .extracting(Measurement::getName)
+        .containsExactly("slowest", "slow");
+    assertThat(report.getSlowest(Category.SCRIPT)).isEmpty();
+  }
+
+  @Test
+  public void recordsEndedSpans() {
+    Profiler profiler = new Profiler();
+
+    profiler.start().end(Category.WRITE, "file", "phase");
+    Profiler.DISABLED.start().end(Category.WRITE, "ignored");
+
+    List<Measurement> measurements = profiler.getMeasurements();
+    assertThat(measurements).hasSize(1);
+    assertThat(measurements.get(0).getName()).isEqualTo("file");
+    assertThat(measurements.get(0).getPhase()).isEqualTo("phase");
+    assertThat(measurements.get(0).getThreadName()).isEqualTo(Thread.currentThread().getName());
+    assertThat(Profiler.DISABLED.getMeasurements()).isEmpty();
+  }
+
+  private static Measurement target(String name, String phase, long start, long duration,
+      long allocated) {
+    return new Measurement(Category.TARGET, name, phase, 1, "main", start, duration, allocated);
+  }
+
+  private static Measurement command(String name, long duration) {
+    return new Measurement(Category.SHELL_COMMAND, name, null, 1, "main", 0, duration, 0);
+  }
+}
@@ -9,11 +9,14 @@ import de.ialistannen.configurator.context.PhaseContext;
 import de.ialistannen.configurator.context.RenderContext;
 import de.ialistannen.configurator.context.RenderedAction;
 import de.ialistannen.configurator.util.ParseException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.AbstractMap.SimpleEntry;
 import org.graalvm.polyglot.Engine;
 import org.junit.jupiter.api.Assumptions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 
@@ -123,6 +126,48 @@ class StringRenderTargetTest {
         .isEmpty();
   }
 
+  @Test
+  public void identicalShellCommandsRunOnce() throws ParseException {
+    String input = getPrefix()
+        + "{{!date +%s%N}} {{!date +%s%N}}";
+    String[] parts = getResult(new PhaseContext(), input).split(" ");
+
+    assertThat(parts[0]).isEqualTo(parts[1]);
+  }
+
+  @Test
+  public void alwaysRunShellCommandsRunEveryTime() throws ParseException {
+    String input = getPrefix()
+        + "{{*date +%s%N}} {{*date +%s%N}}";
+    String[] parts = getResult(new PhaseContext(), input).split(" ");
+
+    assertThat(parts[0]).isNotEqualTo(parts[1]);
+  }
+
+  @Test
+  public void shellCommandsRunConcurrently() throws ParseException {
+    String input = getPrefix()
+        + "{{!sleep 0.4; echo a}}{{!sleep 0.4; echo b}}{{!sleep 0.4; echo c}}"
+        + "{{!sleep 0.4; echo d}}";
+    long start = System.nanoTime();
+
+    assertThat(getResult(new PhaseContext(), input)).isEqualTo("abcd");
+    assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(1200));
+  }
+
+  @Test
+  public void shellCommandsInBranchesNotTakenDoNotRun(@TempDir Path tempDir)
+      throws ParseException {
+    Path marker = tempDir.resolve("marker");
+    String input = getPrefix()
+        + "# if (a) == (b)\n"
+        + "{{!touch " + marker + "}}\n"
+        + "# end if";
+
+    assertThat(getResult(new PhaseContext(), input)).isEqualTo("");
+    assertThat(marker).doesNotExist();
+  }
+
   @Test
   public void pipingShell() throws ParseException {
     String input = getPrefix()
@@ -227,6 +272,9 @@ class StringRenderTargetTest {
       "(5) < (5), false",
       "(5) < (6), true",
       "(5) < (4), false",
+      "(hello) ~= (h.*o), true",
+      "(hello) ~= (H.*o), false",
+      "(hello) ~= (ell), false",
       "(true)  || (true), true",
       "(true)  || (false), true",
       "(false) || (true), true",
@@ -279,6 +327,62 @@ class StringRenderTargetTest {
         .isEmpty();
   }
 
+  @Test
+  public void ifsAroundText() throws ParseException {
+    String input = getPrefix()
+        + "before\n"
+        + "# if ({{$foo}}) == (20)\n"
+        + "taken {{$foo}}\n"
+        + "# bar = {{$foo}}!\n"
+        + "# end if\n"
+        + "# if ({{$foo}}) != (20)\n"
+        + "# skipped = {{$foo}}\n"
+        + "skipped\n"
+        + "# end if\n"
+        + "after";
+    RenderContext context = new PhaseContext().storeValue("foo", "20");
+
+    assertThat(getResult(context, input))
+        .isEqualTo("before\ntaken 20after");
+
+    assertThat(getContext(context, input))
+        .extracting(RenderContext::getAllValues)
+        .asInstanceOf(map(String.class, Object.class))
+        .containsOnly(new SimpleEntry<>("foo", "20"), new SimpleEntry<>("bar", "20!"));
+  }
+
+  @ParameterizedTest(name = "\"{0}\" should be {1}")
+  @CsvSource({
+      "({{$word}}) ~= ({{$pattern}}), true",
+      "({{$word}}) ~= (x{{$pattern}}), false",
+      "({{$number}}) > ({{$other}}), true",
+      "({{$number}}) > (10), false",
+      "(3) < ({{$number}}), true",
+  })
+  public void comparisonsWithVariables(String condition, boolean expected) throws ParseException {
+    String input = getPrefix()
+        + "# if " + condition + "\n"
+        + "true\n"
+        + "# end if";
+    RenderContext context = new PhaseContext()
+        .storeValue("word", "hello")
+        .storeValue("pattern", "h.*o")
+        .storeValue("number", "4")
+        .storeValue("other", "-2");
+
+    assertThat(getResult(context, input)).isEqualTo(expected ? "true" : "");
+  }
+
+  @ParameterizedTest(name = "\"{0}\" should be {1} without evaluating the right side")
+  @CsvSource({
+      "(false) && ({{$missing}}), false",
+      "(true) || ({{$missing}}), true",
+  })
+  public void shortCircuitingComparisons(String condition, boolean expected)
+      throws ParseException {
+    assertIfIsTrueOrFalse(condition, expected);
+  }
+
   @ParameterizedTest(name = "\"{0}\" should be \"{1}\"")
   @CsvSource({
       "(Test) (HeyHa), /Test HeyHa",
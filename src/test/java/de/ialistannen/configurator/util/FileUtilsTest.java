@@ -0,0 +1,78 @@
+package de.ialistannen.configurator.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import de.ialistannen.configurator.util.FileUtils.WriteResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FileUtilsTest {
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  public void createsMissingFile() throws Exception {
+    Path file = tempDir.resolve("file");
+
+    assertThat(FileUtils.writeIfChanged(file, bytes("content"), false))
+        .isEqualTo(WriteResult.CREATED);
+    assertThat(Files.readAllBytes(file)).isEqualTo(bytes("content"));
+  }
+
+  @Test
+  public void doesNotTouchUnchangedFile() throws Exception {
+    Path file = Files.write(tempDir.resolve("file"), bytes("content"));
+    FileTime oldTime = FileTime.fromMillis(1000);
+    Files.setLastModifiedTime(file, oldTime);
+
+    assertThat(FileUtils.writeIfChanged(file, bytes("content"), false))
+        .isEqualTo(WriteResult.UNCHANGED);
+    assertThat(Files.getLastModifiedTime(file)).isEqualTo(oldTime);
+  }
+
+  @Test
+  public void replacesChangedFileAndKeepsPermissions() throws Exception {
+    Path file = Files.write(tempDir.resolve("file"), bytes("contenT"));
+    Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rwxr-x---"));
+
+    assertThat(FileUtils.writeIfChanged(file, bytes("content"), false))
+        .isEqualTo(WriteResult.CHANGED);
+    assertThat(Files.readAllBytes(file)).isEqualTo(bytes("content"));
+    assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(file)))
+        .isEqualTo("rwxr-x---");
+    try (Stream<Path> files = Files.list(tempDir)) {
+      assertThat(files).containsExactly(file);
+    }
+  }
+
+  @Test
+  public void writesThroughSymbolicLinks() throws Exception {
+    Path target = Files.write(tempDir.resolve("target"), bytes("old"));
+    Path link = Files.createSymbolicLink(tempDir.resolve("link"), target);
+
+    assertThat(FileUtils.writeIfChanged(link, bytes("new"), false))
+        .isEqualTo(WriteResult.CHANGED);
+    assertThat(Files.isSymbolicLink(link)).isTrue();
+    assertThat(Files.readAllBytes(target)).isEqualTo(bytes("new"));
+  }
+
+  @Test
+  public void dryRunDoesNotWrite() throws Exception {
+    Path file = Files.write(tempDir.resolve("file"), bytes("old"));
+
+    assertThat(FileUtils.writeIfChanged(file, bytes("new"), true))
+        .isEqualTo(WriteResult.CHANGED);
+    assertThat(Files.readAllBytes(file)).isEqualTo(bytes("old"));
+  }
+
+  private static byte[] bytes(String content) {
+    return content.getBytes(StandardCharsets.UTF_8);
+  }
+}
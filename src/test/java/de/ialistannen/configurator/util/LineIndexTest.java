@@ -0,0 +1,52 @@
+package de.ialistannen.configurator.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+class LineIndexTest {
+
+  private static final String SOURCE = "first\nsecond\n\nfourth\n";
+
+  @ParameterizedTest(name = "Offset {0} should be in line {1}, column {2}")
+  @CsvSource({
+      "0, 1, 1",
+      "4, 1, 5",
+      "5, 1, 6",
+      "6, 2, 1",
+      "12, 2, 7",
+      "13, 3, 1",
+      "14, 4, 1",
+      "20, 4, 7",
+      "21, 5, 1",
+  })
+  public void lineAndColumn(int offset, int line, int column) {
+    LineIndex index = new LineIndex(SOURCE);
+
+    assertThat(index.getLineNumber(offset)).isEqualTo(line);
+    assertThat(index.getColumn(offset)).isEqualTo(column);
+  }
+
+  @Test
+  public void lineStarts() {
+    LineIndex index = new LineIndex(SOURCE);
+
+    assertThat(index.getLineCount()).isEqualTo(5);
+    assertThat(index.getLineStart(2)).isEqualTo(6);
+    assertThat(index.getLineStart(4)).isEqualTo(14);
+  }
+
+  @Test
+  public void parseExceptionUsesPositionInFile() {
+    StringReader reader = new StringReader(SOURCE).slice(14, 20);
+    reader.readChars(2);
+
+    ParseException exception = new ParseException(reader, "Test");
+
+    assertThat(exception.getLineNumber()).isEqualTo(4);
+    assertThat(exception.getColumn()).isEqualTo(3);
+    assertThat(exception.getMessage()).contains("line 4, column 3");
+  }
+}
@@ -0,0 +1,77 @@
+package de.ialistannen.configurator.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import de.ialistannen.configurator.profiling.Category;
+import de.ialistannen.configurator.profiling.Measurement;
+import de.ialistannen.configurator.profiling.Profiler;
+import java.time.Duration;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+class ProcessExecutorTest {
+
+  @Test
+  public void capturesOutputAndExitCode() throws Exception {
+    ProcessExecutor executor = new ProcessExecutor(2, Duration.ofSeconds(10), null, 1024);
+
+    ProcessResult result = executor.run(
+        Arrays.asList("/bin/sh", "-c", "echo out; echo err >&2; exit 3"),
+        executor.newRunDeadline()
+    );
+
+    assertThat(result.getExitCode()).isEqualTo(3);
+    assertThat(result.getStdoutString()).isEqualTo("out\n");
+    assertThat(result.getStderrString()).isEqualTo("err\n");
+    assertThat(result.isTimedOut()).isFalse();
+  }
+
+  @Test
+  public void killsProcessesExceedingTheTimeout() throws Exception {
+    ProcessExecutor executor = new ProcessExecutor(2, Duration.ofMillis(200), null, 1024);
+    long start = System.nanoTime();
+
+    ProcessResult result = executor.run(
+        Arrays.asList("/bin/sh", "-c", "sleep 30"), executor.newRunDeadline()
+    );
+
+    assertThat(result.isTimedOut()).isTrue();
+    assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(10));
+  }
+
+  @Test
+  public void doesNotBlockOnFloodedStderr() throws Exception {
+    ProcessExecutor executor = new ProcessExecutor(2, Duration.ofSeconds(10), null, 1024);
+
+    ProcessResult result = executor.run(
+        Arrays.asList("/bin/sh", "-c", "head -c 1000000 /dev/zero >&2; echo done"),
+        executor.newRunDeadline()
+    );
+
+    assertThat(result.isTimedOut()).isFalse();
+    assertThat(result.isTruncated()).isTrue();
+    assertThat(result.getStderr()).hasSize(1024);
+    assertThat(result.getStdoutString()).isEqualTo("done\n");
+  }
+
+  @Test
+  public void recordsOneSpanPerProcess() throws Exception {
+    ProcessExecutor executor = new ProcessExecutor(2, Duration.ofSeconds(10), null, 1024);
+    Profiler profiler = new Profiler();
+    Profiler.setProfiler(profiler);
+    try {
+      executor.run(Arrays.asList("/bin/sh", "-c", "true"), "first", executor.newRunDeadline());
+      executor.run(Arrays.asList("/bin/sh", "-c", "true"), executor.newRunDeadline());
+    } finally {
+      Profiler.setProfiler(Profiler.DISABLED);
+    }
+
+    assertThat(profiler.getMeasurements())
+        .extracting(Measurement::getCategory, Measurement::getName)
+        .containsExactly(
+            tuple(Category.SHELL_COMMAND, "first"),
+            tuple(Category.SHELL_COMMAND, "/bin/sh -c true")
+        );
+  }
+}
@@ -0,0 +1,84 @@
+package de.ialistannen.configurator.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+class StringReaderTest {
+
+  @ParameterizedTest(name = "Reading \"{0}\" until \"{1}\" should yield \"{2}\"")
+  @CsvSource({
+      "hello {{world, {{, 'hello '",
+      "hello world, {{, hello world",
+      "{{, {{, ''",
+      "a}b}}c, }}, a}b",
+  })
+  public void readUntil(String input, String marker, String expected) {
+    StringReader reader = new StringReader(input);
+    assertThat(reader.readUntil(marker)).isEqualTo(expected);
+    assertThat(reader.getPosition()).isEqualTo(expected.length());
+  }
+
+  @Test
+  public void readUntilDoesNotSearchPastSliceEnd() {
+    StringReader reader = new StringReader("abc{{def").slice(0, 4);
+
+    assertThat(reader.readUntil("{{")).isEqualTo("abc{");
+    assertThat(reader.canRead()).isFalse();
+  }
+
+  @Test
+  public void sliceUsesAbsolutePositions() {
+    StringReader reader = new StringReader("0123456789").slice(3, 6);
+
+    assertThat(reader.getPosition()).isEqualTo(3);
+    assertThat(reader.readRemaining()).isEqualTo("345");
+    assertThat(reader.getPosition()).isEqualTo(6);
+  }
+
+  @Test
+  public void sliceRejectsInvalidRanges() {
+    StringReader reader = new StringReader("0123");
+
+    assertThatThrownBy(() -> reader.slice(2, 1)).isInstanceOf(IndexOutOfBoundsException.class);
+    assertThatThrownBy(() -> reader.slice(0, 5)).isInstanceOf(IndexOutOfBoundsException.class);
+  }
+
+  @Test
+  public void sliceLine() {
+    StringReader reader = new StringReader("first\nsecond\nthird");
+
+    assertThat(reader.sliceLine(true).readRemaining()).isEqualTo("first\n");
+    assertThat(reader.sliceLine(false).readRemaining()).isEqualTo("second");
+    assertThat(reader.sliceLine(false).readRemaining()).isEqualTo("third");
+    assertThat(reader.canRead()).isFalse();
+    assertThat(reader.sliceLine(false).readRemaining()).isEmpty();
+  }
+
+  @Test
+  public void readLineStopsAtSliceEnd() {
+    StringReader reader = new StringReader("first\nsecond").slice(0, 3);
+
+    assertThat(reader.readLine()).isEqualTo("fir");
+    assertThat(reader.canRead()).isFalse();
+  }
+
+  @Test
+  public void sliceEnclosedByParentheses() throws ParseException {
+    StringReader reader = new StringReader("(a (b) c) rest");
+
+    assertThat(reader.sliceEnclosedByParentheses().readRemaining()).isEqualTo("a (b) c");
+    assertThat(reader.readRemaining()).isEqualTo(" rest");
+  }
+
+  @Test
+  public void assertReadKeepsPositionOnMismatch() {
+    StringReader reader = new StringReader("Phase: test");
+
+    assertThatThrownBy(() -> reader.assertRead("Target")).isInstanceOf(ParseException.class);
+    assertThat(reader.getPosition()).isZero();
+  }
+}
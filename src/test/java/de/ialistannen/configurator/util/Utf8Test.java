@@ -0,0 +1,39 @@
+package de.ialistannen.configurator.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class Utf8Test {
+
+  @ParameterizedTest(name = "\"{0}\" should be encoded like String#getBytes does")
+  @ValueSource(strings = {
+      "",
+      "plain ascii\n",
+      "am content 'ä' ß",
+      "€ and ☃",
+      "emoji 😀 pair",
+      "lone high \uD83D surrogate",
+      "lone low \uDE00 surrogate",
+      "ends with high \uD83D",
+  })
+  public void encodesLikeString(String text) {
+    assertThat(Utf8.encode(new StringBuilder(text)))
+        .isEqualTo(text.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @ParameterizedTest(name = "Text with {0} leading characters should be encoded correctly")
+  @ValueSource(ints = {4094, 4095, 4096, 8191})
+  public void encodesPairsAcrossChunks(int padding) {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < padding; i++) {
+      text.append('a');
+    }
+    text.append("😀 \uD83Dä");
+
+    assertThat(Utf8.encode(text))
+        .isEqualTo(text.toString().getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,68 @@
+package de.ialistannen.configurator.profiling;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import de.ialistannen.configurator.context.PhaseContext;
+import de.ialistannen.configurator.context.RenderContext;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+class JfrEventsTest {
+
+  @Test
+  public void recordsContextMerges() throws IOException {
+    assumeTrue(JfrEvents.AVAILABLE, "Flight recorder not available");
+
+    List<RecordedEvent> events = record("de.ialistannen.configurator.ContextMerge", () -> {
+      RenderContext own = new PhaseContext().storeValue("shared", "own");
+      RenderContext other = new PhaseContext()
+          .storeValue("shared", "other")
+          .storeValue("other", 2);
+      own.merge(other);
+    });
+
+    assertThat(events).hasSize(1);
+    assertThat(events.get(0).getInt("mergedValues")).isEqualTo(1);
+    assertThat(events.get(0).getInt("values")).isEqualTo(2);
+  }
+
+  @Test
+  public void phasesWithoutStartedTargetsAreStillCommitted() throws IOException {
+    assumeTrue(JfrEvents.AVAILABLE, "Flight recorder not available");
+
+    List<RecordedEvent> events = record(
+        "de.ialistannen.configurator.Phase",
+        () -> JfrEvents.newPhase().finished("empty", 0)
+    );
+
+    assertThat(events).hasSize(1);
+    assertThat(events.get(0).getString("phase")).isEqualTo("empty");
+    assertThat(events.get(0).getInt("targets")).isEqualTo(0);
+  }
+
+  private static List<RecordedEvent> record(String eventName, Runnable action)
+      throws IOException {
+    Path file = Files.createTempFile("configurator", ".jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable(eventName);
+      recording.start();
+      action.run();
+      recording.stop();
+      recording.dump(file);
+
+      return RecordingFile.readAllEvents(file).stream()
+          .filter(it -> it.getEventType().getName().equals(eventName))
+          .collect(Collectors.toList());
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+}